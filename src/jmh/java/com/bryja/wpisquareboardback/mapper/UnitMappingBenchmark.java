@@ -0,0 +1,69 @@
+package com.bryja.wpisquareboardback.mapper;
+
+import com.bryja.wpisquareboardback.dto.UnitDTO;
+import com.bryja.wpisquareboardback.model.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The unit list endpoint minus the database: entities to DTOs, then DTOs to the JSON body.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnitMappingBenchmark {
+
+    @Param({"22", "500"})
+    int unitCount;
+
+    private final DtoMapper dtoMapper = new DtoMapper();
+    // configured like the one Spring Boot builds: java.time support, ISO dates
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private List<Unit> units;
+    private List<UnitDTO> dtos;
+
+    @Setup
+    public void setUp() {
+        Game game = new Game(50, 50);
+        game.setId(1L);
+        for (int i = 0; i < unitCount; i++) {
+            PlayerColor color = i % 2 == 0 ? PlayerColor.WHITE : PlayerColor.BLACK;
+            Position position = new Position(i % 50, i / 50);
+            Unit unit = switch (i % 3) {
+                case 0 -> new Archer(game, color, position);
+                case 1 -> new Vehicle(game, color, position);
+                default -> new Cannon(game, color, position);
+            };
+            unit.setId((long) i + 1);
+            unit.setVersion(0L);
+            game.addUnit(unit);
+        }
+        units = game.getUnits();
+        dtos = dtoMapper.toUnitDTOList(units);
+    }
+
+    @Benchmark
+    public List<UnitDTO> toUnitDTOList() {
+        return dtoMapper.toUnitDTOList(units);
+    }
+
+    @Benchmark
+    public byte[] serializeUnitDTOs() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtoMapper.toUnitDTOList(units));
+    }
+}
@@ -0,0 +1,61 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import com.bryja.wpisquareboardback.model.Position;
+import com.bryja.wpisquareboardback.model.UnitStatus;
+import com.bryja.wpisquareboardback.model.UnitType;
+import com.bryja.wpisquareboardback.state.GameState;
+import com.bryja.wpisquareboardback.state.UnitState;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Boards shared by the rules benchmarks: the default configuration, a given size and a fixed seed, so every
+ * fork measures the same position.
+ */
+final class BenchmarkBoards {
+
+    static final long GAME_ID = 1L;
+
+    private BenchmarkBoards() {
+    }
+
+    static GameConfigProperties config(int size) {
+        GameConfigProperties config = new GameConfigProperties();
+        config.getBoard().setWidth(size);
+        config.getBoard().setHeight(size);
+        return config;
+    }
+
+    /**
+     * One unit of the given type on the centre square, its four neighbours left empty, and every other square
+     * taken with the given probability by a unit of a random colour.
+     */
+    static GameState boardAround(GameConfigProperties config, UnitType centreType, double density) {
+        int width = config.getBoard().getWidth();
+        int height = config.getBoard().getHeight();
+        int centreX = width / 2;
+        int centreY = height / 2;
+        Random random = new Random(42);
+        List<UnitState> units = new ArrayList<>();
+        units.add(unit(1L, PlayerColor.WHITE, centreType, centreX, centreY));
+        long nextId = 2;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (Math.abs(x - centreX) + Math.abs(y - centreY) <= 1) continue;
+                if (random.nextDouble() >= density) continue;
+                PlayerColor color = random.nextBoolean() ? PlayerColor.WHITE : PlayerColor.BLACK;
+                units.add(unit(nextId++, color, UnitType.values()[random.nextInt(UnitType.values().length)], x, y));
+            }
+        }
+        return new GameState(GAME_ID, width, height, units);
+    }
+
+    private static UnitState unit(Long id, PlayerColor color, UnitType type, int x, int y) {
+        return new UnitState(id, GAME_ID, color, type, new Position(x, y), UnitStatus.ACTIVE, 0, Instant.EPOCH, 0L);
+    }
+}
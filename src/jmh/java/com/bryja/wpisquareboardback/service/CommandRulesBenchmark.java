@@ -0,0 +1,90 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.model.Position;
+import com.bryja.wpisquareboardback.model.UnitType;
+import com.bryja.wpisquareboardback.state.GameState;
+import com.bryja.wpisquareboardback.state.RuleTables;
+import com.bryja.wpisquareboardback.state.UnitState;
+import com.bryja.wpisquareboardback.util.BoardUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move and shot validation of a single command, both for a legal target and for one the rules reject (the
+ * rejection builds its message and exception, which is what a spamming client pays for). Validation returns
+ * nothing, so accepted targets go to a {@link Blackhole} once they pass, and rejections are returned.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandRulesBenchmark {
+
+    @Param({"10", "50"})
+    int boardSize;
+
+    private CommandRules commandRules;
+    private GameState state;
+    private UnitState archer;
+    private UnitState vehicle;
+    private UnitState cannon;
+    private Position archerMove;
+    private Position vehicleMove;
+    private Position vehicleDiagonal;
+    private Position cannonShot;
+
+    @Setup
+    public void setUp() {
+        GameConfigProperties config = BenchmarkBoards.config(boardSize);
+        commandRules = new CommandRules(new BoardUtils(), new RuleTables(config));
+        state = BenchmarkBoards.boardAround(config, UnitType.ARCHER, 0.2);
+        archer = state.findUnit(1L).orElseThrow();
+        vehicle = BenchmarkBoards.boardAround(config, UnitType.VEHICLE, 0.2).findUnit(1L).orElseThrow();
+        cannon = BenchmarkBoards.boardAround(config, UnitType.CANNON, 0.2).findUnit(1L).orElseThrow();
+
+        Position centre = archer.getPosition();
+        archerMove = new Position(centre.getX() + 1, centre.getY());
+        vehicleMove = new Position(centre.getX(), centre.getY() - 1);
+        vehicleDiagonal = new Position(centre.getX() + 1, centre.getY() + 1);
+        cannonShot = new Position(centre.getX() - 3, centre.getY() + 2);
+    }
+
+    @Benchmark
+    public void validateArcherMove(Blackhole blackhole) {
+        commandRules.validateMoveRules(state, archer, archerMove);
+        blackhole.consume(archerMove);
+    }
+
+    @Benchmark
+    public void validateVehicleMove(Blackhole blackhole) {
+        commandRules.validateMoveRules(state, vehicle, vehicleMove);
+        blackhole.consume(vehicleMove);
+    }
+
+    @Benchmark
+    public Object rejectVehicleDiagonalMove() {
+        try {
+            commandRules.validateMoveRules(state, vehicle, vehicleDiagonal);
+            throw new IllegalStateException("Diagonal vehicle move was accepted");
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public void validateArcherShot(Blackhole blackhole) {
+        commandRules.validateShootRules(state, archer, archerMove);
+        blackhole.consume(archerMove);
+    }
+
+    @Benchmark
+    public void validateCannonShot(Blackhole blackhole) {
+        commandRules.validateShootRules(state, cannon, cannonShot);
+        blackhole.consume(cannonShot);
+    }
+}
@@ -0,0 +1,52 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.model.Game;
+import com.bryja.wpisquareboardback.util.GameRandom;
+import com.bryja.wpisquareboardback.util.UnitPlacement;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Initial placement on a board filled to the given share of its squares by both players.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InitialPlacementBenchmark {
+
+    @Param({"20", "1000", "20000"})
+    int boardSize;
+
+    @Param({"0.0001", "0.1", "1.0"})
+    double density;
+
+    @Param({"RANDOM", "MIRRORED"})
+    UnitPlacement placement;
+
+    private GameService gameService;
+
+    @Setup
+    public void setUp() {
+        GameConfigProperties config = BenchmarkBoards.config(boardSize);
+        config.getUnits().setPlacement(placement);
+        int perPlayer = (int) ((long) boardSize * boardSize * density / 2);
+        GameConfigProperties.Units.Initial initial = config.getUnits().getInitial();
+        initial.setArchers(perPlayer / 3);
+        initial.setCannons(perPlayer / 3);
+        initial.setVehicles(perPlayer - 2 * (perPlayer / 3));
+        gameService = new GameService(null, config, null, null, new GameRandom(config));
+    }
+
+    @Benchmark
+    public Game placeInitialUnits() {
+        Game game = new Game(boardSize, boardSize);
+        game.setRandomSeed(42L);
+        gameService.placeInitialUnits(game);
+        return game;
+    }
+}
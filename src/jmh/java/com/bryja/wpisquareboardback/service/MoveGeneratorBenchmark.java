@@ -0,0 +1,51 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.UnitType;
+import com.bryja.wpisquareboardback.state.GameState;
+import com.bryja.wpisquareboardback.state.RuleTables;
+import com.bryja.wpisquareboardback.state.UnitState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Legal target generation per unit type, the work behind every random command.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoveGeneratorBenchmark {
+
+    @Param({"ARCHER", "VEHICLE", "CANNON"})
+    UnitType unitType;
+
+    @Param({"0.1", "0.5"})
+    double density;
+
+    private MoveGenerator moveGenerator;
+    private GameState state;
+    private UnitState unit;
+
+    @Setup
+    public void setUp() {
+        GameConfigProperties config = BenchmarkBoards.config(20);
+        moveGenerator = new MoveGenerator(new RuleTables(config));
+        state = BenchmarkBoards.boardAround(config, unitType, density);
+        unit = state.findUnit(1L).orElseThrow();
+    }
+
+    @Benchmark
+    public int[] legalMoves() {
+        return moveGenerator.legalTargets(state, unit, CommandType.MOVE);
+    }
+
+    @Benchmark
+    public int[] legalShots() {
+        return moveGenerator.legalTargets(state, unit, CommandType.SHOOT);
+    }
+}
@@ -0,0 +1,35 @@
+package com.bryja.wpisquareboardback.util;
+
+import com.bryja.wpisquareboardback.model.Position;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BoardUtilsBenchmark {
+
+    private final BoardUtils boardUtils = new BoardUtils();
+    private Position from;
+    private Position to;
+
+    @Setup
+    public void setUp() {
+        from = new Position(3, 7);
+        to = new Position(8, 2);
+    }
+
+    @Benchmark
+    public boolean isWithinBounds() {
+        return boardUtils.isWithinBounds(to, 10, 10);
+    }
+
+    @Benchmark
+    public int manhattanDistance() {
+        return boardUtils.calculateManhattanDistance(from, to);
+    }
+}
@@ -1,7 +1,6 @@
 package com.bryja.wpisquareboardback.config;
 
-import com.bryja.wpisquareboardback.model.CommandType;
-import com.bryja.wpisquareboardback.model.UnitType;
+import com.bryja.wpisquareboardback.util.UnitPlacement;
 import jakarta.validation.constraints.Min;
 import lombok.Getter;
 import lombok.Setter;
@@ -18,6 +17,11 @@ public class GameConfigProperties {
 
     private Board board = new Board();
     private Units units = new Units();
+    private Commands commands = new Commands();
+    private History history = new History();
+    private Events events = new Events();
+    private Database database = new Database();
+    private Long seed; // seeds of new games are drawn from it when set, see GameRandom
 
     @Getter @Setter
     public static class Board {
@@ -31,6 +35,7 @@ public class GameConfigProperties {
         private Archer archer = new Archer();
         private Vehicle vehicle = new Vehicle();
         private Cannon cannon = new Cannon();
+        private UnitPlacement placement = UnitPlacement.RANDOM;
 
         @Getter @Setter
         public static class Initial {
@@ -59,28 +64,37 @@ public class GameConfigProperties {
         }
     }
 
+    @Getter @Setter
+    public static class Commands {
+        private boolean singleWriter = true;
+        @Min(1) private int mailboxCapacity = 1000;
+        @Min(1) private long writerKeepAliveMillis = 60_000; // idle time after which a game's mailbox is dropped
+        @Min(0) private long tickMillis = 0; // 0 resolves each command on its own
+    }
+
+    @Getter @Setter
+    public static class Database {
+        @Min(0) private int maxWaiting = 200; // callers waiting for a connection in virtual thread mode, see VirtualThreadsConfig
+    }
+
+    @Getter @Setter
+    public static class History {
+        @Min(1) private int queueCapacity = 10000;
+        @Min(1) private int batchSize = 100;
+        @Min(1) private long maxDelayMillis = 200;
+    }
+
+    @Getter @Setter
+    public static class Events {
+        @Min(1) private int replayBufferSize = 512;
+        @Min(1) private int subscriberBufferSize = 256;
+        @Min(1) private long heartbeatSeconds = 15;
+        @Min(0) private long emitterTimeoutMillis = 1_800_000;
+    }
+
     public int getTotalInitialUnits() {
         return units.getInitial().getArchers() +
                 units.getInitial().getVehicles() +
                 units.getInitial().getCannons();
     }
-
-    public int getCooldownSeconds(UnitType type, CommandType action) {
-        if (action == CommandType.MOVE) {
-            switch (type) {
-                case ARCHER: return units.getArcher().getMoveCooldownSeconds();
-                case VEHICLE: return units.getVehicle().getMoveCooldownSeconds();
-                case CANNON: return Integer.MAX_VALUE;
-                default: throw new IllegalArgumentException("Unknown unit type for move: " + type);
-            }
-        } else if (action == CommandType.SHOOT) {
-            switch (type) {
-                case ARCHER: return units.getArcher().getShootCooldownSeconds();
-                case CANNON: return units.getCannon().getShootCooldownSeconds();
-                case VEHICLE: return Integer.MAX_VALUE;
-                default: throw new IllegalArgumentException("Unknown unit type for shoot: " + type);
-            }
-        }
-        return 0;
-    }
 }
@@ -0,0 +1,35 @@
+package com.bryja.wpisquareboardback.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Active with {@code spring.threads.virtual.enabled=true} on Java 21, where Tomcat handles every request on a
+ * virtual thread of its own. Requests are then only limited by the connection pool, so it gets a
+ * {@link ConnectionLimitingDataSource} in front of it that also caps how many callers may wait for a connection
+ * ({@code game.database.max-waiting}).
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfig {
+
+    @Bean
+    static BeanPostProcessor connectionLimitingDataSourcePostProcessor(ObjectProvider<GameConfigProperties> config) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    hikari.validate(); // fills in the defaults, e.g. a pool size still -1 until the pool starts
+                    return new ConnectionLimitingDataSource(hikari, hikari.getMaximumPoolSize(),
+                            config.getObject().getDatabase().getMaxWaiting(), hikari.getConnectionTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.bryja.wpisquareboardback.controller;
+
+import com.bryja.wpisquareboardback.dto.*;
+import com.bryja.wpisquareboardback.mapper.*;
+import com.bryja.wpisquareboardback.service.*;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/games/{gameId}")
+@RequiredArgsConstructor
+public class CommandController {
+
+    private final CommandService commandService;
+    private final GameCommandExecutor commandExecutor;
+    private final CommandTickEngine tickEngine;
+    private final CommandMetrics commandMetrics;
+    private final DtoMapper dtoMapper;
+
+    @PostMapping("/commands:batch")
+    public ResponseEntity<List<CommandResultDTO>> executeBatch(
+            @PathVariable Long gameId,
+            @Valid @RequestBody BatchCommandRequestDTO batchRequest) {
+
+        List<CommandOutcome> outcomes = commandMetrics.recordBatch(gameId, batchRequest.getCommands(),
+                () -> tickEngine.isEnabled()
+                        ? tickEngine.executeBatch(gameId, batchRequest.getCommands())
+                        : commandExecutor.execute(gameId, () -> commandService.executeBatch(gameId, batchRequest.getCommands())));
+        return ResponseEntity.ok(dtoMapper.toCommandResultDTOList(outcomes));
+    }
+}
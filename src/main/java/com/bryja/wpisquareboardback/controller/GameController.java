@@ -4,10 +4,14 @@ import com.bryja.wpisquareboardback.dto.*;
 import com.bryja.wpisquareboardback.mapper.*;
 import com.bryja.wpisquareboardback.model.*;
 import com.bryja.wpisquareboardback.service.*;
+import com.bryja.wpisquareboardback.state.GameVersions;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -18,6 +22,8 @@ public class GameController {
 
     private final GameService gameService;
     private final DtoMapper dtoMapper;
+    private final BoardEventBroadcaster boardEventBroadcaster;
+    private final GameVersions gameVersions;
 
     @PostMapping("/new")
     public ResponseEntity<GameDTO> startNewGame() {
@@ -27,15 +33,39 @@ public class GameController {
 
 
     @GetMapping("/active")
-    public ResponseEntity<GameDTO> getActiveGame() {
+    public ResponseEntity<GameDTO> getActiveGame(WebRequest request) {
+        Long activeGameId = gameVersions.getActiveGameId();
+        if (activeGameId != null && request.checkNotModified(gameVersions.etag(activeGameId, GameStatus.ACTIVE))) {
+            return null; // 304, answered from memory
+        }
         Game activeGame = gameService.findActiveGameOrFail();
-        return ResponseEntity.ok(dtoMapper.toGameDTO(activeGame));
+        gameVersions.activeGameLoaded(activeGame.getId());
+        return ResponseEntity.ok().eTag(gameVersions.etag(activeGame.getId(), activeGame.getStatus())).body(dtoMapper.toGameDTO(activeGame));
     }
 
     @GetMapping("/{gameId}")
-    public ResponseEntity<GameDTO> getGameById(@PathVariable Long gameId) {
+    public ResponseEntity<GameDTO> getGameById(@PathVariable Long gameId, WebRequest request) {
+        // looked up first so an unknown id is a 404 whatever it sends; Game rows come from the second-level cache
         Game game = gameService.findGameByIdOrFail(gameId);
-        return ResponseEntity.ok(dtoMapper.toGameDTO(game));
+        String etag = gameVersions.etag(gameId, game.getStatus());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(dtoMapper.toGameDTO(game));
+    }
+
+    /**
+     * Streams the game's board changes as Server-Sent Events; reconnecting clients resume via {@code Last-Event-ID}.
+     * A finished game has nothing more to stream, and 204 tells {@code EventSource} to stop reconnecting.
+     */
+    @GetMapping(path = "/{gameId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamGameEvents(@PathVariable Long gameId,
+                                                       @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Game game = gameService.findGameByIdOrFail(gameId);
+        if (game.getStatus() == GameStatus.FINISHED) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(boardEventBroadcaster.subscribe(gameId, lastEventId));
     }
 
     // @GetMapping
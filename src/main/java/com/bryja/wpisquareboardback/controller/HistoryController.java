@@ -0,0 +1,93 @@
+package com.bryja.wpisquareboardback.controller;
+
+import com.bryja.wpisquareboardback.dto.CommandHistoryPageDTO;
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import com.bryja.wpisquareboardback.repository.CommandHistoryFilter;
+import com.bryja.wpisquareboardback.repository.HistoryCursor;
+import com.bryja.wpisquareboardback.service.CommandHistoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command history of a game or one of its units, newest first. JSON answers are keyset paginated; asking for
+ * {@code application/x-ndjson} streams every matching entry, one JSON object per line.
+ * <p>
+ * Everything that can be rejected with a status code is checked before the stream starts. Once entries have been
+ * written the status is already sent, so a failure while streaming ends the body with one {@code {"error": ...}} line
+ * instead of going to the JSON error handler.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/games/{gameId}")
+@RequiredArgsConstructor
+public class HistoryController {
+
+    private final CommandHistoryService historyService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping(path = {"/history", "/units/{unitId}/history"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CommandHistoryPageDTO> getHistory(
+            @PathVariable Long gameId,
+            @PathVariable(required = false) Long unitId,
+            @RequestParam(required = false) PlayerColor player,
+            @RequestParam(required = false) CommandType commandType,
+            @RequestParam(required = false) Boolean success,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        CommandHistoryFilter filter = new CommandHistoryFilter(gameId, unitId, player, commandType, success);
+        return ResponseEntity.ok(historyService.findPage(filter, cursor, limit));
+    }
+
+    @GetMapping(path = {"/history", "/units/{unitId}/history"}, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamHistory(
+            @PathVariable Long gameId,
+            @PathVariable(required = false) Long unitId,
+            @RequestParam(required = false) PlayerColor player,
+            @RequestParam(required = false) CommandType commandType,
+            @RequestParam(required = false) Boolean success,
+            @RequestParam(required = false) String cursor) {
+
+        HistoryCursor after = cursor != null ? HistoryCursor.decode(cursor) : null;
+        historyService.requireGame(gameId); // fail with a proper 404 before the stream starts
+        CommandHistoryFilter filter = new CommandHistoryFilter(gameId, unitId, player, commandType, success);
+        StreamingResponseBody body = out -> {
+            try {
+                historyService.streamAll(filter, after, entry -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(entry));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // client went away, ends the cursor with the transaction
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                log.debug("History stream of game {} closed by the client: {}", gameId, e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("History stream of game {} failed", gameId, e);
+                out.write(objectMapper.writeValueAsBytes(streamError()));
+                out.write('\n');
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private static Map<String, Object> streamError() {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("status", 500);
+        error.put("error", "Internal Server Error");
+        error.put("message", "History stream failed, the entries above are incomplete.");
+        return error;
+    }
+}
@@ -4,12 +4,16 @@ import com.bryja.wpisquareboardback.dto.*;
 import com.bryja.wpisquareboardback.mapper.*;
 import com.bryja.wpisquareboardback.model.*;
 import com.bryja.wpisquareboardback.service.*;
+import com.bryja.wpisquareboardback.state.CooldownLedger;
+import com.bryja.wpisquareboardback.state.GameVersions;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/games/{gameId}/units")
@@ -17,21 +21,58 @@ import java.util.List;
 public class UnitController {
 
     private final UnitService unitService;
+    private final GameService gameService;
     private final CommandService commandService;
+    private final GameCommandExecutor commandExecutor;
+    private final CommandTickEngine tickEngine;
+    private final CommandMetrics commandMetrics;
+    private final CooldownLedger cooldownLedger;
+    private final GameVersions gameVersions;
     private final DtoMapper dtoMapper;
 
     @GetMapping
     public ResponseEntity<List<UnitDTO>> listUnits(
             @PathVariable Long gameId,
-            @RequestParam(required = false) PlayerColor playerColor) {
+            @RequestParam(required = false) PlayerColor playerColor,
+            WebRequest request) {
 
+        Game game = gameService.findGameByIdOrFail(gameId); // an unknown id is a 404 even with a matching If-None-Match
+        // taken before the query, so the body is at least as new as the tag
+        String etag = gameVersions.etag(gameId, game.getStatus());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         List<Unit> units;
         if (playerColor != null) {
             units = unitService.getActiveUnitsForPlayer(gameId, playerColor);
         } else {
             units = unitService.getAllActiveUnits(gameId);
         }
-        return ResponseEntity.ok(dtoMapper.toUnitDTOList(units));
+        return ResponseEntity.ok().eTag(etag).body(dtoMapper.toUnitDTOList(units));
+    }
+
+    /**
+     * Units changed since a game version, answered from the in-memory change log. When the log can't tell
+     * (e.g. the version is from another instance or no instance id was sent) every active unit is returned
+     * with {@code full} set.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<UnitChangesDTO> listUnitChanges(
+            @PathVariable Long gameId,
+            @RequestParam long since,
+            @RequestParam(required = false) String instanceId) {
+
+        Optional<GameVersions.UnitChanges> changes = gameVersions.changesSince(gameId, instanceId, since);
+        if (changes.isPresent()) {
+            return ResponseEntity.ok(dtoMapper.toUnitChangesDTO(changes.get()));
+        }
+        Game game = gameService.findGameByIdOrFail(gameId);
+        UnitChangesDTO snapshot = new UnitChangesDTO();
+        snapshot.setInstanceId(gameVersions.getInstanceId());
+        snapshot.setVersion(gameVersions.currentVersion(gameId, game.getStatus())); // before the query, like the ETag
+        snapshot.setFull(true);
+        snapshot.setUnits(dtoMapper.toUnitDTOList(unitService.getAllActiveUnits(gameId)));
+        return ResponseEntity.ok(snapshot);
     }
 
     @GetMapping("/{unitId}")
@@ -49,8 +90,14 @@ public class UnitController {
             @PathVariable Long unitId,
             @Valid @RequestBody CommandRequestDTO commandRequest) {
 
-        Unit updatedUnit = commandService.executeCommand(gameId, unitId, commandRequest);
-        return ResponseEntity.ok(dtoMapper.toUnitDTO(updatedUnit));
+        CommandOutcome outcome = commandMetrics.record(gameId, unitId, commandRequest.getCommandType(), () -> {
+            // still cooling down as of the last committed command: reject without queueing or touching the database
+            cooldownLedger.checkCooldown(gameId, unitId, commandRequest.getPlayerColor(), commandRequest.getCommandType());
+            return tickEngine.isEnabled()
+                    ? tickEngine.execute(gameId, unitId, commandRequest)
+                    : commandExecutor.execute(gameId, () -> commandService.executeCommand(gameId, unitId, commandRequest));
+        });
+        return ResponseEntity.ok(dtoMapper.toUnitDTO(outcome.getUnit()));
     }
 
     @PostMapping("/{unitId}/command/random")
@@ -59,7 +106,12 @@ public class UnitController {
             @PathVariable Long unitId,
             @Valid @RequestBody RandomCommandRequestDTO randomRequest) {
 
-        Unit updatedUnit = commandService.executeRandomCommand(gameId, unitId, randomRequest.getPlayerColor());
-        return ResponseEntity.ok(dtoMapper.toUnitDTO(updatedUnit));
+        CommandOutcome outcome = commandMetrics.record(gameId, unitId, CommandType.RANDOM_MOVE, () -> {
+            cooldownLedger.checkAnyActionReady(gameId, unitId, randomRequest.getPlayerColor());
+            return tickEngine.isEnabled()
+                    ? tickEngine.executeRandom(gameId, unitId, randomRequest.getPlayerColor())
+                    : commandExecutor.execute(gameId, () -> commandService.executeRandomCommand(gameId, unitId, randomRequest.getPlayerColor()));
+        });
+        return ResponseEntity.ok(dtoMapper.toUnitDTO(outcome.getUnit()));
     }
 }
@@ -0,0 +1,15 @@
+package com.bryja.wpisquareboardback.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchCommandRequestDTO {
+    @NotEmpty(message = "At least one command is required")
+    @Size(max = 100, message = "At most 100 commands per batch")
+    private List<@Valid UnitCommandRequestDTO> commands;
+}
@@ -0,0 +1,35 @@
+package com.bryja.wpisquareboardback.dto;
+
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.Position;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * One change of a game's board as pushed to {@code /api/games/{gameId}/events}. The sequence increases by one
+ * per event within a game and, prefixed with the server instance's id, is the SSE event id.
+ */
+@Data
+public class BoardEventDTO {
+    private long sequence;
+    private Type type;
+    private Long gameId;
+    private Long unitId;
+    private Position position;
+    private CommandType commandType;
+    private String result;
+    private Instant timestamp;
+
+    public enum Type {
+        UNIT_MOVED,
+        UNIT_DESTROYED,
+        COMMAND_RESULT,
+        /** The requested events are no longer (or not yet) known, the client should reload the board. */
+        RESYNC;
+
+        public String eventName() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.bryja.wpisquareboardback.dto;
+
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import com.bryja.wpisquareboardback.model.Position;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+public class CommandHistoryDTO {
+    private Long id;
+    private Long gameId;
+    private Long unitId;
+    private PlayerColor executingPlayer;
+    private CommandType commandType;
+    private Position targetPosition;
+    private Instant timestamp;
+    private String resultDescription;
+    private boolean success;
+
+    // used by the JPQL constructor expression in CommandHistoryRepositoryImpl
+    public CommandHistoryDTO(Long id, Long gameId, Long unitId, PlayerColor executingPlayer, CommandType commandType,
+                             Position targetPosition, Instant timestamp, String resultDescription) {
+        this.id = id;
+        this.gameId = gameId;
+        this.unitId = unitId;
+        this.executingPlayer = executingPlayer;
+        this.commandType = commandType;
+        this.targetPosition = targetPosition;
+        this.timestamp = timestamp;
+        this.resultDescription = resultDescription;
+        this.success = resultDescription != null && resultDescription.startsWith("SUCCESS");
+    }
+}
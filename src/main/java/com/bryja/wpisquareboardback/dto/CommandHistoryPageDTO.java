@@ -0,0 +1,14 @@
+package com.bryja.wpisquareboardback.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of command history, newest first. {@code nextCursor} is null on the last page.
+ */
+@Data
+public class CommandHistoryPageDTO {
+    private List<CommandHistoryDTO> items;
+    private String nextCursor;
+}
@@ -0,0 +1,13 @@
+package com.bryja.wpisquareboardback.dto;
+
+import com.bryja.wpisquareboardback.model.CommandType;
+import lombok.Data;
+
+@Data
+public class CommandResultDTO {
+    private Long unitId;
+    private CommandType commandType;
+    private boolean success;
+    private String result;
+    private UnitDTO unit;
+}
@@ -0,0 +1,18 @@
+package com.bryja.wpisquareboardback.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Answer of {@code GET /api/games/{gameId}/units/changes}. With {@code full} unset, {@code units} holds only the
+ * units changed since the requested version, destroyed ones included; otherwise it is every active unit and
+ * replaces what the client has. Either way {@code version} and {@code instanceId} are what to ask from next time.
+ */
+@Data
+public class UnitChangesDTO {
+    private String instanceId;
+    private long version;
+    private boolean full;
+    private List<UnitDTO> units;
+}
@@ -0,0 +1,12 @@
+package com.bryja.wpisquareboardback.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class UnitCommandRequestDTO extends CommandRequestDTO {
+    @NotNull(message = "Unit id is required")
+    private Long unitId;
+}
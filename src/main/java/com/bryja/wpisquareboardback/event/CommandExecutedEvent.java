@@ -0,0 +1,35 @@
+package com.bryja.wpisquareboardback.event;
+
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import com.bryja.wpisquareboardback.model.Position;
+import com.bryja.wpisquareboardback.model.UnitType;
+import com.bryja.wpisquareboardback.state.UnitState;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Published by the command path when a unit acted (successfully or blocked, i.e. whenever its last action
+ * timestamp moved). Listeners interested in committed state should use an after-commit transactional listener.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class CommandExecutedEvent {
+    private final Long gameId;
+    private final Long unitId;
+    private final PlayerColor playerColor;
+    private final UnitType unitType;
+    private final CommandType commandType;
+    private final Instant actionTimestamp;
+    private final String resultDescription;
+    private final Position unitPosition; // of the acting unit once the command was applied
+    private final boolean moved;
+    private final Long destroyedUnitId; // null when nothing was destroyed
+    private final Position destroyedUnitPosition;
+    private final List<UnitState> changedUnits; // snapshots as committed, the acting unit first
+}
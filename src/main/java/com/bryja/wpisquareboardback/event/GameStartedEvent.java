@@ -0,0 +1,16 @@
+package com.bryja.wpisquareboardback.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Published when a new game is created, together with the game it replaced as the active one (if any).
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class GameStartedEvent {
+    private final Long gameId;
+    private final Long finishedGameId; // null when no game was active
+}
@@ -0,0 +1,11 @@
+package com.bryja.wpisquareboardback.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class CommandQueueFullException extends RuntimeException {
+    public CommandQueueFullException(String message) {
+        super(message);
+    }
+}
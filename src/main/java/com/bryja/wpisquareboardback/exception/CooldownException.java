@@ -4,9 +4,22 @@ package com.bryja.wpisquareboardback.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.time.Duration;
+
 @ResponseStatus(value = HttpStatus.BAD_REQUEST)
 public class CooldownException extends RuntimeException {
+    private final Duration retryAfter;
+
     public CooldownException(String message) {
+        this(message, null);
+    }
+
+    public CooldownException(String message, Duration retryAfter) {
         super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
     }
 }
@@ -4,12 +4,17 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 
 
@@ -50,7 +55,16 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(CooldownException.class)
     public ResponseEntity<ErrorResponse> handleCooldownException(CooldownException ex) {
         log.warn("Cooldown restriction: {}", ex.getMessage());
-        return buildErrorResponse(ex, HttpStatus.TOO_MANY_REQUESTS);
+        ResponseEntity<ErrorResponse> response = buildErrorResponse(ex, HttpStatus.TOO_MANY_REQUESTS);
+        if (ex.getRetryAfter() == null) {
+            return response;
+        }
+        // whole seconds, rounded up so a client honouring it never comes back too early
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response.getBody());
     }
 
     @ExceptionHandler(ConcurrencyConflictException.class)
@@ -59,6 +73,28 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(ex, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(CommandQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleCommandQueueFullException(CommandQueueFullException ex) {
+        log.warn("Command rejected: {}", ex.getMessage());
+        return buildErrorResponse(ex, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<ErrorResponse> handleCannotCreateTransaction(CannotCreateTransactionException ex) {
+        // typically no database connection to be had, e.g. too many callers waiting for one
+        log.warn("Could not start a transaction: {}", ex.getMessage());
+        return buildErrorResponse(ex, HttpStatus.SERVICE_UNAVAILABLE, "The database is busy, please retry.");
+    }
+
+    @ExceptionHandler({MethodArgumentTypeMismatchException.class, MissingServletRequestParameterException.class})
+    public ResponseEntity<ErrorResponse> handleBadRequestParameter(Exception ex) {
+        log.warn("Invalid request parameter: {}", ex.getMessage());
+        String message = ex instanceof MethodArgumentTypeMismatchException mismatch
+                ? String.format("Invalid value '%s' for parameter '%s'.", mismatch.getValue(), mismatch.getName())
+                : ex.getMessage();
+        return buildErrorResponse(ex, HttpStatus.BAD_REQUEST, message);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationExceptions(MethodArgumentNotValidException ex) {
         List<String> errors = ex.getBindingResult()
@@ -138,7 +174,8 @@ public class GlobalExceptionHandler {
                 status.getReasonPhrase(),
                 message
         );
-        return new ResponseEntity<>(errorResponse, status);
+        // set up front so the body is rendered as JSON even when the request only accepted application/x-ndjson
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(errorResponse);
     }
 
     private static class ErrorResponse {
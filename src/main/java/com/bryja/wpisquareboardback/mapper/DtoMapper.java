@@ -2,6 +2,9 @@ package com.bryja.wpisquareboardback.mapper;
 
 import com.bryja.wpisquareboardback.dto.*;
 import com.bryja.wpisquareboardback.model.*;
+import com.bryja.wpisquareboardback.service.CommandOutcome;
+import com.bryja.wpisquareboardback.state.GameVersions;
+import com.bryja.wpisquareboardback.state.UnitState;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -29,6 +32,30 @@ public class DtoMapper {
         return units.stream().map(this::toUnitDTO).collect(Collectors.toList());
     }
 
+    public UnitDTO toUnitDTO(UnitState unit) {
+        if (unit == null) return null;
+        UnitDTO dto = new UnitDTO();
+        dto.setId(unit.getId());
+        dto.setGameId(unit.getGameId());
+        dto.setPlayerColor(unit.getPlayerColor());
+        dto.setUnitType(unit.getUnitType());
+        dto.setPosition(unit.getPosition());
+        dto.setStatus(unit.getStatus());
+        dto.setMoveCount(unit.getMoveCount());
+        dto.setLastActionTimestamp(unit.getLastActionTimestamp());
+        dto.setVersion(unit.getVersion());
+        return dto;
+    }
+
+    public UnitChangesDTO toUnitChangesDTO(GameVersions.UnitChanges changes) {
+        UnitChangesDTO dto = new UnitChangesDTO();
+        dto.setInstanceId(changes.instanceId());
+        dto.setVersion(changes.version());
+        dto.setFull(false);
+        dto.setUnits(changes.units().stream().map(this::toUnitDTO).collect(Collectors.toList()));
+        return dto;
+    }
+
     public GameDTO toGameDTO(Game game) {
         if (game == null) return null;
         GameDTO dto = new GameDTO();
@@ -44,4 +71,19 @@ public class DtoMapper {
         return games.stream().map(this::toGameDTO).collect(Collectors.toList());
     }
 
+    public CommandResultDTO toCommandResultDTO(CommandOutcome outcome) {
+        if (outcome == null) return null;
+        CommandResultDTO dto = new CommandResultDTO();
+        dto.setUnitId(outcome.getUnitId());
+        dto.setCommandType(outcome.getCommandType());
+        dto.setSuccess(outcome.isSuccess());
+        dto.setResult(outcome.getResultDescription());
+        dto.setUnit(toUnitDTO(outcome.getUnit()));
+        return dto;
+    }
+
+    public List<CommandResultDTO> toCommandResultDTOList(List<CommandOutcome> outcomes) {
+        return outcomes.stream().map(this::toCommandResultDTO).collect(Collectors.toList());
+    }
+
 }
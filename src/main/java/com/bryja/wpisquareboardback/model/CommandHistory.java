@@ -4,7 +4,6 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.Instant;
 
@@ -12,11 +11,16 @@ import java.time.Instant;
 @Getter
 @Setter
 @NoArgsConstructor
-@Table(name = "command_history")
+@Table(name = "command_history", indexes = {
+        // match the keyset order of CommandHistoryRepository, so a page is a range scan instead of a sort
+        @Index(name = "idx_command_history_game_id", columnList = "game_id, id desc"),
+        @Index(name = "idx_command_history_unit_id", columnList = "unit_id, id desc")
+})
 public class CommandHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "command_history_seq")
+    @SequenceGenerator(name = "command_history_seq", sequenceName = "command_history_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -41,8 +45,7 @@ public class CommandHistory {
     })
     private Position targetPosition;
 
-    @CreationTimestamp
-    private Instant timestamp;
+    private Instant timestamp; // set when the command ran, which can be a while before the row is written
 
     private String resultDescription;
 
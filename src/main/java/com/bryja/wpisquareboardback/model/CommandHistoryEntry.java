@@ -0,0 +1,33 @@
+package com.bryja.wpisquareboardback.model;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * A {@link CommandHistory} row waiting to be written. Holds ids only, so it can be handed between threads and
+ * transactions without dragging managed entities (or their history collections) along.
+ */
+@Getter
+@ToString
+public class CommandHistoryEntry {
+
+    private final Long gameId;
+    private final Long unitId;
+    private final PlayerColor executingPlayer;
+    private final CommandType commandType;
+    private final Position targetPosition;
+    private final Instant timestamp;
+    private final String resultDescription;
+
+    public CommandHistoryEntry(Long gameId, Long unitId, PlayerColor executingPlayer, CommandType commandType, Position targetPosition, String resultDescription) {
+        this.gameId = gameId;
+        this.unitId = unitId;
+        this.executingPlayer = executingPlayer;
+        this.commandType = commandType;
+        this.targetPosition = targetPosition;
+        this.timestamp = Instant.now();
+        this.resultDescription = resultDescription;
+    }
+}
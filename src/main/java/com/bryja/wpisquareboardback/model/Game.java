@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.Instant;
@@ -11,6 +13,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "games") // rows only change when a game starts or finishes
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,7 +22,8 @@ import java.util.List;
 public class Game {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_seq")
+    @SequenceGenerator(name = "game_seq", sequenceName = "games_seq", allocationSize = 50)
     private Long id;
 
     @CreationTimestamp
@@ -32,12 +37,13 @@ public class Game {
     @Enumerated(EnumType.STRING)
     private GameStatus status;
 
+    // seed of every random decision in the game (placement, random commands), see GameRandom
+    private Long randomSeed;
+
     @OneToMany(mappedBy = "game", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<Unit> units = new ArrayList<>();
 
-    @OneToMany(mappedBy = "game", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
-    @OrderBy("timestamp DESC")
-    private List<CommandHistory> commandHistory = new ArrayList<>();
+    // no mapped command history on purpose: it only grows, and is read page by page through CommandHistoryRepository
 
     public Game(int boardWidth, int boardHeight) {
         this.boardWidth = boardWidth;
@@ -49,8 +55,11 @@ public class Game {
         units.add(unit);
         unit.setGame(this);
     }
-    public void addCommandHistory(CommandHistory history) {
-        commandHistory.add(history);
-        history.setGame(this);
+
+    /**
+     * Attaches units built for this game ({@code unit.getGame() == this}) in one append.
+     */
+    public void addUnits(List<? extends Unit> newUnits) {
+        units.addAll(newUnits);
     }
 }
@@ -6,8 +6,6 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
 
 @Entity
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
@@ -15,11 +13,16 @@ import java.util.List;
 @Getter
 @Setter
 @NoArgsConstructor
-@Table(name = "units")
+@Table(name = "units", indexes = {
+        // square lookups and board loads of one game, which stay cheap however many finished games pile up
+        @Index(name = "idx_units_game_status_position", columnList = "game_id, status, x, y"),
+        @Index(name = "idx_units_game_color_status", columnList = "game_id, player_color, status")
+})
 public abstract class Unit {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "unit_seq")
+    @SequenceGenerator(name = "unit_seq", sequenceName = "units_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -52,10 +55,6 @@ public abstract class Unit {
     @Version
     private Long version;
 
-    @OneToMany(mappedBy = "unit", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    @OrderBy("timestamp DESC")
-    private List<CommandHistory> commandHistory = new ArrayList<>();
-
     public Unit(Game game, PlayerColor playerColor, Position position) {
         this.game = game;
         this.playerColor = playerColor;
@@ -63,9 +62,4 @@ public abstract class Unit {
         this.status = UnitStatus.ACTIVE;
         this.lastActionTimestamp = Instant.EPOCH;
     }
-
-    public void addCommandHistory(CommandHistory history) {
-        commandHistory.add(history);
-        history.setUnit(this);
-    }
 }
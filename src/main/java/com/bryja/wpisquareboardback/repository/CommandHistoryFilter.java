@@ -0,0 +1,11 @@
+package com.bryja.wpisquareboardback.repository;
+
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+
+/**
+ * Criteria of a history query; every field but the game is optional.
+ */
+public record CommandHistoryFilter(Long gameId, Long unitId, PlayerColor executingPlayer, CommandType commandType,
+                                   Boolean success) {
+}
@@ -0,0 +1,27 @@
+package com.bryja.wpisquareboardback.repository;
+
+import com.bryja.wpisquareboardback.dto.CommandHistoryDTO;
+import com.bryja.wpisquareboardback.model.CommandHistoryEntry;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface CommandHistoryRepositoryCustom {
+
+    /**
+     * Inserts all entries and flushes them as JDBC batches, without loading the games or units they refer to.
+     */
+    void insertAll(List<CommandHistoryEntry> entries);
+
+    /**
+     * Up to {@code limit} entries matching the filter, most recently written first, starting after {@code after}
+     * (if given).
+     */
+    List<CommandHistoryDTO> findPage(CommandHistoryFilter filter, HistoryCursor after, int limit);
+
+    /**
+     * All entries matching the filter, most recently written first, read through a database cursor. Must be consumed and
+     * closed within a transaction.
+     */
+    Stream<CommandHistoryDTO> streamAll(CommandHistoryFilter filter, HistoryCursor after);
+}
@@ -0,0 +1,74 @@
+package com.bryja.wpisquareboardback.repository;
+
+import com.bryja.wpisquareboardback.dto.CommandHistoryDTO;
+import com.bryja.wpisquareboardback.model.CommandHistory;
+import com.bryja.wpisquareboardback.model.CommandHistoryEntry;
+import com.bryja.wpisquareboardback.model.Game;
+import com.bryja.wpisquareboardback.model.Unit;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+class CommandHistoryRepositoryImpl implements CommandHistoryRepositoryCustom {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void insertAll(List<CommandHistoryEntry> entries) {
+        if (entries.isEmpty()) return;
+        for (CommandHistoryEntry entry : entries) {
+            // references only, neither the game nor the unit (nor their history collections) get loaded
+            Game game = entityManager.getReference(Game.class, entry.getGameId());
+            Unit unit = entry.getUnitId() != null ? entityManager.getReference(Unit.class, entry.getUnitId()) : null;
+            CommandHistory history = new CommandHistory(game, unit, entry.getExecutingPlayer(), entry.getCommandType(),
+                    entry.getTargetPosition(), entry.getResultDescription());
+            history.setTimestamp(entry.getTimestamp());
+            entityManager.persist(history);
+        }
+        entityManager.flush(); // pooled ids and hibernate.jdbc.batch_size turn this into batched inserts
+    }
+
+    @Override
+    public List<CommandHistoryDTO> findPage(CommandHistoryFilter filter, HistoryCursor after, int limit) {
+        return query(filter, after).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Stream<CommandHistoryDTO> streamAll(CommandHistoryFilter filter, HistoryCursor after) {
+        // DTO rows stay out of the persistence context, and the fetch size lets the driver use a server-side cursor
+        return query(filter, after)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .getResultStream();
+    }
+
+    private TypedQuery<CommandHistoryDTO> query(CommandHistoryFilter filter, HistoryCursor after) {
+        // unit.id reads the foreign key column, no join to units
+        StringBuilder jpql = new StringBuilder("""
+                select new com.bryja.wpisquareboardback.dto.CommandHistoryDTO(
+                    h.id, h.game.id, h.unit.id, h.executingPlayer, h.commandType, h.targetPosition, h.timestamp, h.resultDescription)
+                from CommandHistory h
+                where h.game.id = :gameId""");
+        if (filter.unitId() != null) jpql.append(" and h.unit.id = :unitId");
+        if (filter.executingPlayer() != null) jpql.append(" and h.executingPlayer = :executingPlayer");
+        if (filter.commandType() != null) jpql.append(" and h.commandType = :commandType");
+        if (filter.success() != null) jpql.append(filter.success() ? " and h.resultDescription like 'SUCCESS%'" : " and h.resultDescription not like 'SUCCESS%'");
+        if (after != null) jpql.append(" and h.id < :afterId");
+        // ids follow write order, unlike timestamps, which are taken when the command ran and can land late
+        jpql.append(" order by h.id desc");
+
+        TypedQuery<CommandHistoryDTO> query = entityManager.createQuery(jpql.toString(), CommandHistoryDTO.class)
+                .setParameter("gameId", filter.gameId());
+        if (filter.unitId() != null) query.setParameter("unitId", filter.unitId());
+        if (filter.executingPlayer() != null) query.setParameter("executingPlayer", filter.executingPlayer());
+        if (filter.commandType() != null) query.setParameter("commandType", filter.commandType());
+        if (after != null) query.setParameter("afterId", after.id());
+        return query;
+    }
+}
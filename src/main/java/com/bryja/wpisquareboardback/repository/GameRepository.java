@@ -3,12 +3,26 @@ package com.bryja.wpisquareboardback.repository;
 
 import com.bryja.wpisquareboardback.model.Game;
 import com.bryja.wpisquareboardback.model.GameStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
+/**
+ * The lookups run on every request are served from the query cache, with the games themselves coming from the
+ * second-level cache. Hibernate drops the cached results as soon as a transaction writing the games table
+ * commits, e.g. the one finishing the previous game in {@code createNewGame}.
+ */
 @Repository
 public interface GameRepository extends JpaRepository<Game, Long> {
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Game> findByStatus(GameStatus status);
+
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    boolean existsById(Long id);
 }
@@ -0,0 +1,25 @@
+package com.bryja.wpisquareboardback.repository;
+
+import com.bryja.wpisquareboardback.exception.InvalidCommandException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in the history, i.e. the id of the last row a client has seen. Handed out as an opaque token
+ * so clients don't come to depend on its format.
+ */
+public record HistoryCursor(Long id) {
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static HistoryCursor decode(String token) {
+        try {
+            return new HistoryCursor(Long.valueOf(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)));
+        } catch (RuntimeException e) {
+            throw new InvalidCommandException("Invalid history cursor: " + token);
+        }
+    }
+}
@@ -2,34 +2,68 @@ package com.bryja.wpisquareboardback.repository;
 
 import com.bryja.wpisquareboardback.model.*;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import jakarta.persistence.LockModeType; // Ensure using Jakarta Persistence LockModeType
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UnitRepository extends JpaRepository<Unit, Long> {
 
-    List<Unit> findByGameIdAndPlayerColorAndStatus(Long gameId, PlayerColor playerColor, UnitStatus status);
+    /*
+     * Spelled out because derived queries reach gameId through a left join to games, which keeps the filter off
+     * the game_id column and so off the indexes declared on Unit; u.game.id reads the foreign key column.
+     */
 
-    List<Unit> findByGameIdAndStatus(Long gameId, UnitStatus status);
+    @Query("select u from Unit u where u.game.id = :gameId and u.playerColor = :playerColor and u.status = :status")
+    List<Unit> findByGameIdAndPlayerColorAndStatus(@Param("gameId") Long gameId, @Param("playerColor") PlayerColor playerColor,
+                                                   @Param("status") UnitStatus status);
+
+    @Query("select u from Unit u where u.game.id = :gameId and u.status = :status")
+    List<Unit> findByGameIdAndStatus(@Param("gameId") Long gameId, @Param("status") UnitStatus status);
 
     Optional<Unit> findByGameIdAndPositionAndStatus(Long gameId, Position position, UnitStatus status);
 
+    // used to rebuild the in-memory game state, destroyed units included
+    @Query("select u from Unit u where u.game.id = :gameId")
+    List<Unit> findByGameId(@Param("gameId") Long gameId);
+
+    @Query("select u from Unit u where u.id = :unitId and u.game.id = :gameId")
+    Optional<Unit> findByIdAndGameId(@Param("unitId") Long unitId, @Param("gameId") Long gameId);
 
-    Optional<Unit> findByIdAndGameId(Long unitId, Long gameId);
+    /*
+     * Conditional writes of the command path: each applies one unit's transition in a single statement and only
+     * if the row is still at the expected version (and the transition still valid), so 0 updated rows means the
+     * row was changed behind the game state's back.
+     */
 
-    // @Lock(LockModeType.PESSIMISTIC_WRITE)
-    // Optional<Unit> findByGameIdAndPositionAndStatusWithLock(Long gameId, Position position, UnitStatus status);
+    @Modifying
+    @Query("""
+            update Unit u set u.position.x = :x, u.position.y = :y, u.moveCount = :moveCount,
+                u.lastActionTimestamp = :actedAt, u.version = u.version + 1
+            where u.id = :id and u.version = :version
+                and u.status = com.bryja.wpisquareboardback.model.UnitStatus.ACTIVE
+                and not exists (select 1 from Unit other where other.game = u.game and other.id <> u.id
+                    and other.status = com.bryja.wpisquareboardback.model.UnitStatus.ACTIVE
+                    and other.position.x = :x and other.position.y = :y)""")
+    int moveIfFree(@Param("id") Long id, @Param("version") Long version, @Param("x") int x, @Param("y") int y,
+                   @Param("moveCount") int moveCount, @Param("actedAt") Instant actedAt);
 
-    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
-    @Query("SELECT u FROM Unit u WHERE u.id = :unitId AND u.game.id = :gameId")
-    Optional<Unit> findByIdAndGameIdForUpdate(Long unitId, Long gameId);
+    @Modifying
+    @Query("""
+            update Unit u set u.lastActionTimestamp = :actedAt, u.version = u.version + 1
+            where u.id = :id and u.version = :version
+                and u.status = com.bryja.wpisquareboardback.model.UnitStatus.ACTIVE""")
+    int recordActionIfActive(@Param("id") Long id, @Param("version") Long version, @Param("actedAt") Instant actedAt);
 
-    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
-    @Query("SELECT u FROM Unit u WHERE u.game.id = :gameId AND u.position = :position AND u.status = :status")
-    Optional<Unit> findByGameIdAndPositionAndStatusForUpdate(Long gameId, Position position, UnitStatus status);
+    @Modifying
+    @Query("""
+            update Unit u set u.status = com.bryja.wpisquareboardback.model.UnitStatus.DESTROYED, u.version = u.version + 1
+            where u.id = :id and u.version = :version
+                and u.status = com.bryja.wpisquareboardback.model.UnitStatus.ACTIVE""")
+    int destroyIfActive(@Param("id") Long id, @Param("version") Long version);
 }
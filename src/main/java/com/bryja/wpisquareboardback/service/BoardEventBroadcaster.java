@@ -0,0 +1,309 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.dto.BoardEventDTO;
+import com.bryja.wpisquareboardback.event.CommandExecutedEvent;
+import com.bryja.wpisquareboardback.event.GameStartedEvent;
+import com.bryja.wpisquareboardback.model.GameStatus;
+import com.bryja.wpisquareboardback.model.Position;
+import com.bryja.wpisquareboardback.repository.GameRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes committed board changes to Server-Sent Events subscribers. Every game numbers its events and keeps the
+ * last {@code game.events.replay-buffer-size} of them, so a client reconnecting with {@code Last-Event-ID}
+ * receives what it missed; if that is no longer known it gets a {@code resync} event and should reload the board.
+ * Event ids are a random id of this instance followed by the sequence number, so an id handed out before a
+ * restart never matches one of this instance and is always answered with a resync. When a game finishes its
+ * streams end after their pending events and its channel is dropped. Channels are only opened by subscribers of
+ * a game that is not finished, so commands still sent to a finished game don't bring its channel back.
+ * <p>
+ * Publishing only appends to bounded per-subscriber queues, the actual writes happen on dispatcher threads. A
+ * subscriber whose queue overflows is disconnected rather than slowing down the command that published.
+ */
+@Component
+@Slf4j
+public class BoardEventBroadcaster {
+
+    private static final Object HEARTBEAT = new Object();
+    private static final Object END_OF_STREAM = new Object();
+
+    private final String instanceId = Long.toString(new SecureRandom().nextLong() >>> 1, Character.MAX_RADIX);
+    private final GameConfigProperties.Events settings;
+    private final GameRepository gameRepository;
+    private final ConcurrentMap<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService heartbeat;
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter droppedSubscribers;
+
+    public BoardEventBroadcaster(GameConfigProperties config, GameRepository gameRepository, MeterRegistry meterRegistry) {
+        this.settings = config.getEvents();
+        this.gameRepository = gameRepository;
+        AtomicInteger threadNumber = new AtomicInteger();
+        // sends can block on a slow connection, so each draining subscriber gets a thread rather than a shared few
+        this.dispatcher = Executors.newCachedThreadPool(runnable -> daemon(runnable, "board-events-" + threadNumber.incrementAndGet()));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "board-events-heartbeat"));
+        this.heartbeat.scheduleAtFixedRate(this::sendHeartbeats, settings.getHeartbeatSeconds(), settings.getHeartbeatSeconds(), TimeUnit.SECONDS);
+
+        Gauge.builder("board.events.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open board event streams")
+                .register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("board.events.dropped.subscribers")
+                .description("Board event streams closed because the client could not keep up")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream of the game's events, replaying those after {@code lastEventId} when given.
+     */
+    public SseEmitter subscribe(Long gameId, String lastEventId) {
+        return subscribe(gameId, lastEventId, new SseEmitter(settings.getEmitterTimeoutMillis()));
+    }
+
+    SseEmitter subscribe(Long gameId, String lastEventId, SseEmitter emitter) {
+        Channel channel = channels.computeIfAbsent(gameId, Channel::new);
+        Subscriber subscriber = new Subscriber(channel, emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        channel.subscribe(subscriber, lastEventId);
+        // the game may have finished since the caller looked, and its channel dropped before we registered (or
+        // opened again by us); the finish commits before onGameStarted runs, so one of the two sees the other
+        boolean finished = gameRepository.findById(gameId).map(game -> game.getStatus() == GameStatus.FINISHED).orElse(true);
+        if (finished) {
+            channels.remove(gameId, channel);
+            subscriber.finish();
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCommandExecuted(CommandExecutedEvent event) {
+        List<BoardEventDTO> events = new ArrayList<>(3);
+        if (event.isMoved()) {
+            events.add(boardEvent(event, BoardEventDTO.Type.UNIT_MOVED, event.getUnitId(), event.getUnitPosition()));
+        }
+        if (event.getDestroyedUnitId() != null) {
+            events.add(boardEvent(event, BoardEventDTO.Type.UNIT_DESTROYED, event.getDestroyedUnitId(), event.getDestroyedUnitPosition()));
+        }
+        BoardEventDTO result = boardEvent(event, BoardEventDTO.Type.COMMAND_RESULT, event.getUnitId(), event.getUnitPosition());
+        result.setCommandType(event.getCommandType());
+        result.setResult(event.getResultDescription());
+        events.add(result);
+        Channel channel = channels.get(event.getGameId());
+        if (channel != null) {
+            channel.publish(events);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGameStarted(GameStartedEvent event) {
+        if (event.getFinishedGameId() == null) return;
+        Channel channel = channels.remove(event.getFinishedGameId());
+        if (channel != null) {
+            channel.subscribers.forEach(Subscriber::finish);
+        }
+    }
+
+    boolean hasChannel(Long gameId) {
+        return channels.containsKey(gameId);
+    }
+
+    String eventId(long sequence) {
+        return instanceId + "-" + sequence;
+    }
+
+    /**
+     * Sequence number of an event id this instance handed out, or -1 for any other id.
+     */
+    private long sequenceOf(String eventId) {
+        if (!eventId.startsWith(instanceId + "-")) return -1;
+        try {
+            return Long.parseLong(eventId.substring(instanceId.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(Subscriber::disconnect));
+        dispatcher.shutdown();
+    }
+
+    private void sendHeartbeats() {
+        // comments keep proxies from closing idle streams and surface clients that went away without a word
+        channels.values().forEach(channel -> channel.subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT)));
+    }
+
+    private static BoardEventDTO boardEvent(CommandExecutedEvent source, BoardEventDTO.Type type, Long unitId, Position position) {
+        BoardEventDTO event = new BoardEventDTO();
+        event.setType(type);
+        event.setGameId(source.getGameId());
+        event.setUnitId(unitId);
+        event.setPosition(position);
+        event.setTimestamp(source.getActionTimestamp());
+        return event;
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private final class Channel {
+        private final Long gameId;
+        private final ArrayDeque<BoardEventDTO> recent = new ArrayDeque<>();
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private long lastSequence; // guarded by this
+
+        private Channel(Long gameId) {
+            this.gameId = gameId;
+        }
+
+        synchronized void publish(List<BoardEventDTO> events) {
+            for (BoardEventDTO event : events) {
+                event.setSequence(++lastSequence);
+                recent.addLast(event);
+                if (recent.size() > settings.getReplayBufferSize()) recent.removeFirst();
+                subscribers.forEach(subscriber -> subscriber.offer(event));
+            }
+        }
+
+        synchronized void subscribe(Subscriber subscriber, String lastEventId) {
+            subscribers.add(subscriber);
+            subscriberCount.incrementAndGet();
+            if (lastEventId == null) return;
+
+            long lastSeen = sequenceOf(lastEventId);
+            long firstKnown = recent.isEmpty() ? lastSequence + 1 : recent.peekFirst().getSequence();
+            if (lastSeen >= 0 && lastSeen >= firstKnown - 1 && lastSeen <= lastSequence
+                    && lastSequence - lastSeen < settings.getSubscriberBufferSize()) {
+                recent.stream().filter(event -> event.getSequence() > lastSeen).forEach(subscriber::offer);
+                return;
+            }
+            // evicted from the buffer, from before a restart, or too much to replay: the client has to start over
+            BoardEventDTO resync = new BoardEventDTO();
+            resync.setSequence(lastSequence);
+            resync.setType(BoardEventDTO.Type.RESYNC);
+            resync.setGameId(gameId);
+            subscriber.offer(resync);
+        }
+    }
+
+    private final class Subscriber {
+        private final Channel channel;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Object> pending = new ArrayBlockingQueue<>(settings.getSubscriberBufferSize());
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Subscriber(Channel channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        void offer(Object item) {
+            if (closed.get()) return;
+            if (!pending.offer(item)) {
+                log.warn("Board event subscriber of game {} fell {} events behind, disconnecting it.", channel.gameId, pending.size());
+                droppedSubscribers.increment();
+                disconnect();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        /**
+         * Ends the stream once the events already queued for it are sent.
+         */
+        void finish() {
+            offer(END_OF_STREAM);
+        }
+
+        /**
+         * Closes the stream from our side. Completion is left to the dispatcher, which may be stuck writing to
+         * this very emitter.
+         */
+        void disconnect() {
+            close();
+            scheduleDrain();
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                channel.subscribers.remove(this);
+                subscriberCount.decrementAndGet();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) return;
+            try {
+                dispatcher.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false); // shutting down
+            }
+        }
+
+        private void drain() {
+            try {
+                Object item;
+                while (!closed.get() && (item = pending.poll()) != null) {
+                    send(item);
+                }
+                if (closed.get() && completed.compareAndSet(false, true)) {
+                    pending.clear();
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Board event stream of game {} is gone: {}", channel.gameId, e.getMessage());
+                completed.set(true); // the container already gave up on it
+                close();
+            } finally {
+                draining.set(false);
+            }
+            // whatever arrived (or closed the stream) while this drain was finishing
+            if (closed.get() ? !completed.get() : !pending.isEmpty()) scheduleDrain();
+        }
+
+        private void send(Object item) throws IOException {
+            if (item == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+                return;
+            }
+            if (item == END_OF_STREAM) {
+                close();
+                return;
+            }
+            BoardEventDTO event = (BoardEventDTO) item;
+            emitter.send(SseEmitter.event()
+                    .id(eventId(event.getSequence()))
+                    .name(event.getType().eventName())
+                    .data(event, MediaType.APPLICATION_JSON));
+        }
+    }
+}
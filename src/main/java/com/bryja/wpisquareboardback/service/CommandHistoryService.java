@@ -0,0 +1,68 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.dto.CommandHistoryDTO;
+import com.bryja.wpisquareboardback.dto.CommandHistoryPageDTO;
+import com.bryja.wpisquareboardback.exception.GameNotFoundException;
+import com.bryja.wpisquareboardback.exception.InvalidCommandException;
+import com.bryja.wpisquareboardback.repository.CommandHistoryFilter;
+import com.bryja.wpisquareboardback.repository.CommandHistoryRepository;
+import com.bryja.wpisquareboardback.repository.GameRepository;
+import com.bryja.wpisquareboardback.repository.HistoryCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class CommandHistoryService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final CommandHistoryRepository historyRepository;
+    private final GameRepository gameRepository;
+
+    /**
+     * One page of history, most recently written first. Pass the previous page's {@code nextCursor} to get the next one.
+     */
+    @Transactional(readOnly = true)
+    public CommandHistoryPageDTO findPage(CommandHistoryFilter filter, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidCommandException("limit must be between 1 and " + MAX_PAGE_SIZE + ", was " + limit);
+        }
+        HistoryCursor after = cursor != null ? HistoryCursor.decode(cursor) : null;
+        requireGame(filter.gameId());
+
+        // one extra row tells whether there is a next page
+        List<CommandHistoryDTO> rows = historyRepository.findPage(filter, after, limit + 1);
+        CommandHistoryPageDTO page = new CommandHistoryPageDTO();
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            CommandHistoryDTO last = rows.get(limit - 1);
+            page.setNextCursor(new HistoryCursor(last.getId()).encode());
+        }
+        page.setItems(rows);
+        return page;
+    }
+
+    /**
+     * Hands every matching entry to {@code sink}, most recently written first, reading them through a database cursor so only
+     * a fetch-size worth of rows is held at a time.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(CommandHistoryFilter filter, HistoryCursor after, Consumer<CommandHistoryDTO> sink) {
+        try (Stream<CommandHistoryDTO> rows = historyRepository.streamAll(filter, after)) {
+            rows.forEach(sink);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void requireGame(Long gameId) {
+        if (!gameRepository.existsById(gameId)) {
+            throw new GameNotFoundException("Game not found with ID: " + gameId);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.model.CommandHistoryEntry;
+import com.bryja.wpisquareboardback.repository.CommandHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind sink for command history. Commands only append entries to a bounded queue; a background thread
+ * drains it and inserts the entries in JDBC batches of up to {@code game.history.batch-size}, waiting at most
+ * {@code game.history.max-delay-millis} for a batch to fill. When the queue is full, or the writer is not
+ * running, entries are written synchronously instead, so history is only ever delayed, never dropped
+ * (short of a crash, which loses what is still queued).
+ */
+@Component
+@Slf4j
+public class CommandHistoryWriter implements SmartLifecycle {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final CommandHistoryRepository historyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final GameConfigProperties.History settings;
+    private final BlockingQueue<CommandHistoryEntry> queue;
+    private final DistributionSummary batchSizes;
+    private final Timer flushTimer;
+    private final Counter synchronousWrites;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public CommandHistoryWriter(CommandHistoryRepository historyRepository,
+                                PlatformTransactionManager transactionManager,
+                                GameConfigProperties config,
+                                MeterRegistry meterRegistry) {
+        this.historyRepository = historyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // always a transaction of its own, even when called from a commit callback of a command
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.settings = config.getHistory();
+        this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+
+        Gauge.builder("command.history.queue.depth", queue, BlockingQueue::size)
+                .description("History entries waiting to be written")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("command.history.batch.size")
+                .description("History entries written per batch")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("command.history.flush")
+                .description("Time taken to write one batch of history entries")
+                .register(meterRegistry);
+        this.synchronousWrites = Counter.builder("command.history.sync.writes")
+                .description("History entries written on the caller thread because the queue was full or stopped")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues an entry right away, for outcomes that must be kept whatever happens to the current transaction.
+     */
+    public void append(CommandHistoryEntry entry) {
+        if (!running || !queue.offer(entry)) {
+            synchronousWrites.increment();
+            write(List.of(entry));
+        }
+    }
+
+    /**
+     * Queues entries once the current transaction has committed, so rolled back commands leave no history
+     * behind. Without a transaction the entries are queued immediately.
+     */
+    public void appendAfterCommit(List<CommandHistoryEntry> entries) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            entries.forEach(this::append);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entries.forEach(CommandHistoryWriter.this::append);
+            }
+        });
+    }
+
+    public void appendAfterCommit(CommandHistoryEntry entry) {
+        appendAfterCommit(List.of(entry));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        worker = new Thread(this::drainLoop, "command-history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread drainingWorker;
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+            drainingWorker = worker;
+        }
+        try {
+            // no interrupt, it could break a batch insert in progress; the worker notices within max-delay
+            drainingWorker.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("History writer did not drain in time, writing {} remaining entries now.", queue.size());
+            flushRemaining();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the web server (which stops at a higher phase), so commands finishing during a graceful
+     * shutdown can still queue their history.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        List<CommandHistoryEntry> batch = new ArrayList<>(settings.getBatchSize());
+        while (running) {
+            try {
+                CommandHistoryEntry first = queue.poll(settings.getMaxDelayMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                fillBatch(batch, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getMaxDelayMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        flushRemaining();
+    }
+
+    private void fillBatch(List<CommandHistoryEntry> batch, long deadlineNanos) throws InterruptedException {
+        while (batch.size() < settings.getBatchSize()) {
+            if (queue.drainTo(batch, settings.getBatchSize() - batch.size()) > 0) continue;
+            long remaining = deadlineNanos - System.nanoTime();
+            if (remaining <= 0) return;
+            CommandHistoryEntry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) return;
+            batch.add(next);
+        }
+    }
+
+    private void flushRemaining() {
+        List<CommandHistoryEntry> batch = new ArrayList<>(settings.getBatchSize());
+        while (queue.drainTo(batch, settings.getBatchSize()) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<CommandHistoryEntry> batch) {
+        try {
+            flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> historyRepository.insertAll(batch)));
+            batchSizes.record(batch.size());
+            log.debug("Wrote {} command history entries.", batch.size());
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                log.error("Failed to write command history entry {}: {}", batch.get(0), e.getMessage(), e);
+                return;
+            }
+            // one bad entry (e.g. its unit or game was deleted) must not take the whole batch down with it
+            log.warn("Failed to write {} command history entries as a batch, retrying one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(entry -> write(List.of(entry)));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.dto.UnitCommandRequestDTO;
+import com.bryja.wpisquareboardback.exception.*;
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.UnitType;
+import com.bryja.wpisquareboardback.state.GameStateStore;
+import com.bryja.wpisquareboardback.state.UnitState;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times single unit commands from the moment the request is checked until its transaction has committed, so the
+ * wait in the game's mailbox and the commit are included. The {@code game.commands} timer is tagged with the
+ * unit type, the requested command type ({@code RANDOM_MOVE} for random commands) and the outcome; its count
+ * doubles as the counter of each outcome. A vehicle move that bumps into an ally completes normally but is
+ * counted as {@code blocked}, like a move rejected because the square is taken. Every command of a batch is
+ * recorded with its own outcome and the time of the whole batch, which is when it committed.
+ */
+@Component
+public class CommandMetrics {
+
+    static final String TIMER = "game.commands";
+
+    private final MeterRegistry meterRegistry;
+    private final GameStateStore gameStateStore;
+
+    public CommandMetrics(MeterRegistry meterRegistry, GameStateStore gameStateStore) {
+        this.meterRegistry = meterRegistry;
+        this.gameStateStore = gameStateStore;
+
+        Gauge.builder("games.active", gameStateStore, GameStateStore::activeGameCount)
+                .description("Active games held in memory")
+                .register(meterRegistry);
+        Gauge.builder("games.units.active", gameStateStore, GameStateStore::activeUnitCount)
+                .description("Active units across the games held in memory")
+                .register(meterRegistry);
+    }
+
+    public CommandOutcome record(Long gameId, Long unitId, CommandType commandType, Supplier<CommandOutcome> command) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        UnitState unit = null;
+        String outcome = "error";
+        try {
+            CommandOutcome result = command.get();
+            unit = result.getUnit();
+            outcome = outcomeOf(result);
+            return result;
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            sample.stop(timer(gameId, unitId, unit, commandType, outcome));
+        }
+    }
+
+    public List<CommandOutcome> recordBatch(Long gameId, List<UnitCommandRequestDTO> commands, Supplier<List<CommandOutcome>> batch) {
+        long start = meterRegistry.config().clock().monotonicTime();
+        try {
+            List<CommandOutcome> results = batch.get();
+            long elapsed = meterRegistry.config().clock().monotonicTime() - start;
+            for (CommandOutcome result : results) {
+                timer(gameId, result.getUnitId(), result.getUnit(), result.getCommandType(), outcomeOf(result))
+                        .record(elapsed, TimeUnit.NANOSECONDS);
+            }
+            return results;
+        } catch (RuntimeException e) {
+            long elapsed = meterRegistry.config().clock().monotonicTime() - start;
+            String outcome = outcomeOf(e);
+            for (UnitCommandRequestDTO command : commands) {
+                timer(gameId, command.getUnitId(), null, command.getCommandType(), outcome).record(elapsed, TimeUnit.NANOSECONDS);
+            }
+            throw e;
+        }
+    }
+
+    private Timer timer(Long gameId, Long unitId, UnitState unit, CommandType commandType, String outcome) {
+        UnitType unitType = unit != null ? unit.getUnitType() : gameStateStore.peekUnitType(gameId, unitId).orElse(null);
+        return Timer.builder(TIMER)
+                .description("Single unit commands, from validation to commit")
+                .tag("unit.type", unitType != null ? unitType.name() : "UNKNOWN")
+                .tag("command.type", commandType != null ? commandType.name() : "UNKNOWN")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    static String outcomeOf(CommandOutcome result) {
+        if (result.getRejection() != null) return outcomeOf(result.getRejection());
+        String description = result.getResultDescription();
+        return description != null && description.startsWith("FAILED_BLOCKED") ? "blocked" : "success";
+    }
+
+    static String outcomeOf(RuntimeException e) {
+        if (e instanceof CooldownException) return "cooldown";
+        if (e instanceof PositionOccupiedException) return "blocked";
+        if (e instanceof OutOfBoundsException) return "out_of_bounds";
+        if (e instanceof ConcurrencyConflictException || e instanceof OptimisticLockingFailureException) return "conflict";
+        if (e instanceof CommandQueueFullException) return "queue_full";
+        if (e instanceof InvalidCommandException || e instanceof ActionNotAllowedException
+                || e instanceof UnitNotFoundException || e instanceof GameNotFoundException) return "rejected";
+        return "error";
+    }
+}
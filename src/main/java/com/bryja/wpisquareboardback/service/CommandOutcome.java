@@ -0,0 +1,26 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.state.UnitState;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Result of one command of a batch or tick. Rejected commands carry the reason and no unit.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CommandOutcome {
+    private final Long unitId;
+    private final CommandType commandType;
+    private final boolean success;
+    private final String resultDescription;
+    private final UnitState unit;
+    private RuntimeException rejection; // what a single command would have thrown
+
+    public static CommandOutcome rejected(Long unitId, CommandType commandType, RuntimeException rejection) {
+        CommandOutcome outcome = new CommandOutcome(unitId, commandType, false, "FAILED: " + rejection.getMessage(), null);
+        outcome.rejection = rejection;
+        return outcome;
+    }
+}
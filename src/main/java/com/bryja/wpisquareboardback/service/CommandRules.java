@@ -0,0 +1,68 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.exception.ActionNotAllowedException;
+import com.bryja.wpisquareboardback.exception.InvalidCommandException;
+import com.bryja.wpisquareboardback.exception.OutOfBoundsException;
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.Position;
+import com.bryja.wpisquareboardback.model.UnitType;
+import com.bryja.wpisquareboardback.state.GameState;
+import com.bryja.wpisquareboardback.state.RuleTables;
+import com.bryja.wpisquareboardback.state.UnitState;
+import com.bryja.wpisquareboardback.util.BoardUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Geometry rules of moves and shots: whether the target is on the board and within the unit's reach, as listed
+ * in the {@link RuleTables}. Who may command the unit, cooldowns and what stands on the target are checked by
+ * {@link CommandService}.
+ */
+@Component
+@RequiredArgsConstructor
+public class CommandRules {
+
+    private final BoardUtils boardUtils;
+    private final RuleTables ruleTables;
+
+    public void validateMoveRules(GameState state, UnitState unit, Position target) {
+        validate(state, unit, CommandType.MOVE, target);
+    }
+
+    public void validateShootRules(GameState state, UnitState unit, Position target) {
+        validate(state, unit, CommandType.SHOOT, target);
+    }
+
+    private void validate(GameState state, UnitState unit, CommandType commandType, Position target) {
+        if (!boardUtils.isWithinBounds(target, state.getBoardWidth(), state.getBoardHeight())) {
+            throw new OutOfBoundsException("Target position " + target + " is outside board boundaries.");
+        }
+
+        UnitType type = unit.getUnitType();
+        String verb = commandType == CommandType.MOVE ? "move" : "shoot";
+        if (!ruleTables.allowed(type, commandType)) {
+            throw new ActionNotAllowedException(ruleTables.displayName(type) + " cannot " + verb + ".");
+        }
+
+        Position current = unit.getPosition();
+        if (ruleTables.reaches(type, commandType, target.getX() - current.getX(), target.getY() - current.getY())) {
+            return;
+        }
+        // the tables answer legality, the rest only explains a rejection
+        String name = ruleTables.displayName(type);
+        int dx = boardUtils.calculateDistanceX(current, target);
+        int dy = boardUtils.calculateDistanceY(current, target);
+        if (target.equals(current)) {
+            throw new InvalidCommandException(name + " cannot " + verb + (commandType == CommandType.MOVE ? " onto" : "") + " its own square.");
+        }
+        boolean orthogonal = ruleTables.orthogonal(type, commandType);
+        if (orthogonal && dx > 0 && dy > 0) {
+            throw new InvalidCommandException(name + " can only " + verb + " orthogonally (up/down/left/right). Invalid target " + target + " from " + current);
+        }
+        String range = orthogonal
+                ? String.valueOf(ruleTables.reachX(type, commandType))
+                : "max X:" + ruleTables.reachX(type, commandType) + ", max Y:" + ruleTables.reachY(type, commandType);
+        throw new InvalidCommandException(name + " target " + target + " is out of " + verb + " range (" + range + ") from " + current
+                + ". Distance: x=" + dx + ", y=" + dy);
+    }
+}
@@ -2,25 +2,25 @@ package com.bryja.wpisquareboardback.service;
 
 import com.bryja.wpisquareboardback.repository.*;
 import com.bryja.wpisquareboardback.model.*;
-import com.bryja.wpisquareboardback.config.*;
 import com.bryja.wpisquareboardback.exception.*;
 import com.bryja.wpisquareboardback.util.*;
 import com.bryja.wpisquareboardback.dto.*;
+import com.bryja.wpisquareboardback.state.*;
+import com.bryja.wpisquareboardback.event.CommandExecutedEvent;
 
 import jakarta.persistence.OptimisticLockException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.security.SecureRandom;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -28,159 +28,481 @@ import java.util.Optional;
 public class CommandService {
 
     private final UnitRepository unitRepository;
-    private final CommandHistoryRepository historyRepository;
-    private final GameService gameService; // Use GameService to find units at positions, get game state
-    private final GameRepository gameRepository; // For saving game status if needed
-    private final GameConfigProperties config;
-    private final BoardUtils boardUtils;
-    private final SecureRandom random = new SecureRandom();
+    private final CommandHistoryWriter historyWriter;
+    private final GameStateStore gameStateStore; // authoritative board state, the repositories only receive writes
+    private final RuleTables ruleTables;
+    private final CommandRules commandRules;
+    private final MoveGenerator moveGenerator;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(propagation = Propagation.REQUIRES_NEW,
             isolation = Isolation.READ_COMMITTED,
             rollbackFor = Exception.class)
-    public Unit executeCommand(Long gameId, Long unitId, CommandRequestDTO request) {
-        String resultDescription = "FAILED: Unknown reason";
-        Position targetPosition = null;
-        if (request.getTargetX() != null && request.getTargetY() != null) {
-            targetPosition = new Position(request.getTargetX(), request.getTargetY());
-        }
-
-        Unit actingUnit = null;
-        Optional<Unit> targetUnitOpt = Optional.empty();
+    public CommandOutcome executeCommand(Long gameId, Long unitId, CommandRequestDTO request) {
+        String resultDescription;
+        Position targetPosition = targetOf(request);
 
         try {
-            // 1. game fetching (implicitly validates gameId via unit fetch) and Acting Unit (with lock)
-            actingUnit = unitRepository.findByIdAndGameIdForUpdate(unitId, gameId)
-                    .orElseThrow(() -> new UnitNotFoundException("Unit " + unitId + " not found in game " + gameId));
-
-            Game game = actingUnit.getGame();
-
-            // 2. some validations
-            validateUnitIsActive(actingUnit);
-            validatePlayerControl(actingUnit, request.getPlayerColor());
-            validateActionAllowed(actingUnit.getUnitType(), request.getCommandType());
-
-            // 3. cd check (based on last successful action)
-            checkCooldown(actingUnit, request.getCommandType());
-
-            switch (request.getCommandType()) {
-                case MOVE:
-                    targetPosition = validateAndGetTargetPosition(request, "MOVE");
-                    resultDescription = handleMoveCommand(game, actingUnit, targetPosition);
-                    break;
-                case SHOOT:
-                    targetPosition = validateAndGetTargetPosition(request, "SHOOT");
-                    targetUnitOpt = gameService.findUnitAtPositionForUpdate(game.getId(), targetPosition);
-                    resultDescription = handleShootCommand(game, actingUnit, targetPosition, targetUnitOpt);
-                    break;
-                default:
-                    throw new InvalidCommandException("Unsupported command type: " + request.getCommandType());
-            }
+            GameState state = gameStateStore.lock(gameId);
+            CommandOutcome outcome = applyCommand(state, gameId, unitId, request);
 
-            // 4. unit state update (timestamp, move count) if successful
-            if (resultDescription.startsWith("SUCCESS")) {
-                actingUnit.setLastActionTimestamp(Instant.now());
-                if (request.getCommandType() == CommandType.MOVE) {
-                    actingUnit.setMoveCount(actingUnit.getMoveCount() + 1);
-                }
-            } else if (resultDescription.contains("FAILED_BLOCKED")) {
-                actingUnit.setLastActionTimestamp(Instant.now());
-            }
+            // history is written behind, once the command has committed
+            historyWriter.appendAfterCommit(new CommandHistoryEntry(gameId, unitId, request.getPlayerColor(), request.getCommandType(), targetPosition, outcome.getResultDescription()));
 
-            // 5. save updated acting unit (and potentially target unit if destroyed)
-            Unit savedActingUnit = unitRepository.save(actingUnit); // Will throw OptimisticLockException if version mismatch
+            log.info("Command {} executed for unit {} by player {}. Result: {}", request.getCommandType(), unitId, request.getPlayerColor(), outcome.getResultDescription());
+            return outcome;
 
 
-            // 6. save the record to history
-            CommandHistory history = new CommandHistory(game, savedActingUnit, request.getPlayerColor(), request.getCommandType(), targetPosition, resultDescription);
-            game.addCommandHistory(history);
-            savedActingUnit.addCommandHistory(history);
-            historyRepository.save(history);
-
-            log.info("Command {} executed for unit {} by player {}. Result: {}", request.getCommandType(), unitId, request.getPlayerColor(), resultDescription);
-            return savedActingUnit;
-
-
-        } catch (OptimisticLockException ole) {
+        } catch (OptimisticLockException | OptimisticLockingFailureException ole) {
             log.warn("Optimistic Lock Exception during command execution for unit {}: {}", unitId, ole.getMessage());
             resultDescription = "FAILED: Concurrency conflict, please retry.";
             recordFailedCommandAttempt(gameId, unitId, request.getPlayerColor(), request.getCommandType(), targetPosition, resultDescription);
             throw new ConcurrencyConflictException(resultDescription);
+        } catch (GameNotFoundException e) {
+            log.warn("Command failed for unit {}: {}", unitId, e.getMessage());
+            throw e; // nothing to attach a history entry to
+        } catch (UnitNotFoundException e) {
+            log.warn("Command failed for unit {}: {}", unitId, e.getMessage());
+            recordFailedCommandAttempt(gameId, null, request.getPlayerColor(), request.getCommandType(), targetPosition, "FAILED: " + e.getMessage());
+            throw e;
         } catch (CooldownException | InvalidCommandException | ActionNotAllowedException |
                  OutOfBoundsException | PositionOccupiedException e) {
-            log.warn("Command failed for unit {}: {}", (actingUnit != null ? actingUnit.getId() : unitId), e.getMessage());
+            log.warn("Command failed for unit {}: {}", unitId, e.getMessage());
             resultDescription = "FAILED: " + e.getMessage();
             recordFailedCommandAttempt(gameId, unitId, request.getPlayerColor(), request.getCommandType(), targetPosition, resultDescription);
             throw e;
         } catch (Exception e) {
-            log.error("Unexpected error during command execution for unit {}: {}", (actingUnit != null ? actingUnit.getId() : unitId), e.getMessage(), e);
+            log.error("Unexpected error during command execution for unit {}: {}", unitId, e.getMessage(), e);
             resultDescription = "FAILED: Internal server error.";
             recordFailedCommandAttempt(gameId, unitId, request.getPlayerColor(), request.getCommandType(), targetPosition, resultDescription);
             throw new RuntimeException("Command execution failed unexpectedly.", e);
         }
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void recordFailedCommandAttempt(Long gameId, Long unitId, PlayerColor playerColor, CommandType commandType, Position targetPosition, String resultDescription) {
+    /**
+     * Executes several commands of one game in a single transaction. Commands are applied in order, each seeing
+     * the effects of the previous ones, and each writes its units with its own conditional updates as it goes.
+     * A command breaking a rule is rejected before it touches anything, so it is recorded and skipped without
+     * affecting the rest. A conflicting write is different: the batch is all or nothing, so if any update finds
+     * its row changed behind the game state's back, the whole transaction rolls back, the commands applied
+     * before it included, and a {@link ConcurrencyConflictException} is thrown. History for all commands is
+     * queued for the write-behind writer on commit, so a batch that rolled back leaves none.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW,
+            isolation = Isolation.READ_COMMITTED,
+            rollbackFor = Exception.class)
+    public List<CommandOutcome> executeBatch(Long gameId, List<UnitCommandRequestDTO> commands) {
+        List<CommandOutcome> outcomes = new ArrayList<>(commands.size());
+        List<CommandHistoryEntry> histories = new ArrayList<>(commands.size());
         try {
-            Game game = gameRepository.findById(gameId).orElse(null);
-            Unit unit = unitRepository.findById(unitId).orElse(null);
-            if (game != null) {
-                CommandHistory history = new CommandHistory(game, unit, playerColor, commandType, targetPosition, resultDescription);
-                historyRepository.save(history);
-                log.debug("Recorded failed command attempt for game {}, unit {}", gameId, unitId);
+            GameState state = gameStateStore.lock(gameId);
+
+            for (UnitCommandRequestDTO request : commands) {
+                Long unitId = request.getUnitId();
+                try {
+                    CommandOutcome outcome = applyCommand(state, gameId, unitId, request);
+                    outcomes.add(outcome);
+                    histories.add(new CommandHistoryEntry(gameId, unitId, request.getPlayerColor(), request.getCommandType(), targetOf(request), outcome.getResultDescription()));
+                } catch (CooldownException | InvalidCommandException | ActionNotAllowedException |
+                         OutOfBoundsException | PositionOccupiedException | UnitNotFoundException e) {
+                    // rule violations are detected before the state is touched, so the next command can go ahead
+                    log.warn("Batch command failed for unit {}: {}", unitId, e.getMessage());
+                    CommandOutcome rejected = CommandOutcome.rejected(unitId, request.getCommandType(), e);
+                    Long knownUnitId = state.findUnit(unitId).isPresent() ? unitId : null;
+                    // kept with the applied commands, all of them are queued once the batch commits
+                    histories.add(new CommandHistoryEntry(gameId, knownUnitId, request.getPlayerColor(), request.getCommandType(), targetOf(request), rejected.getResultDescription()));
+                    outcomes.add(rejected);
+                }
+            }
+
+            historyWriter.appendAfterCommit(histories);
+            log.info("Batch of {} commands executed for game {}, {} succeeded.", commands.size(), gameId,
+                    outcomes.stream().filter(CommandOutcome::isSuccess).count());
+            return outcomes;
+
+        } catch (OptimisticLockException | OptimisticLockingFailureException ole) {
+            log.warn("Optimistic Lock Exception during batch execution for game {}: {}", gameId, ole.getMessage());
+            throw new ConcurrencyConflictException("FAILED: Concurrency conflict, please retry.");
+        }
+    }
+
+    /**
+     * Resolves the commands a game received during one tick together, in one transaction, so the result does not
+     * depend on which of them arrived first:
+     * <ol>
+     *     <li>random commands are drawn and every command is validated against the board as the tick found it; a unit
+     *     gets one command per tick</li>
+     *     <li>shots fire simultaneously, each hitting whatever stood on its target, so a shooter destroyed in the
+     *     same tick still fires; of several shots at one unit only the first, by unit id, destroys it</li>
+     *     <li>units that survived move; moves onto the same square are all blocked, and a move onto a square
+     *     that another unit leaves in this tick waits for that unit (units moving in a cycle stay put)</li>
+     * </ol>
+     * Outcomes are returned in the order of the commands, rejected ones carrying what a single command would
+     * have thrown. History for all commands is queued for the write-behind writer on commit.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW,
+            isolation = Isolation.READ_COMMITTED,
+            rollbackFor = Exception.class)
+    public List<CommandOutcome> resolveTick(Long gameId, List<UnitCommandRequestDTO> commands) {
+        try {
+            GameState state = gameStateStore.lock(gameId);
+            TickResolution tick = new TickResolution(state, gameId, commands);
+            tick.validate();
+            tick.fireShots();
+            tick.resolveMoves();
+
+            List<CommandHistoryEntry> histories = new ArrayList<>(commands.size());
+            for (int i = 0; i < commands.size(); i++) {
+                UnitCommandRequestDTO request = tick.commands.get(i);
+                Long knownUnitId = state.findUnit(request.getUnitId()).isPresent() ? request.getUnitId() : null;
+                histories.add(new CommandHistoryEntry(gameId, knownUnitId, request.getPlayerColor(), request.getCommandType(),
+                        targetOf(request), tick.outcomes[i].getResultDescription()));
+            }
+            historyWriter.appendAfterCommit(histories);
+            log.info("Tick of {} commands resolved for game {}, {} succeeded.", commands.size(), gameId,
+                    Arrays.stream(tick.outcomes).filter(CommandOutcome::isSuccess).count());
+            return List.of(tick.outcomes);
+
+        } catch (OptimisticLockException | OptimisticLockingFailureException ole) {
+            log.warn("Optimistic Lock Exception during tick resolution for game {}: {}", gameId, ole.getMessage());
+            throw new ConcurrencyConflictException("FAILED: Concurrency conflict, please retry.");
+        }
+    }
+
+    /**
+     * Working state of one {@link #resolveTick} pass. Commands are referred to by their index.
+     */
+    private final class TickResolution {
+        private final GameState state;
+        private final Long gameId;
+        private final List<UnitCommandRequestDTO> commands;
+        private final CommandOutcome[] outcomes;
+        private final UnitState[] actingUnits;
+        private final Position[] targets;
+        private final List<Integer> shots = new ArrayList<>();
+        private final List<Integer> moves = new ArrayList<>();
+        private final Instant actedAt = Instant.now();
+
+        TickResolution(GameState state, Long gameId, List<UnitCommandRequestDTO> commands) {
+            this.state = state;
+            this.gameId = gameId;
+            this.commands = new ArrayList<>(commands); // random commands are replaced by the command drawn for them
+            this.outcomes = new CommandOutcome[commands.size()];
+            this.actingUnits = new UnitState[commands.size()];
+            this.targets = new Position[commands.size()];
+        }
+
+        void validate() {
+            drawRandomCommands();
+            Set<Long> commandedUnits = new HashSet<>();
+            for (int i = 0; i < commands.size(); i++) {
+                if (outcomes[i] != null) continue; // a random command with nothing to draw
+                UnitCommandRequestDTO request = commands.get(i);
+                try {
+                    UnitState unit = validateActingUnit(state, gameId, request.getUnitId(), request);
+                    if (!commandedUnits.add(unit.getId())) {
+                        throw new InvalidCommandException("Unit " + unit.getId() + " already received a command in this tick.");
+                    }
+                    switch (request.getCommandType()) {
+                        case MOVE -> {
+                            targets[i] = validateAndGetTargetPosition(request, "MOVE");
+                            commandRules.validateMoveRules(state, unit, targets[i]);
+                            moves.add(i);
+                        }
+                        case SHOOT -> {
+                            targets[i] = validateAndGetTargetPosition(request, "SHOOT");
+                            commandRules.validateShootRules(state, unit, targets[i]);
+                            shots.add(i);
+                        }
+                        default -> throw new InvalidCommandException("Unsupported command type: " + request.getCommandType());
+                    }
+                    actingUnits[i] = unit;
+                } catch (CooldownException | InvalidCommandException | ActionNotAllowedException |
+                         OutOfBoundsException | UnitNotFoundException e) {
+                    log.warn("Tick command failed for unit {}: {}", request.getUnitId(), e.getMessage());
+                    outcomes[i] = CommandOutcome.rejected(request.getUnitId(), request.getCommandType(), e);
+                }
+            }
+            // arrival order must not matter from here on
+            Comparator<Integer> byUnitId = Comparator.comparing(i -> actingUnits[i].getId());
+            shots.sort(byUnitId);
+            moves.sort(byUnitId);
+        }
+
+        /**
+         * Draws the random commands from the board as the tick found it. Each unit's draw only depends on the unit,
+         * so not on the order they arrived in either.
+         */
+        private void drawRandomCommands() {
+            for (int i = 0; i < commands.size(); i++) {
+                UnitCommandRequestDTO request = commands.get(i);
+                if (request.getCommandType() != CommandType.RANDOM_MOVE) continue;
+                try {
+                    UnitState unit = state.findUnit(request.getUnitId())
+                            .orElseThrow(() -> new UnitNotFoundException("Unit " + request.getUnitId() + " not found in game " + gameId));
+                    validateUnitIsActive(unit);
+                    validatePlayerControl(unit, request.getPlayerColor());
+                    CommandRequestDTO drawn = pickRandomCommand(state, unit, actedAt);
+                    if (drawn == null) {
+                        CommandType coolingDown = firstActionOnCooldown(unit, actedAt);
+                        if (coolingDown != null) checkCooldown(unit, coolingDown);
+                        throw new InvalidCommandException("No valid random moves found for unit " + unit.getId());
+                    }
+                    commands.set(i, drawnCommand(request, drawn));
+                } catch (CooldownException | InvalidCommandException | ActionNotAllowedException | UnitNotFoundException e) {
+                    log.warn("Tick command failed for unit {}: {}", request.getUnitId(), e.getMessage());
+                    outcomes[i] = CommandOutcome.rejected(request.getUnitId(), request.getCommandType(), e);
+                }
+            }
+        }
+
+        private UnitCommandRequestDTO drawnCommand(UnitCommandRequestDTO request, CommandRequestDTO drawn) {
+            UnitCommandRequestDTO command = new UnitCommandRequestDTO();
+            command.setUnitId(request.getUnitId());
+            command.setPlayerColor(request.getPlayerColor());
+            command.setCommandType(drawn.getCommandType());
+            command.setTargetX(drawn.getTargetX());
+            command.setTargetY(drawn.getTargetY());
+            return command;
+        }
+
+        void fireShots() {
+            // aim every shot before any of them lands
+            UnitState[] hits = new UnitState[commands.size()];
+            for (int i : shots) {
+                hits[i] = state.findActiveUnitAt(targets[i]).orElse(null);
+                state.recordAction(actingUnits[i], actedAt, false);
+                writeAction(actingUnits[i], false);
+            }
+            for (int i : shots) {
+                UnitState shooter = actingUnits[i];
+                UnitState hit = hits[i];
+                String resultDescription;
+                UnitState destroyed = null;
+                if (hit == null) {
+                    resultDescription = "SUCCESS: Shot target " + targets[i] + " - missed";
+                } else if (hit.isActive()) { // the first shot to land reports the destruction
+                    state.destroyUnit(hit);
+                    writeDestroyed(hit);
+                    destroyed = hit;
+                    String destroyedType = (hit.getPlayerColor() == shooter.getPlayerColor()) ? "ally" : "enemy";
+                    resultDescription = "SUCCESS: Shot target " + targets[i] + ", destroyed " + destroyedType + " unit " + hit.getId();
+                } else {
+                    resultDescription = "SUCCESS: Shot target " + targets[i] + " - unit " + hit.getId() + " already destroyed in this tick";
+                }
+                succeeded(i, resultDescription, false, destroyed);
+            }
+        }
+
+        void resolveMoves() {
+            Map<Position, Integer> moversPerTarget = new HashMap<>();
+            for (int i : moves) {
+                moversPerTarget.merge(targets[i], 1, Integer::sum);
+            }
+            List<Integer> waiting = new ArrayList<>();
+            Set<Long> pendingMovers = new HashSet<>();
+            for (int i : moves) {
+                UnitState unit = actingUnits[i];
+                if (!unit.isActive()) {
+                    outcomes[i] = CommandOutcome.rejected(unit.getId(), CommandType.MOVE,
+                            new InvalidCommandException("Unit " + unit.getId() + " was destroyed before it could move."));
+                } else if (moversPerTarget.get(targets[i]) > 1) {
+                    blocked(i, "contested by " + moversPerTarget.get(targets[i]) + " units");
+                } else {
+                    waiting.add(i);
+                    pendingMovers.add(unit.getId());
+                }
+            }
+
+            boolean progress = true;
+            while (progress) {
+                progress = false;
+                for (Iterator<Integer> it = waiting.iterator(); it.hasNext(); ) {
+                    int i = it.next();
+                    Optional<UnitState> occupant = state.findActiveUnitAt(targets[i]);
+                    if (occupant.isPresent() && pendingMovers.contains(occupant.get().getId())) {
+                        continue; // wait for it to leave, or to fail to
+                    }
+                    move(i, occupant.orElse(null));
+                    it.remove();
+                    pendingMovers.remove(actingUnits[i].getId());
+                    progress = true;
+                }
+            }
+            for (int i : waiting) {
+                blocked(i, "moving units are in each other's way");
+            }
+        }
+
+        private void move(int i, UnitState occupant) {
+            UnitState unit = actingUnits[i];
+            try {
+                String resultDescription = handleMoveCommand(state, unit, targets[i]);
+                boolean moved = resultDescription.startsWith("SUCCESS");
+                succeeded(i, resultDescription, moved, occupant != null && !occupant.isActive() ? occupant : null);
+            } catch (PositionOccupiedException e) {
+                log.warn("Tick command failed for unit {}: {}", unit.getId(), e.getMessage());
+                outcomes[i] = CommandOutcome.rejected(unit.getId(), CommandType.MOVE, e);
+            }
+        }
+
+        /**
+         * A move that cannot happen: units that run over enemies (vehicles) bump into the square as when blocked
+         * by an ally, other units are rejected as when the square is occupied.
+         */
+        private void blocked(int i, String reason) {
+            UnitState unit = actingUnits[i];
+            if (ruleTables.runsOver(unit.getUnitType())) {
+                log.info("{} {} move to {} blocked, {}", ruleTables.displayName(unit.getUnitType()), unit.getId(), targets[i], reason);
+                succeeded(i, "FAILED_BLOCKED: Destination " + targets[i] + " " + reason, false, null);
             } else {
-                log.warn("Cannot record failed command attempt, game {} not found.", gameId);
+                outcomes[i] = CommandOutcome.rejected(unit.getId(), CommandType.MOVE,
+                        new PositionOccupiedException("Cannot move to " + targets[i] + ", " + reason));
+            }
+        }
+
+        private void succeeded(int i, String resultDescription, boolean moved, UnitState destroyed) {
+            UnitState unit = actingUnits[i];
+            CommandType commandType = commands.get(i).getCommandType();
+            if (commandType == CommandType.MOVE) { // shooters were recorded and written when their shots were aimed
+                state.recordAction(unit, actedAt, moved);
+                writeAction(unit, moved);
             }
+            publishExecuted(gameId, unit, commandType, actedAt, resultDescription, moved, targets[i], destroyed);
+            outcomes[i] = new CommandOutcome(unit.getId(), commandType, true, resultDescription, unit.snapshot());
+        }
+    }
+
+    /**
+     * Validates and applies one command against the locked state and writes the touched units through.
+     * Rule violations are thrown before anything is changed.
+     */
+    private CommandOutcome applyCommand(GameState state, Long gameId, Long unitId, CommandRequestDTO request) {
+        UnitState actingUnit = validateActingUnit(state, gameId, unitId, request);
+
+        Position targetPosition;
+        Optional<UnitState> unitAtTarget; // to tell afterwards whether the command destroyed it
+        String resultDescription;
+        switch (request.getCommandType()) {
+            case MOVE:
+                targetPosition = validateAndGetTargetPosition(request, "MOVE");
+                unitAtTarget = state.findActiveUnitAt(targetPosition);
+                resultDescription = handleMoveCommand(state, actingUnit, targetPosition);
+                break;
+            case SHOOT:
+                targetPosition = validateAndGetTargetPosition(request, "SHOOT");
+                unitAtTarget = state.findActiveUnitAt(targetPosition);
+                resultDescription = handleShootCommand(state, actingUnit, targetPosition);
+                break;
+            default:
+                throw new InvalidCommandException("Unsupported command type: " + request.getCommandType());
+        }
+
+        // 4. unit state update (timestamp, move count) if successful
+        boolean acted = resultDescription.startsWith("SUCCESS") || resultDescription.contains("FAILED_BLOCKED");
+        boolean moved = resultDescription.startsWith("SUCCESS") && request.getCommandType() == CommandType.MOVE;
+        Instant actedAt = Instant.now();
+        if (acted) {
+            state.recordAction(actingUnit, actedAt, moved);
+        }
+
+        if (acted) {
+            // 5. write the acting unit through to the database (target units were written by the handlers)
+            writeAction(actingUnit, moved);
+            publishExecuted(gameId, actingUnit, request.getCommandType(), actedAt, resultDescription, moved,
+                    targetPosition, unitAtTarget.filter(target -> !target.isActive()).orElse(null));
+        }
+        return new CommandOutcome(unitId, request.getCommandType(), true, resultDescription, actingUnit.snapshot());
+    }
 
+    /**
+     * Steps 1 to 3 of every command: the unit exists, is active, belongs to the player, may perform the action
+     * and is off cooldown (based on its last successful action).
+     */
+    private UnitState validateActingUnit(GameState state, Long gameId, Long unitId, CommandRequestDTO request) {
+        UnitState actingUnit = state.findUnit(unitId)
+                .orElseThrow(() -> new UnitNotFoundException("Unit " + unitId + " not found in game " + gameId));
+        validateUnitIsActive(actingUnit);
+        validatePlayerControl(actingUnit, request.getPlayerColor());
+        validateActionAllowed(actingUnit.getUnitType(), request.getCommandType());
+        checkCooldown(actingUnit, request.getCommandType());
+        return actingUnit;
+    }
+
+    private void publishExecuted(Long gameId, UnitState actingUnit, CommandType commandType, Instant actedAt, String resultDescription,
+                                 boolean moved, Position targetPosition, UnitState destroyed) {
+        List<UnitState> changedUnits = destroyed != null
+                ? List.of(actingUnit.snapshot(), destroyed.snapshot())
+                : List.of(actingUnit.snapshot());
+        Position position = actingUnit.getPosition();
+        eventPublisher.publishEvent(new CommandExecutedEvent(gameId, actingUnit.getId(), actingUnit.getPlayerColor(), actingUnit.getUnitType(),
+                commandType, actedAt, resultDescription, new Position(position.getX(), position.getY()), moved,
+                destroyed != null ? destroyed.getId() : null, destroyed != null ? targetPosition : null, changedUnits));
+    }
+
+    private Position targetOf(CommandRequestDTO request) {
+        if (request.getTargetX() != null && request.getTargetY() != null) {
+            return new Position(request.getTargetX(), request.getTargetY());
+        }
+        return null;
+    }
+
+    /**
+     * Records a rejected command. The entry is queued right away since the command's own transaction is about
+     * to roll back.
+     */
+    private void recordFailedCommandAttempt(Long gameId, Long unitId, PlayerColor playerColor, CommandType commandType, Position targetPosition, String resultDescription) {
+        try {
+            historyWriter.append(new CommandHistoryEntry(gameId, unitId, playerColor, commandType, targetPosition, resultDescription));
+            log.debug("Recorded failed command attempt for game {}, unit {}", gameId, unitId);
         } catch (Exception e) {
             log.error("Failed to record command failure history for game {}, unit {}: {}", gameId, unitId, e.getMessage(), e);
         }
     }
 
 
-    private String handleMoveCommand(Game game, Unit unit, Position targetPosition) {
-        validateMoveRules(game, unit, targetPosition);
+    private String handleMoveCommand(GameState state, UnitState unit, Position targetPosition) {
+        commandRules.validateMoveRules(state, unit, targetPosition);
 
-        Optional<Unit> unitAtDestination = gameService.findUnitAtPosition(game.getId(), targetPosition); // Check again within tx
+        Optional<UnitState> unitAtDestination = state.findActiveUnitAt(targetPosition);
 
         if (unitAtDestination.isPresent()) {
-            Unit occupant = unitAtDestination.get();
+            UnitState occupant = unitAtDestination.get();
             if (occupant.getPlayerColor() == unit.getPlayerColor()) {
-                if (unit.getUnitType() == UnitType.VEHICLE) {
-                    log.info("Vehicle {} move to {} blocked by ally unit {}", unit.getId(), targetPosition, occupant.getId());
+                if (ruleTables.runsOver(unit.getUnitType())) {
+                    log.info("{} {} move to {} blocked by ally unit {}", ruleTables.displayName(unit.getUnitType()), unit.getId(), targetPosition, occupant.getId());
                     return "FAILED_BLOCKED: Ally unit at destination " + targetPosition;
                 } else {
                     throw new PositionOccupiedException("Cannot move to " + targetPosition + ", square occupied by ally unit " + occupant.getId());
                 }
             } else {
-                if (unit.getUnitType() == UnitType.VEHICLE) {
-                    log.info("Vehicle {} runs over enemy unit {} at {}", unit.getId(), occupant.getId(), targetPosition);
-                    occupant.setStatus(UnitStatus.DESTROYED);
-                    unitRepository.save(occupant);
-                    unit.setPosition(targetPosition);
+                if (ruleTables.runsOver(unit.getUnitType())) {
+                    log.info("{} {} runs over enemy unit {} at {}", ruleTables.displayName(unit.getUnitType()), unit.getId(), occupant.getId(), targetPosition);
+                    state.destroyUnit(occupant);
+                    writeDestroyed(occupant); // frees the square before the vehicle's own update claims it
+                    state.moveUnit(unit, targetPosition);
                     return "SUCCESS: Moved to " + targetPosition + ", destroyed enemy unit " + occupant.getId();
                 } else {
                     throw new PositionOccupiedException("Cannot move to " + targetPosition + ", square occupied by enemy unit " + occupant.getId());
                 }
             }
         } else {
-            unit.setPosition(targetPosition);
+            state.moveUnit(unit, targetPosition);
             log.info("Unit {} moved to {}", unit.getId(), targetPosition);
             return "SUCCESS: Moved to " + targetPosition;
         }
     }
 
 
-    private String handleShootCommand(Game game, Unit unit, Position targetPosition, Optional<Unit> lockedTargetUnitOpt) {
-        validateShootRules(game, unit, targetPosition);
-
+    private String handleShootCommand(GameState state, UnitState unit, Position targetPosition) {
+        commandRules.validateShootRules(state, unit, targetPosition);
 
-        if (lockedTargetUnitOpt.isPresent()) {
-            Unit targetUnit = lockedTargetUnitOpt.get();
+        Optional<UnitState> targetUnitOpt = state.findActiveUnitAt(targetPosition);
+        if (targetUnitOpt.isPresent()) {
+            UnitState targetUnit = targetUnitOpt.get();
             log.info("Unit {} shot hit unit {} at {}", unit.getId(), targetUnit.getId(), targetPosition);
-            targetUnit.setStatus(UnitStatus.DESTROYED);
-            unitRepository.save(targetUnit);
+            state.destroyUnit(targetUnit);
+            writeDestroyed(targetUnit);
 
             String destroyedType = (targetUnit.getPlayerColor() == unit.getPlayerColor()) ? "ally" : "enemy";
             return "SUCCESS: Shot target " + targetPosition + ", destroyed " + destroyedType + " unit " + targetUnit.getId();
@@ -190,6 +512,32 @@ public class CommandService {
         }
     }
 
+    /**
+     * Writes the acting unit's move or action onto its row with one conditional update. The row is expected to
+     * still carry the version the game state was built from (and, for a move, the target to be free); anything
+     * else means it was changed outside of the state store.
+     */
+    private void writeAction(UnitState unitState, boolean moved) {
+        Position position = unitState.getPosition();
+        int updated = moved
+                ? unitRepository.moveIfFree(unitState.getId(), unitState.getVersion(), position.getX(), position.getY(),
+                        unitState.getMoveCount(), unitState.getLastActionTimestamp())
+                : unitRepository.recordActionIfActive(unitState.getId(), unitState.getVersion(), unitState.getLastActionTimestamp());
+        versionWritten(unitState, updated);
+    }
+
+    private void writeDestroyed(UnitState unitState) {
+        versionWritten(unitState, unitRepository.destroyIfActive(unitState.getId(), unitState.getVersion()));
+    }
+
+    private static void versionWritten(UnitState unitState, int updatedRows) {
+        if (updatedRows != 1) {
+            throw new OptimisticLockException("Unit " + unitState.getId() + " was modified concurrently (expected version "
+                    + unitState.getVersion() + ").");
+        }
+        unitState.setVersion(unitState.getVersion() + 1); // matches the increment applied by the update
+    }
+
 
     private Position validateAndGetTargetPosition(CommandRequestDTO request, String action) {
         if (request.getTargetX() == null || request.getTargetY() == null) {
@@ -198,241 +546,119 @@ public class CommandService {
         return new Position(request.getTargetX(), request.getTargetY());
     }
 
-    private void validateUnitIsActive(Unit unit) {
-        if (unit.getStatus() != UnitStatus.ACTIVE) {
+    private void validateUnitIsActive(UnitState unit) {
+        if (!unit.isActive()) {
             throw new InvalidCommandException("Unit " + unit.getId() + " is already destroyed.");
         }
     }
 
-    private void validatePlayerControl(Unit unit, PlayerColor requestingPlayer) {
+    private void validatePlayerControl(UnitState unit, PlayerColor requestingPlayer) {
         if (unit.getPlayerColor() != requestingPlayer) {
             throw new ActionNotAllowedException("Player " + requestingPlayer + " cannot command unit " + unit.getId() + " owned by " + unit.getPlayerColor());
         }
     }
 
     private void validateActionAllowed(UnitType unitType, CommandType commandType) {
-        switch (unitType) {
-            case ARCHER:
-                if (commandType != CommandType.MOVE && commandType != CommandType.SHOOT) {
-                    throw new ActionNotAllowedException("Archer cannot perform: " + commandType);
-                }
-                break;
-            case VEHICLE:
-                if (commandType != CommandType.MOVE) {
-                    throw new ActionNotAllowedException("Vehicle cannot perform: " + commandType);
-                }
-                break;
-            case CANNON:
-                if (commandType != CommandType.SHOOT) {
-                    throw new ActionNotAllowedException("Cannon cannot perform: " + commandType);
-                }
-                break;
+        if (!ruleTables.allowed(unitType, commandType)) {
+            throw new ActionNotAllowedException(ruleTables.displayName(unitType) + " cannot perform: " + commandType);
         }
     }
 
 
-    private void checkCooldown(Unit unit, CommandType requestedAction) {
+    private void checkCooldown(UnitState unit, CommandType requestedAction) {
         Instant lastActionTime = unit.getLastActionTimestamp();
         if (lastActionTime == null || lastActionTime.equals(Instant.EPOCH)) {
             return;
         }
-
-        int requiredSeconds;
-        try {
-            requiredSeconds = config.getCooldownSeconds(unit.getUnitType(), requestedAction);
-            if (requiredSeconds == Integer.MAX_VALUE) {
-                throw new ActionNotAllowedException(unit.getUnitType() + " cannot perform " + requestedAction + " (cooldown check).");
-            }
-        } catch (IllegalArgumentException e) {
-            throw new ActionNotAllowedException("Cannot determine cooldown for " + unit.getUnitType() + " performing " + requestedAction);
+        if (!ruleTables.allowed(unit.getUnitType(), requestedAction)) {
+            throw new ActionNotAllowedException(unit.getUnitType() + " cannot perform " + requestedAction + " (cooldown check).");
         }
 
-
-        Instant now = Instant.now();
-        Duration timeSinceLastAction = Duration.between(lastActionTime, now);
-        Duration requiredCooldown = Duration.ofSeconds(requiredSeconds);
-
-        if (timeSinceLastAction.compareTo(requiredCooldown) < 0) {
-            long remainingMillis = requiredCooldown.toMillis() - timeSinceLastAction.toMillis();
+        Duration remaining = remainingCooldown(unit, requestedAction, Instant.now());
+        if (!remaining.isZero()) {
             throw new CooldownException(String.format("Unit %d cannot perform %s yet. Cooldown remaining: %.1f seconds.",
-                    unit.getId(), requestedAction, remainingMillis / 1000.0));
-        }
-    }
-
-    private void validateMoveRules(Game game, Unit unit, Position target) {
-        if (!boardUtils.isWithinBounds(target, game.getBoardWidth(), game.getBoardHeight())) {
-            throw new OutOfBoundsException("Target position " + target + " is outside board boundaries.");
-        }
-
-        Position current = unit.getPosition();
-        int dx = boardUtils.calculateDistanceX(current, target);
-        int dy = boardUtils.calculateDistanceY(current, target);
-        int manhattanDistance = dx + dy;
-
-
-        switch (unit.getUnitType()) {
-            case ARCHER:
-                if (manhattanDistance != 1 || (dx > 0 && dy > 0)) {
-                    throw new InvalidCommandException("Archer can only move 1 square orthogonally. Invalid move from " + current + " to " + target);
-                }
-                break;
-            case VEHICLE:
-                if (dx > 0 && dy > 0) { // No diagonal moves
-                    throw new InvalidCommandException("Vehicle cannot move diagonally. Invalid move from " + current + " to " + target);
-                }
-                if (manhattanDistance == 0 || manhattanDistance > 3) {
-                    throw new InvalidCommandException("Vehicle must move 1, 2, or 3 squares orthogonally. Invalid move from " + current + " to " + target + " (distance " + manhattanDistance + ")");
-                }
-                break;
-            case CANNON:
-                throw new ActionNotAllowedException("Cannon cannot move.");
+                    unit.getId(), requestedAction, remaining.toMillis() / 1000.0), remaining);
         }
     }
 
-
-    private void validateShootRules(Game game, Unit unit, Position target) {
-        if (!boardUtils.isWithinBounds(target, game.getBoardWidth(), game.getBoardHeight())) {
-            throw new OutOfBoundsException("Target position " + target + " is outside board boundaries.");
-        }
-
-        Position current = unit.getPosition();
-        int dx = boardUtils.calculateDistanceX(current, target);
-        int dy = boardUtils.calculateDistanceY(current, target);
-
-        switch (unit.getUnitType()) {
-            case ARCHER:
-                int range = config.getUnits().getArcher().getShootRange();
-                // shoot n fields (configurable) left/right/down/up
-                if (target.equals(current)) {
-                    throw new InvalidCommandException("Archer cannot shoot its own square.");
-                }
-                if ((dx > 0 && dy > 0) || (dx == 0 && dy == 0)) {
-                    throw new InvalidCommandException("Archer can only shoot orthogonally (up/down/left/right). Invalid target " + target);
-                }
-                if (dx > range || dy > range) {
-                    throw new InvalidCommandException("Archer target " + target + " is out of range (" + range + "). Distance: x=" + dx + ", y=" + dy);
-                }
-                break;
-            case CANNON:
-                int rangeX = config.getUnits().getCannon().getShootRangeX();
-                int rangeY = config.getUnits().getCannon().getShootRangeY();
-                // shoot n squares left/right and m up/down - can shoot diagonally
-                if (target.equals(current)) {
-                    throw new InvalidCommandException("Cannon cannot shoot its own square.");
-                }
-                if (dx > rangeX || dy > rangeY) {
-                    throw new InvalidCommandException("Cannon target " + target + " is out of range (max X:" + rangeX + ", max Y:" + rangeY + "). Distance: x=" + dx + ", y=" + dy);
-                }
-                break;
-            case VEHICLE:
-                throw new ActionNotAllowedException("Vehicle cannot shoot.");
+    private Duration remainingCooldown(UnitState unit, CommandType commandType, Instant now) {
+        Instant lastActionTime = unit.getLastActionTimestamp();
+        if (lastActionTime == null || lastActionTime.equals(Instant.EPOCH)) {
+            return Duration.ZERO;
         }
+        // plain arithmetic on the table's nanos, a ready unit allocates nothing
+        long elapsedNanos = (now.getEpochSecond() - lastActionTime.getEpochSecond()) * 1_000_000_000L
+                + (now.getNano() - lastActionTime.getNano());
+        long requiredNanos = ruleTables.cooldownNanos(unit.getUnitType(), commandType);
+        return elapsedNanos >= requiredNanos ? Duration.ZERO : Duration.ofNanos(requiredNanos - elapsedNanos);
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED, rollbackFor = Exception.class)
-    public Unit executeRandomCommand(Long gameId, Long unitId, PlayerColor playerColor) {
-        // 1. fetching the unit (with lock, as we intend to potentially command it)
-        Unit unit = unitRepository.findByIdAndGameIdForUpdate(unitId, gameId)
+    public CommandOutcome executeRandomCommand(Long gameId, Long unitId, PlayerColor playerColor) {
+        // 1. locking the game state (executeCommand below re-enters the same lock)
+        GameState state = gameStateStore.lock(gameId);
+        UnitState unit = state.findUnit(unitId)
                 .orElseThrow(() -> new UnitNotFoundException("Unit " + unitId + " not found in game " + gameId));
 
-        Game game = unit.getGame();
-
         // 2. some validations (same as specific command)
         validateUnitIsActive(unit);
         validatePlayerControl(unit, playerColor);
 
-        // 3. possibly commands
-        List<CommandRequestDTO> possibleCommands = generatePossibleCommands(game, unit);
-
-        if (possibleCommands.isEmpty()) {
+        // 3. a random legal command among the actions that are off cooldown, no exceptions involved
+        Instant now = Instant.now();
+        CommandRequestDTO randomCommand = pickRandomCommand(state, unit, now);
+
+        if (randomCommand == null) {
+            CommandType coolingDown = firstActionOnCooldown(unit, now);
+            if (coolingDown != null) {
+                // nothing is possible until the cooldown ends, report that rather than a blocked unit
+                try {
+                    checkCooldown(unit, coolingDown);
+                } catch (CooldownException e) {
+                    recordFailedCommandAttempt(gameId, unitId, playerColor, CommandType.RANDOM_MOVE, null, "FAILED: " + e.getMessage());
+                    throw e;
+                }
+            }
             log.warn("Unit {} has no possible random commands.", unitId);
             recordFailedCommandAttempt(gameId, unitId, playerColor, CommandType.RANDOM_MOVE, null, "FAILED: No valid random moves found.");
             throw new InvalidCommandException("No valid random moves found for unit " + unitId);
         }
-
-        // 4. select random one
-        CommandRequestDTO randomCommand = possibleCommands.get(random.nextInt(possibleCommands.size()));
         randomCommand.setPlayerColor(playerColor); // Ensure player color is set
 
-        log.info("Generated random command for unit {}: {} targeting ({}, {})", unitId, randomCommand.getCommandType(), randomCommand.getTargetX(), randomCommand.getTargetY());
-
-
-
         return executeCommand(gameId, unitId, randomCommand);
     }
 
-    private List<CommandRequestDTO> generatePossibleCommands(Game game, Unit unit) {
-        List<CommandRequestDTO> commands = new ArrayList<>();
-        Position current = unit.getPosition();
-        int width = game.getBoardWidth();
-        int height = game.getBoardHeight();
-
-        if (unit.getUnitType() == UnitType.ARCHER) {
-            int[][] moves = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}};
-            for (int[] move : moves) {
-                Position target = new Position(current.getX() + move[0], current.getY() + move[1]);
-                if (isValidMoveTarget(game, unit, target)) {
-                    commands.add(createCommandDTO(CommandType.MOVE, target));
-                }
-            }
-        } else if (unit.getUnitType() == UnitType.VEHICLE) {
-            int[] distances = {1, 2, 3};
-            int[][] directions = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}};
-            for (int dist : distances) {
-                for (int[] dir : directions) {
-                    Position target = new Position(current.getX() + dir[0] * dist, current.getY() + dir[1] * dist);
-                    if (isValidMoveTarget(game, unit, target)) {
-                        commands.add(createCommandDTO(CommandType.MOVE, target));
-                    }
-                }
-            }
-        }
-
-        if (unit.getUnitType() == UnitType.ARCHER) {
-            int range = config.getUnits().getArcher().getShootRange();
-            int[][] directions = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}};
-            for (int dist = 1; dist <= range; dist++) {
-                for (int[] dir : directions) {
-                    Position target = new Position(current.getX() + dir[0] * dist, current.getY() + dir[1] * dist);
-                    if (isValidShootTarget(game, unit, target)) {
-                        commands.add(createCommandDTO(CommandType.SHOOT, target));
-                    }
-                }
-            }
-        } else if (unit.getUnitType() == UnitType.CANNON) {
-            int rangeX = config.getUnits().getCannon().getShootRangeX();
-            int rangeY = config.getUnits().getCannon().getShootRangeY();
-            for (int x = -rangeX; x <= rangeX; x++) {
-                for (int y = -rangeY; y <= rangeY; y++) {
-                    if (x == 0 && y == 0) continue;
-                    Position target = new Position(current.getX() + x, current.getY() + y);
-                    if (isValidShootTarget(game, unit, target)) {
-                        commands.add(createCommandDTO(CommandType.SHOOT, target));
-                    }
-                }
-            }
-        }
-
-
-        return commands;
+    /**
+     * Picks one of the unit's legal targets for the actions that are off cooldown at {@code now}, drawn from the
+     * game's seed for the unit at its current version. Null when there is none.
+     */
+    private CommandRequestDTO pickRandomCommand(GameState state, UnitState unit, Instant now) {
+        int[] moveTargets = readyTargets(state, unit, CommandType.MOVE, now);
+        int[] shootTargets = readyTargets(state, unit, CommandType.SHOOT, now);
+        int candidates = moveTargets.length + shootTargets.length;
+        if (candidates == 0) return null;
+
+        int pick = state.randomFor(unit).nextInt(candidates);
+        CommandType type = pick < moveTargets.length ? CommandType.MOVE : CommandType.SHOOT;
+        int cell = pick < moveTargets.length ? moveTargets[pick] : shootTargets[pick - moveTargets.length];
+        CommandRequestDTO randomCommand = createCommandDTO(type, new Position(cell % state.getBoardWidth(), cell / state.getBoardWidth()));
+        log.info("Generated random command for unit {}: {} targeting ({}, {})", unit.getId(), randomCommand.getCommandType(), randomCommand.getTargetX(), randomCommand.getTargetY());
+        return randomCommand;
     }
 
-    private boolean isValidMoveTarget(Game game, Unit unit, Position target) {
-        try {
-            validateMoveRules(game, unit, target);
-            return true;
-        } catch (OutOfBoundsException | InvalidCommandException | ActionNotAllowedException e) {
-            return false;
-        }
+    private int[] readyTargets(GameState state, UnitState unit, CommandType commandType, Instant now) {
+        if (!ruleTables.allowed(unit.getUnitType(), commandType)) return new int[0];
+        if (!remainingCooldown(unit, commandType, now).isZero()) return new int[0];
+        return moveGenerator.legalTargets(state, unit, commandType);
     }
 
-    private boolean isValidShootTarget(Game game, Unit unit, Position target) {
-        try {
-            validateShootRules(game, unit, target);
-            return true;
-        } catch (OutOfBoundsException | InvalidCommandException | ActionNotAllowedException e) {
-            return false;
+    private CommandType firstActionOnCooldown(UnitState unit, Instant now) {
+        for (CommandType commandType : new CommandType[]{CommandType.MOVE, CommandType.SHOOT}) {
+            if (ruleTables.allowed(unit.getUnitType(), commandType) && !remainingCooldown(unit, commandType, now).isZero()) {
+                return commandType;
+            }
         }
+        return null;
     }
 
     private CommandRequestDTO createCommandDTO(CommandType type, Position target) {
@@ -0,0 +1,156 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.dto.CommandRequestDTO;
+import com.bryja.wpisquareboardback.dto.UnitCommandRequestDTO;
+import com.bryja.wpisquareboardback.exception.CommandQueueFullException;
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tick mode ({@code game.commands.tick-millis} above 0): commands for a game are collected for one tick, counted
+ * from the first command to arrive, and then resolved together by {@link CommandService#resolveTick} on the
+ * game's writer. Specific, random and batch commands all go through the tick; the commands of a batch always
+ * land in the same one. Callers block until their tick has been resolved and get the same result or exception
+ * as a command executed on its own.
+ */
+@Component
+@Slf4j
+public class CommandTickEngine {
+
+    private final CommandService commandService;
+    private final GameCommandExecutor commandExecutor;
+    private final GameConfigProperties config;
+    private final ConcurrentMap<Long, Tick> openTicks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public CommandTickEngine(CommandService commandService, GameCommandExecutor commandExecutor, GameConfigProperties config) {
+        this.commandService = commandService;
+        this.commandExecutor = commandExecutor;
+        this.config = config;
+        AtomicInteger threadNumber = new AtomicInteger();
+        // closing a tick only hands it to the game's writer, unless commands run on the calling thread
+        this.scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "command-tick-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return config.getCommands().getTickMillis() > 0;
+    }
+
+    public CommandOutcome execute(Long gameId, Long unitId, CommandRequestDTO request) {
+        UnitCommandRequestDTO command = new UnitCommandRequestDTO();
+        command.setUnitId(unitId);
+        command.setPlayerColor(request.getPlayerColor());
+        command.setCommandType(request.getCommandType());
+        command.setTargetX(request.getTargetX());
+        command.setTargetY(request.getTargetY());
+        return orThrow(await(submit(gameId, List.of(command)).get(0)));
+    }
+
+    /**
+     * A random command, drawn when its tick is resolved from the board as the tick found it.
+     */
+    public CommandOutcome executeRandom(Long gameId, Long unitId, PlayerColor playerColor) {
+        UnitCommandRequestDTO command = new UnitCommandRequestDTO();
+        command.setUnitId(unitId);
+        command.setPlayerColor(playerColor);
+        command.setCommandType(CommandType.RANDOM_MOVE);
+        return orThrow(await(submit(gameId, List.of(command)).get(0)));
+    }
+
+    /**
+     * The commands of a batch, all in the same tick. As with {@link CommandService#executeBatch} rejected commands
+     * come back as outcomes, and a tick failing as a whole fails the batch.
+     */
+    public List<CommandOutcome> executeBatch(Long gameId, List<UnitCommandRequestDTO> commands) {
+        List<CompletableFuture<CommandOutcome>> results = submit(gameId, commands);
+        List<CommandOutcome> outcomes = new ArrayList<>(results.size());
+        for (CompletableFuture<CommandOutcome> result : results) {
+            outcomes.add(await(result));
+        }
+        return outcomes;
+    }
+
+    List<CompletableFuture<CommandOutcome>> submit(Long gameId, List<UnitCommandRequestDTO> commands) {
+        List<CompletableFuture<CommandOutcome>> results = new ArrayList<>(commands.size());
+        openTicks.compute(gameId, (id, tick) -> {
+            if (tick != null && tick.commands.size() + commands.size() > config.getCommands().getMailboxCapacity()) {
+                log.warn("Tick of game {} is full, rejecting {} command(s).", id, commands.size());
+                throw new CommandQueueFullException("Too many pending commands for game " + id + ", please retry.");
+            }
+            if (tick == null) {
+                tick = new Tick();
+                scheduler.schedule(() -> close(id), config.getCommands().getTickMillis(), TimeUnit.MILLISECONDS);
+            }
+            for (UnitCommandRequestDTO command : commands) {
+                CompletableFuture<CommandOutcome> result = new CompletableFuture<>();
+                tick.commands.add(command);
+                tick.results.add(result);
+                results.add(result);
+            }
+            return tick;
+        });
+        return results;
+    }
+
+    private static CommandOutcome await(CompletableFuture<CommandOutcome> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    private static CommandOutcome orThrow(CommandOutcome outcome) {
+        if (outcome.getRejection() != null) {
+            throw outcome.getRejection();
+        }
+        return outcome;
+    }
+
+    private void close(Long gameId) {
+        Tick tick = openTicks.remove(gameId); // later commands open the next tick
+        CompletableFuture<List<CommandOutcome>> resolved;
+        try {
+            // handed to the game's writer without waiting, so a slow game does not hold up this thread
+            resolved = commandExecutor.executeAsync(gameId, () -> commandService.resolveTick(gameId, tick.commands));
+        } catch (RuntimeException | Error e) {
+            resolved = CompletableFuture.failedFuture(e);
+        }
+        resolved.whenComplete((outcomes, failure) -> {
+            if (failure != null) {
+                // nothing of the tick was applied
+                tick.results.forEach(result -> result.completeExceptionally(failure));
+                return;
+            }
+            for (int i = 0; i < outcomes.size(); i++) {
+                tick.results.get(i).complete(outcomes.get(i));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown(); // ticks already scheduled still close
+    }
+
+    private static final class Tick {
+        private final List<UnitCommandRequestDTO> commands = new ArrayList<>();
+        private final List<CompletableFuture<CommandOutcome>> results = new ArrayList<>();
+    }
+}
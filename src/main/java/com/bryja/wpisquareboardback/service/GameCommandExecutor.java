@@ -0,0 +1,147 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.event.GameStartedEvent;
+import com.bryja.wpisquareboardback.exception.CommandQueueFullException;
+import com.bryja.wpisquareboardback.exception.GameNotFoundException;
+import com.bryja.wpisquareboardback.repository.GameRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs the commands of a game one after another on a dedicated writer thread (a mailbox per game), so commands
+ * for the same game never contend for its state or rows. Callers block until their command has been applied.
+ * With {@code game.commands.single-writer=false} commands run on the calling thread instead.
+ * <p>
+ * Mailboxes are opened for existing games only and dropped when the game finishes or its writer has been idle
+ * for {@code game.commands.writer-keep-alive-millis} with nothing queued. Commands are handed to a mailbox and
+ * mailboxes are dropped inside the map's atomic operations, so a command never lands in a dropped mailbox.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GameCommandExecutor {
+
+    private static final ThreadLocal<Long> CURRENT_GAME = new ThreadLocal<>();
+
+    private final GameConfigProperties config;
+    private final GameRepository gameRepository;
+    private final ConcurrentMap<Long, ThreadPoolExecutor> mailboxes = new ConcurrentHashMap<>();
+
+    public <T> T execute(Long gameId, Supplier<T> command) {
+        try {
+            return executeAsync(gameId, command).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    /**
+     * Queues the command like {@link #execute} without waiting for it. An unknown game or a full mailbox is
+     * thrown right away; what the command throws completes the returned future.
+     */
+    public <T> CompletableFuture<T> executeAsync(Long gameId, Supplier<T> command) {
+        if (!config.getCommands().isSingleWriter() || CURRENT_GAME.get() != null) {
+            // already on a writer thread (or disabled), queueing again could only deadlock
+            try {
+                return CompletableFuture.completedFuture(command.get());
+            } catch (RuntimeException | Error e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        if (!mailboxes.containsKey(gameId) && !gameRepository.existsById(gameId)) {
+            throw new GameNotFoundException("Game not found with ID: " + gameId);
+        }
+
+        try {
+            return submit(gameId, command);
+        } catch (RejectedExecutionException e) {
+            log.warn("Command mailbox of game {} is full, rejecting command.", gameId);
+            throw new CommandQueueFullException("Too many pending commands for game " + gameId + ", please retry.");
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGameStarted(GameStartedEvent event) {
+        if (event.getFinishedGameId() == null) return;
+        ThreadPoolExecutor mailbox = mailboxes.remove(event.getFinishedGameId());
+        if (mailbox != null) {
+            mailbox.shutdown(); // commands already queued still run
+        }
+    }
+
+    int mailboxCount() {
+        return mailboxes.size();
+    }
+
+    private <T> CompletableFuture<T> submit(Long gameId, Supplier<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                result.complete(command.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        };
+        mailboxes.compute(gameId, (id, mailbox) -> {
+            ThreadPoolExecutor target = mailbox != null ? mailbox : newMailbox(id);
+            target.execute(task);
+            return target;
+        });
+        return result;
+    }
+
+    private ThreadPoolExecutor newMailbox(Long gameId) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                config.getCommands().getWriterKeepAliveMillis(), TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(config.getCommands().getMailboxCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(() -> {
+                        CURRENT_GAME.set(gameId);
+                        try {
+                            runnable.run();
+                        } finally {
+                            dropIfIdle(gameId);
+                        }
+                    }, "game-" + gameId + "-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        // the writer gives up its thread when idle, and takes the mailbox with it if nothing was queued meanwhile
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void dropIfIdle(Long gameId) {
+        ThreadPoolExecutor[] dropped = new ThreadPoolExecutor[1];
+        mailboxes.computeIfPresent(gameId, (id, mailbox) -> {
+            if (mailbox.getPoolSize() > 0 || !mailbox.getQueue().isEmpty()) return mailbox;
+            dropped[0] = mailbox;
+            return null;
+        });
+        if (dropped[0] != null) {
+            dropped[0].shutdown();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        mailboxes.values().forEach(ThreadPoolExecutor::shutdown);
+        for (ThreadPoolExecutor executor : mailboxes.values()) {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Command writer did not drain in time, {} commands dropped.", executor.shutdownNow().size());
+            }
+        }
+    }
+}
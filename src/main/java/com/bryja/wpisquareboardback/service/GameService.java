@@ -4,17 +4,18 @@ import com.bryja.wpisquareboardback.repository.*;
 import com.bryja.wpisquareboardback.model.*;
 import com.bryja.wpisquareboardback.config.*;
 import com.bryja.wpisquareboardback.exception.*;
+import com.bryja.wpisquareboardback.event.GameStartedEvent;
+import com.bryja.wpisquareboardback.state.GameStateStore;
+import com.bryja.wpisquareboardback.util.GameRandom;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.security.SecureRandom;
 import java.time.Instant;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -22,28 +23,33 @@ import java.util.Set;
 public class GameService {
 
     private final GameRepository gameRepository;
-    private final UnitRepository unitRepository;
     private final GameConfigProperties config;
-    private final SecureRandom random = new SecureRandom();
+    private final GameStateStore gameStateStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final GameRandom gameRandom;
 
     @Transactional
     public Game createNewGame() {
         log.info("Attempting to create a new game.");
 
 
-        gameRepository.findByStatus(GameStatus.ACTIVE).ifPresent(activeGame -> {
+        Long finishedGameId = gameRepository.findByStatus(GameStatus.ACTIVE).map(activeGame -> {
             log.warn("Found existing active game ID: {}. Marking as FINISHED.", activeGame.getId());
             activeGame.setStatus(GameStatus.FINISHED);
             activeGame.setFinishedAt(Instant.now());
             gameRepository.save(activeGame);
-
-        });
+            gameStateStore.evict(activeGame.getId());
+            return activeGame.getId();
+        }).orElse(null);
 
 
         Game newGame = new Game(config.getBoard().getWidth(), config.getBoard().getHeight());
+        newGame.setRandomSeed(gameRandom.newSeed());
         placeInitialUnits(newGame);
 
         Game savedGame = gameRepository.save(newGame);
+        gameStateStore.track(savedGame);
+        eventPublisher.publishEvent(new GameStartedEvent(savedGame.getId(), finishedGameId));
         log.info("Successfully created and saved new game with ID: {}", savedGame.getId());
         return savedGame;
     }
@@ -58,11 +64,15 @@ public class GameService {
     }
 
 
-    private void placeInitialUnits(Game game) {
+    void placeInitialUnits(Game game) { // package-private for InitialPlacementBenchmark
         int width = game.getBoardWidth();
         int height = game.getBoardHeight();
         int maxUnits = width * height;
-        int totalInitialUnits = config.getTotalInitialUnits() * 2; // For both players
+        GameConfigProperties.Units.Initial initial = config.getUnits().getInitial();
+        int archers = initial.getArchers();
+        int vehicles = initial.getVehicles();
+        int perPlayer = archers + vehicles + initial.getCannons();
+        int totalInitialUnits = perPlayer * 2; // For both players
 
         if (totalInitialUnits > maxUnits) {
             throw new InvalidCommandException(String.format(
@@ -70,56 +80,34 @@ public class GameService {
                     totalInitialUnits, width, height, maxUnits));
         }
 
-        Set<Position> occupiedPositions = new HashSet<>();
-
-        placeUnitsForPlayer(game, PlayerColor.WHITE, config.getUnits().getInitial().getArchers(), UnitType.ARCHER, occupiedPositions);
-        placeUnitsForPlayer(game, PlayerColor.WHITE, config.getUnits().getInitial().getVehicles(), UnitType.VEHICLE, occupiedPositions);
-        placeUnitsForPlayer(game, PlayerColor.WHITE, config.getUnits().getInitial().getCannons(), UnitType.CANNON, occupiedPositions);
-
-        placeUnitsForPlayer(game, PlayerColor.BLACK, config.getUnits().getInitial().getArchers(), UnitType.ARCHER, occupiedPositions);
-        placeUnitsForPlayer(game, PlayerColor.BLACK, config.getUnits().getInitial().getVehicles(), UnitType.VEHICLE, occupiedPositions);
-        placeUnitsForPlayer(game, PlayerColor.BLACK, config.getUnits().getInitial().getCannons(), UnitType.CANNON, occupiedPositions);
+        int[][] squares = config.getUnits().getPlacement().squares(width, height, perPlayer,
+                gameRandom.placement(game.getRandomSeed()));
+        List<Unit> units = new ArrayList<>(totalInitialUnits);
+        for (PlayerColor color : PlayerColor.values()) {
+            int[] playerSquares = squares[color.ordinal()];
+            for (int i = 0; i < perPlayer; i++) {
+                UnitType type = i < archers ? UnitType.ARCHER
+                        : i < archers + vehicles ? UnitType.VEHICLE
+                        : UnitType.CANNON;
+                Position position = new Position(playerSquares[i] % width, playerSquares[i] / width);
+                units.add(newUnit(game, color, type, position));
+            }
+        }
+        game.addUnits(units);
 
         log.info("Placed {} initial units for game.", game.getUnits().size());
     }
 
-    private void placeUnitsForPlayer(Game game, PlayerColor color, int count, UnitType type, Set<Position> occupied) {
-        for (int i = 0; i < count; i++) {
-            Position randomPos;
-            int attempts = 0;
-            do {
-                randomPos = new Position(
-                        random.nextInt(game.getBoardWidth()),
-                        random.nextInt(game.getBoardHeight())
-                );
-                attempts++;
-                if (attempts > game.getBoardWidth() * game.getBoardHeight() * 2) { // Safety break
-                    log.error("Could not find unique position after {} attempts for {} {} unit {}. Check board size/unit count.", attempts, color, type, i+1);
-                    throw new RuntimeException("Failed to place units randomly, too many attempts. Board might be too full.");
-                }
-            } while (occupied.contains(randomPos));
-
-            occupied.add(randomPos);
-            Unit unit;
-            switch (type) {
-                case ARCHER: unit = new Archer(game, color, randomPos); break;
-                case VEHICLE: unit = new Vehicle(game, color, randomPos); break;
-                case CANNON: unit = new Cannon(game, color, randomPos); break;
-                default: throw new IllegalArgumentException("Unknown unit type to place: " + type);
-            }
-            unit.setUnitType(type);
-            game.addUnit(unit);
-            // log.debug("Placed {} {} at {},{}", color, type, randomPos.getX(), randomPos.getY());
+    private Unit newUnit(Game game, PlayerColor color, UnitType type, Position position) {
+        Unit unit;
+        switch (type) {
+            case ARCHER: unit = new Archer(game, color, position); break;
+            case VEHICLE: unit = new Vehicle(game, color, position); break;
+            case CANNON: unit = new Cannon(game, color, position); break;
+            default: throw new IllegalArgumentException("Unknown unit type to place: " + type);
         }
+        unit.setUnitType(type);
+        return unit;
     }
 
-
-    public Optional<Unit> findUnitAtPosition(Long gameId, Position position) {
-        if (position == null) return Optional.empty();
-        return unitRepository.findByGameIdAndPositionAndStatus(gameId, position, UnitStatus.ACTIVE);
-    }
-    public Optional<Unit> findUnitAtPositionForUpdate(Long gameId, Position position) {
-        if (position == null) return Optional.empty();
-        return unitRepository.findByGameIdAndPositionAndStatusForUpdate(gameId, position, UnitStatus.ACTIVE);
-    }
 }
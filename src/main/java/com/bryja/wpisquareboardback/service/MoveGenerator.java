@@ -0,0 +1,57 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import com.bryja.wpisquareboardback.state.GameState;
+import com.bryja.wpisquareboardback.state.RuleTables;
+import com.bryja.wpisquareboardback.state.UnitState;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Enumerates the commands a unit can issue right now without throwing: candidates come from the offsets in the
+ * {@link RuleTables}, and each one is checked against the board bounds and the occupancy bitboards. Only legal
+ * targets are generated.
+ */
+@Component
+public class MoveGenerator {
+
+    private final RuleTables ruleTables;
+
+    public MoveGenerator(RuleTables ruleTables) {
+        this.ruleTables = ruleTables;
+    }
+
+    /**
+     * Squares (as {@code y * width + x}) the unit can target with the command right now.
+     */
+    public int[] legalTargets(GameState state, UnitState unit, CommandType commandType) {
+        int[] offsets = ruleTables.offsets(unit.getUnitType(), commandType);
+        int[] targets = new int[offsets.length / 2];
+        int count = 0;
+        int x = unit.getPosition().getX();
+        int y = unit.getPosition().getY();
+        for (int i = 0; i < offsets.length; i += 2) {
+            int targetX = x + offsets[i];
+            int targetY = y + offsets[i + 1];
+            if (isLegal(state, unit, commandType, targetX, targetY)) {
+                targets[count++] = targetY * state.getBoardWidth() + targetX;
+            }
+        }
+        return count == targets.length ? targets : Arrays.copyOf(targets, count);
+    }
+
+    private boolean isLegal(GameState state, UnitState unit, CommandType commandType, int targetX, int targetY) {
+        if (targetX < 0 || targetX >= state.getBoardWidth() || targetY < 0 || targetY >= state.getBoardHeight()) {
+            return false;
+        }
+        if (commandType == CommandType.SHOOT) {
+            return true; // shots resolve on any square, a miss is still a successful command
+        }
+        PlayerColor occupant = state.occupantColor(targetY * state.getBoardWidth() + targetX);
+        if (occupant == null) return true;
+        if (occupant == unit.getPlayerColor()) return false;
+        return ruleTables.runsOver(unit.getUnitType()); // only unit types that run over enemies may move onto them
+    }
+}
@@ -0,0 +1,153 @@
+package com.bryja.wpisquareboardback.simulation;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import com.bryja.wpisquareboardback.model.UnitType;
+import com.bryja.wpisquareboardback.util.GameRandom;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many {@link BattleSimulator} games of one configuration in parallel and aggregates them into a
+ * {@link Report}. The games are split across a {@link ForkJoinPool}; each game runs on one worker from start to
+ * end and shares nothing but the read-only configuration. The seeds are drawn up front from {@link GameRandom},
+ * so with {@code game.seed} set a run gives the same report whatever the pool size.
+ */
+public class BalanceSimulation {
+
+    private static final int GAMES_PER_TASK = 16;
+
+    private final GameConfigProperties config;
+    private final BattleSimulator simulator;
+
+    public BalanceSimulation(GameConfigProperties config) {
+        this.config = config;
+        this.simulator = new BattleSimulator(config);
+    }
+
+    public record Report(int games, double whiteWinRate, double blackWinRate, double drawRate,
+                         double meanSeconds, long p50Seconds, long p90Seconds, long maxSeconds,
+                         Map<UnitType, Double> survivalRate) {
+    }
+
+    public Report run(int games, BotPolicy whitePolicy, BotPolicy blackPolicy, long maxSeconds, ForkJoinPool pool) {
+        if (games <= 0) {
+            throw new IllegalArgumentException("At least one game is needed, got " + games);
+        }
+        GameRandom gameRandom = new GameRandom(config);
+        long[] seeds = new long[games];
+        for (int i = 0; i < games; i++) {
+            seeds[i] = gameRandom.newSeed();
+        }
+        long[] seconds = new long[games];
+        Stats stats = pool.invoke(new Games(seeds, seconds, 0, games, whitePolicy, blackPolicy, maxSeconds));
+        return stats.report();
+    }
+
+    private class Games extends RecursiveTask<Stats> {
+
+        private final long[] seeds;
+        private final long[] seconds;
+        private final int from;
+        private final int to;
+        private final BotPolicy whitePolicy;
+        private final BotPolicy blackPolicy;
+        private final long maxSeconds;
+
+        Games(long[] seeds, long[] seconds, int from, int to, BotPolicy whitePolicy, BotPolicy blackPolicy, long maxSeconds) {
+            this.seeds = seeds;
+            this.seconds = seconds;
+            this.from = from;
+            this.to = to;
+            this.whitePolicy = whitePolicy;
+            this.blackPolicy = blackPolicy;
+            this.maxSeconds = maxSeconds;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                Stats stats = new Stats(seconds);
+                for (int i = from; i < to; i++) {
+                    stats.add(i, simulator.play(seeds[i], whitePolicy, blackPolicy, maxSeconds));
+                }
+                return stats;
+            }
+            int middle = (from + to) >>> 1;
+            Games left = new Games(seeds, seconds, from, middle, whitePolicy, blackPolicy, maxSeconds);
+            Games right = new Games(seeds, seconds, middle, to, whitePolicy, blackPolicy, maxSeconds);
+            left.fork();
+            return right.compute().merge(left.join());
+        }
+    }
+
+    /**
+     * Partial results of a range of games. Game lengths are stored by game index in an array shared by the
+     * whole run, each task writing only its own range, so merging is a matter of adding counters.
+     */
+    private static final class Stats {
+
+        private final long[] seconds;
+        private int games;
+        private final int[] wins = new int[PlayerColor.values().length];
+        private int draws;
+        private final long[] initial = new long[UnitType.values().length];
+        private final long[] survivors = new long[UnitType.values().length];
+
+        Stats(long[] seconds) {
+            this.seconds = seconds;
+        }
+
+        void add(int index, BattleSimulator.Result result) {
+            games++;
+            seconds[index] = result.seconds();
+            if (result.winner() != null) {
+                wins[result.winner().ordinal()]++;
+            } else {
+                draws++;
+            }
+            for (PlayerColor color : PlayerColor.values()) {
+                for (UnitType type : UnitType.values()) {
+                    initial[type.ordinal()] += result.initial()[color.ordinal()][type.ordinal()];
+                    survivors[type.ordinal()] += result.survivors()[color.ordinal()][type.ordinal()];
+                }
+            }
+        }
+
+        Stats merge(Stats other) {
+            games += other.games;
+            draws += other.draws;
+            for (int i = 0; i < wins.length; i++) wins[i] += other.wins[i];
+            for (int i = 0; i < initial.length; i++) {
+                initial[i] += other.initial[i];
+                survivors[i] += other.survivors[i];
+            }
+            return this;
+        }
+
+        Report report() {
+            long[] sorted = seconds.clone();
+            Arrays.sort(sorted);
+            double mean = Arrays.stream(sorted).average().orElse(0);
+            Map<UnitType, Double> survival = new EnumMap<>(UnitType.class);
+            for (UnitType type : UnitType.values()) {
+                long placed = initial[type.ordinal()];
+                survival.put(type, placed == 0 ? 0.0 : (double) survivors[type.ordinal()] / placed);
+            }
+            return new Report(games,
+                    (double) wins[PlayerColor.WHITE.ordinal()] / games,
+                    (double) wins[PlayerColor.BLACK.ordinal()] / games,
+                    (double) draws / games,
+                    mean, percentile(sorted, 0.5), percentile(sorted, 0.9), sorted[sorted.length - 1],
+                    survival);
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)];
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.bryja.wpisquareboardback.simulation;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.model.*;
+import com.bryja.wpisquareboardback.service.MoveGenerator;
+import com.bryja.wpisquareboardback.state.GameState;
+import com.bryja.wpisquareboardback.state.RuleTables;
+import com.bryja.wpisquareboardback.state.UnitState;
+import com.bryja.wpisquareboardback.util.GameRandom;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays one bot-vs-bot game without Spring or a database, on the same {@link GameState} the command path uses.
+ * Legal targets come from the {@link MoveGenerator}, placement from the configured {@code UnitPlacement}, and
+ * cooldowns from the {@link RuleTables}, measured against a simulated clock that advances one second per round.
+ * Shots and run-overs resolve as in {@code CommandService}. Every unit that is off cooldown acts once per round,
+ * in random order.
+ * <p>
+ * A game is played on one thread only. Its state is never shared, so the game lock is not taken.
+ */
+public class BattleSimulator {
+
+    private static final long NEVER = Long.MIN_VALUE / 2;
+    private static final int[] NONE = new int[0];
+
+    private final GameConfigProperties config;
+    private final MoveGenerator moveGenerator;
+    private final GameRandom gameRandom;
+    private final RuleTables ruleTables;
+
+    public BattleSimulator(GameConfigProperties config) {
+        this.config = config;
+        this.ruleTables = new RuleTables(config);
+        this.moveGenerator = new MoveGenerator(ruleTables);
+        this.gameRandom = new GameRandom(config);
+    }
+
+    public record Result(PlayerColor winner, long seconds, int[][] initial, int[][] survivors) {
+    }
+
+    /**
+     * Plays a game from its seed until one player has no units left, or until {@code maxSeconds} of simulated
+     * time have passed (a draw). The same seed and policies always give the same game.
+     */
+    public Result play(long seed, BotPolicy whitePolicy, BotPolicy blackPolicy, long maxSeconds) {
+        GameState state = new GameState(seed, config.getBoard().getWidth(), config.getBoard().getHeight(), placeUnits(seed));
+        RandomGenerator random = gameRandom.commands(seed);
+        List<UnitState> units = state.getActiveUnits();
+        int[][] initial = count(units);
+        long[] lastAction = new long[units.size()];
+        Arrays.fill(lastAction, NEVER);
+        int[] order = new int[units.size()];
+
+        long clock = 0;
+        while (clock <= maxSeconds) {
+            for (int i = 0; i < order.length; i++) {
+                int j = random.nextInt(i + 1); // inside-out shuffle of the acting order
+                order[i] = order[j];
+                order[j] = i;
+            }
+            for (int index : order) {
+                UnitState unit = units.get(index);
+                if (!unit.isActive()) continue;
+                BotPolicy policy = unit.getPlayerColor() == PlayerColor.WHITE ? whitePolicy : blackPolicy;
+                if (act(state, unit, policy, clock, lastAction[index], random)) {
+                    lastAction[index] = clock;
+                }
+            }
+            int[][] alive = count(units);
+            boolean whiteAlive = sum(alive[PlayerColor.WHITE.ordinal()]) > 0;
+            boolean blackAlive = sum(alive[PlayerColor.BLACK.ordinal()]) > 0;
+            if (!whiteAlive || !blackAlive) {
+                PlayerColor winner = whiteAlive ? PlayerColor.WHITE : blackAlive ? PlayerColor.BLACK : null;
+                return new Result(winner, clock, initial, alive);
+            }
+            clock++;
+        }
+        return new Result(null, maxSeconds, initial, count(units));
+    }
+
+    private List<UnitState> placeUnits(long seed) {
+        int width = config.getBoard().getWidth();
+        int height = config.getBoard().getHeight();
+        GameConfigProperties.Units.Initial initial = config.getUnits().getInitial();
+        int perPlayer = initial.getArchers() + initial.getVehicles() + initial.getCannons();
+        if (perPlayer * 2 > width * height) {
+            throw new IllegalArgumentException(String.format("Cannot place %d units on a %dx%d board.", perPlayer * 2, width, height));
+        }
+        int[][] squares = config.getUnits().getPlacement().squares(width, height, perPlayer, gameRandom.placement(seed));
+        List<UnitState> units = new ArrayList<>(perPlayer * 2);
+        long id = 1;
+        for (PlayerColor color : PlayerColor.values()) {
+            for (int i = 0; i < perPlayer; i++) {
+                UnitType type = i < initial.getArchers() ? UnitType.ARCHER
+                        : i < initial.getArchers() + initial.getVehicles() ? UnitType.VEHICLE
+                        : UnitType.CANNON;
+                int square = squares[color.ordinal()][i];
+                units.add(new UnitState(id++, seed, color, type, new Position(square % width, square / width),
+                        UnitStatus.ACTIVE, 0, Instant.EPOCH, 0L));
+            }
+        }
+        return units;
+    }
+
+    /**
+     * Lets a unit issue one command if any of its actions is off cooldown and has a legal target.
+     */
+    private boolean act(GameState state, UnitState unit, BotPolicy policy, long clock, long lastAction, RandomGenerator random) {
+        int[] moves = ready(unit, CommandType.MOVE, clock, lastAction) ? moveGenerator.legalTargets(state, unit, CommandType.MOVE) : NONE;
+        int[] shots = ready(unit, CommandType.SHOOT, clock, lastAction) ? moveGenerator.legalTargets(state, unit, CommandType.SHOOT) : NONE;
+        if (moves.length + shots.length == 0) return false;
+
+        PlayerColor enemy = unit.getPlayerColor() == PlayerColor.WHITE ? PlayerColor.BLACK : PlayerColor.WHITE;
+        if (policy == BotPolicy.GREEDY) {
+            int target = pickOccupiedBy(state, shots, enemy, random);
+            if (target >= 0) {
+                shoot(state, unit, target, clock);
+                return true;
+            }
+            target = pickOccupiedBy(state, moves, enemy, random); // only units that run over enemies get their squares as move targets
+            if (target < 0) {
+                if (moves.length == 0) return false;
+                target = moves[random.nextInt(moves.length)];
+            }
+            move(state, unit, target, clock);
+            return true;
+        }
+        int pick = random.nextInt(moves.length + shots.length);
+        if (pick < moves.length) {
+            move(state, unit, moves[pick], clock);
+        } else {
+            shoot(state, unit, shots[pick - moves.length], clock);
+        }
+        return true;
+    }
+
+    private boolean ready(UnitState unit, CommandType commandType, long clock, long lastAction) {
+        return ruleTables.allowed(unit.getUnitType(), commandType)
+                && clock - lastAction >= ruleTables.cooldown(unit.getUnitType(), commandType).getSeconds();
+    }
+
+    private static int pickOccupiedBy(GameState state, int[] squares, PlayerColor color, RandomGenerator random) {
+        int found = 0;
+        int picked = -1;
+        for (int square : squares) {
+            if (state.occupantColor(square) == color && random.nextInt(++found) == 0) { // reservoir sampling
+                picked = square;
+            }
+        }
+        return picked;
+    }
+
+    private static void move(GameState state, UnitState unit, int square, long clock) {
+        Position target = new Position(square % state.getBoardWidth(), square / state.getBoardWidth());
+        // the move generator only offers an occupied square to units that run over enemies, and only when an enemy holds it
+        state.findActiveUnitAt(target).ifPresent(state::destroyUnit);
+        state.moveUnit(unit, target);
+        state.recordAction(unit, Instant.ofEpochSecond(clock), true);
+    }
+
+    private static void shoot(GameState state, UnitState unit, int square, long clock) {
+        Position target = new Position(square % state.getBoardWidth(), square / state.getBoardWidth());
+        state.findActiveUnitAt(target).ifPresent(state::destroyUnit); // allies too
+        state.recordAction(unit, Instant.ofEpochSecond(clock), false);
+    }
+
+    private static int[][] count(List<UnitState> units) {
+        int[][] counts = new int[PlayerColor.values().length][UnitType.values().length];
+        for (UnitState unit : units) {
+            if (unit.isActive()) counts[unit.getPlayerColor().ordinal()][unit.getUnitType().ordinal()]++;
+        }
+        return counts;
+    }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) total += count;
+        return total;
+    }
+}
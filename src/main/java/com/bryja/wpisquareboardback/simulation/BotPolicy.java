@@ -0,0 +1,13 @@
+package com.bryja.wpisquareboardback.simulation;
+
+/**
+ * How a simulated player picks the command of a unit that is off cooldown.
+ */
+public enum BotPolicy {
+
+    /** Any legal, ready command with equal probability, like {@code POST /command/random}. */
+    RANDOM,
+
+    /** Shoots an enemy or runs one over when possible, otherwise moves at random; never shoots empty or ally squares. */
+    GREEDY
+}
@@ -0,0 +1,26 @@
+package com.bryja.wpisquareboardback.state;
+
+/**
+ * Fixed size bitset over the squares of a board, one bit per square ({@code y * width + x}).
+ * Backed by a {@code long[]} so boards of any size are supported.
+ */
+public final class BitBoard {
+
+    private final long[] words;
+
+    public BitBoard(int size) {
+        this.words = new long[(size + 63) >>> 6];
+    }
+
+    public boolean get(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public void set(int index) {
+        words[index >>> 6] |= 1L << index;
+    }
+
+    public void clear(int index) {
+        words[index >>> 6] &= ~(1L << index);
+    }
+}
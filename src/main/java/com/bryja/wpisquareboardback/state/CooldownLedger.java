@@ -0,0 +1,98 @@
+package com.bryja.wpisquareboardback.state;
+
+import com.bryja.wpisquareboardback.event.CommandExecutedEvent;
+import com.bryja.wpisquareboardback.exception.CooldownException;
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers, per unit and action, when the unit may act again, as of the last committed command. Lets the web
+ * layer turn away commands that are still on cooldown without a transaction or any database access; anything
+ * the ledger does not know about (other game, other player, no entry) goes through the normal command path,
+ * which stays the authority on cooldowns.
+ */
+@Component
+@RequiredArgsConstructor
+public class CooldownLedger {
+
+    private static final int SWEEP_EVERY_RECORDS = 1024;
+
+    private final RuleTables ruleTables;
+    private final ConcurrentMap<Key, Entry> readyAt = new ConcurrentHashMap<>();
+    private final AtomicInteger recordsSinceSweep = new AtomicInteger();
+
+    private record Key(Long unitId, CommandType commandType) {}
+
+    private record Entry(Long gameId, PlayerColor playerColor, Instant readyAt) {}
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCommandExecuted(CommandExecutedEvent event) {
+        for (CommandType commandType : new CommandType[]{CommandType.MOVE, CommandType.SHOOT}) {
+            if (!ruleTables.allowed(event.getUnitType(), commandType)) continue;
+            Entry entry = new Entry(event.getGameId(), event.getPlayerColor(),
+                    event.getActionTimestamp().plus(ruleTables.cooldown(event.getUnitType(), commandType)));
+            // commands of a batch commit together, keep the latest one whatever order they arrive in
+            readyAt.merge(new Key(event.getUnitId(), commandType), entry,
+                    (current, next) -> next.readyAt().isAfter(current.readyAt()) ? next : current);
+        }
+        if (recordsSinceSweep.incrementAndGet() >= SWEEP_EVERY_RECORDS) {
+            recordsSinceSweep.set(0);
+            Instant now = Instant.now();
+            readyAt.values().removeIf(entry -> !entry.readyAt().isAfter(now));
+        }
+    }
+
+    /**
+     * Time left until the unit may perform the action again, zero when it may (or when the ledger can't tell).
+     */
+    public Duration remaining(Long gameId, Long unitId, PlayerColor playerColor, CommandType commandType) {
+        Entry entry = readyAt.get(new Key(unitId, commandType));
+        if (entry == null || !entry.gameId().equals(gameId) || entry.playerColor() != playerColor) {
+            return Duration.ZERO;
+        }
+        Duration remaining = Duration.between(Instant.now(), entry.readyAt());
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    public void checkCooldown(Long gameId, Long unitId, PlayerColor playerColor, CommandType commandType) {
+        Duration remaining = remaining(gameId, unitId, playerColor, commandType);
+        if (!remaining.isZero()) {
+            throw cooldownException(unitId, commandType, remaining);
+        }
+    }
+
+    /**
+     * Rejects a random command when every action the unit has is known to be on cooldown.
+     */
+    public void checkAnyActionReady(Long gameId, Long unitId, PlayerColor playerColor) {
+        CommandType soonest = null;
+        Duration soonestRemaining = null;
+        for (CommandType commandType : new CommandType[]{CommandType.MOVE, CommandType.SHOOT}) {
+            if (!readyAt.containsKey(new Key(unitId, commandType))) continue;
+            Duration remaining = remaining(gameId, unitId, playerColor, commandType);
+            if (remaining.isZero()) return;
+            if (soonestRemaining == null || remaining.compareTo(soonestRemaining) < 0) {
+                soonest = commandType;
+                soonestRemaining = remaining;
+            }
+        }
+        if (soonest != null) {
+            throw cooldownException(unitId, soonest, soonestRemaining);
+        }
+    }
+
+    private CooldownException cooldownException(Long unitId, CommandType commandType, Duration remaining) {
+        return new CooldownException(String.format("Unit %d cannot perform %s yet. Cooldown remaining: %.1f seconds.",
+                unitId, commandType, remaining.toMillis() / 1000.0), remaining);
+    }
+}
@@ -0,0 +1,160 @@
+package com.bryja.wpisquareboardback.state;
+
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import com.bryja.wpisquareboardback.model.Position;
+import com.bryja.wpisquareboardback.model.UnitStatus;
+import com.bryja.wpisquareboardback.util.GameRandom;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.random.RandomGenerator;
+
+/**
+ * Authoritative in-memory state of one game: every unit, one occupancy {@link BitBoard} per player and an array
+ * of the active unit on each square. The bitboards are the occupancy: they answer whether and by whom a square is
+ * held, and the array is only read to get the unit itself. Commands validate and resolve against this object; the
+ * database only receives the resulting writes.
+ * Mutations must happen while holding the game lock handed out by {@link GameStateStore#lock(Long)}.
+ */
+public class GameState {
+
+    @Getter
+    private final Long gameId;
+    @Getter
+    private final int boardWidth;
+    @Getter
+    private final int boardHeight;
+    // random commands are drawn from it, see GameRandom
+    private final long commandSeed;
+
+    private final Map<Long, UnitState> units = new LinkedHashMap<>();
+    private final BitBoard[] occupiedBy = new BitBoard[PlayerColor.values().length];
+    private final UnitState[] unitAt;
+    private int activeUnitCount;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // bumped on every mutation, lets the store tell whether a rolled back command left changes behind
+    @Getter
+    private long modCount;
+
+    public GameState(Long gameId, int boardWidth, int boardHeight, Collection<UnitState> units) {
+        this(gameId, boardWidth, boardHeight, units, new SplittableRandom().nextLong());
+    }
+
+    public GameState(Long gameId, int boardWidth, int boardHeight, Collection<UnitState> units, long commandSeed) {
+        this.gameId = gameId;
+        this.commandSeed = commandSeed;
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        for (PlayerColor color : PlayerColor.values()) {
+            occupiedBy[color.ordinal()] = new BitBoard(boardWidth * boardHeight);
+        }
+        this.unitAt = new UnitState[boardWidth * boardHeight];
+        for (UnitState unit : units) {
+            this.units.put(unit.getId(), unit);
+            if (unit.isActive()) {
+                occupy(cellIndex(unit.getPosition()), unit);
+                activeUnitCount++;
+            }
+        }
+    }
+
+    public Optional<UnitState> findUnit(Long unitId) {
+        return Optional.ofNullable(units.get(unitId));
+    }
+
+    /**
+     * Draw for the unit's next random command. It moves on with the unit's version, i.e. with every write of the unit.
+     */
+    public RandomGenerator randomFor(UnitState unit) {
+        return GameRandom.command(commandSeed, unit.getId(), unit.getVersion() != null ? unit.getVersion() : 0L);
+    }
+
+    public Optional<UnitState> findActiveUnitAt(Position position) {
+        if (position == null || !isWithinBounds(position)) return Optional.empty();
+        int cell = cellIndex(position);
+        return occupantColor(cell) == null ? Optional.empty() : Optional.of(unitAt[cell]);
+    }
+
+    /**
+     * Colour of the active unit on a square, or null if the square is empty. Only touches the bitboards.
+     */
+    public PlayerColor occupantColor(int cell) {
+        for (PlayerColor color : PlayerColor.values()) {
+            if (occupiedBy[color.ordinal()].get(cell)) return color;
+        }
+        return null;
+    }
+
+    public int cellIndex(Position position) {
+        return position.getY() * boardWidth + position.getX();
+    }
+
+    public List<UnitState> getActiveUnits() {
+        List<UnitState> active = new ArrayList<>(activeUnitCount);
+        for (UnitState unit : units.values()) {
+            if (unit.isActive()) active.add(unit);
+        }
+        return active;
+    }
+
+    /**
+     * Number of active units. May be read without the game lock, at worst it is one command behind.
+     */
+    public int activeUnitCount() {
+        return activeUnitCount;
+    }
+
+    public boolean isWithinBounds(Position position) {
+        return position.getX() >= 0 && position.getX() < boardWidth &&
+                position.getY() >= 0 && position.getY() < boardHeight;
+    }
+
+    public void moveUnit(UnitState unit, Position target) {
+        int targetCell = cellIndex(target);
+        int sourceCell = cellIndex(unit.getPosition());
+        if (targetCell != sourceCell && occupantColor(targetCell) != null) {
+            throw new IllegalStateException("Square " + target + " is still held by unit " + unitAt[targetCell].getId());
+        }
+        vacate(sourceCell, unit);
+        occupy(targetCell, unit);
+        unit.setPosition(new Position(target.getX(), target.getY()));
+        modCount++;
+    }
+
+    public void destroyUnit(UnitState unit) {
+        if (!unit.isActive()) return;
+        vacate(cellIndex(unit.getPosition()), unit);
+        activeUnitCount--;
+        unit.setStatus(UnitStatus.DESTROYED);
+        modCount++;
+    }
+
+    public void recordAction(UnitState unit, Instant timestamp, boolean moved) {
+        unit.setLastActionTimestamp(timestamp);
+        if (moved) {
+            unit.setMoveCount(unit.getMoveCount() + 1);
+        }
+        modCount++;
+    }
+
+    private void occupy(int cell, UnitState unit) {
+        occupiedBy[unit.getPlayerColor().ordinal()].set(cell);
+        unitAt[cell] = unit;
+    }
+
+    private void vacate(int cell, UnitState unit) {
+        occupiedBy[unit.getPlayerColor().ordinal()].clear(cell);
+        unitAt[cell] = null;
+    }
+
+    void lock() {
+        lock.lock();
+    }
+
+    void unlock() {
+        lock.unlock();
+    }
+}
@@ -0,0 +1,146 @@
+package com.bryja.wpisquareboardback.state;
+
+import com.bryja.wpisquareboardback.exception.GameNotFoundException;
+import com.bryja.wpisquareboardback.model.*;
+import com.bryja.wpisquareboardback.repository.GameRepository;
+import com.bryja.wpisquareboardback.repository.UnitRepository;
+import com.bryja.wpisquareboardback.util.GameRandom;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the {@link GameState} of the active game. States are loaded from the database once (eagerly on startup,
+ * lazily otherwise) and then kept in sync by the command path writing through to {@link UnitRepository}. A state
+ * touched by a rolled back transaction is evicted and reloaded on next use, and so is the state of a game once it
+ * finishes. A command sent to a finished game works on a copy loaded for that command alone.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GameStateStore {
+
+    private final GameRepository gameRepository;
+    private final UnitRepository unitRepository;
+    private final GameRandom gameRandom;
+    private final ConcurrentMap<Long, GameState> states = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverActiveGame() {
+        gameRepository.findByStatus(GameStatus.ACTIVE).ifPresent(game -> states.put(game.getId(), load(game)));
+    }
+
+    /**
+     * Locks the state of a game for the rest of the current transaction. The lock is released once the
+     * transaction completes, so no other command sees changes that might still be rolled back.
+     */
+    public GameState lock(Long gameId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Game state of game " + gameId + " can only be locked within a transaction.");
+        }
+        GameState state;
+        while (true) {
+            state = states.get(gameId);
+            if (state == null) {
+                Game game = gameRepository.findById(gameId)
+                        .orElseThrow(() -> new GameNotFoundException("Game not found with ID: " + gameId));
+                GameState loaded = load(game);
+                if (game.getStatus() == GameStatus.FINISHED) {
+                    // not kept, or every old game id a client sends a command to would stay in memory
+                    state = loaded;
+                    state.lock();
+                    break;
+                }
+                GameState existing = states.putIfAbsent(gameId, loaded);
+                state = existing != null ? existing : loaded;
+            }
+            state.lock();
+            if (states.get(gameId) == state) break;
+            // evicted while we were waiting for the lock, start over with a fresh copy
+            state.unlock();
+        }
+
+        GameState lockedState = state;
+        long modCountAtLock = state.getModCount();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status != STATUS_COMMITTED && lockedState.getModCount() != modCountAtLock) {
+                        log.warn("Transaction for game {} did not commit, evicting its in-memory state.", gameId);
+                        states.remove(gameId, lockedState);
+                    }
+                } finally {
+                    lockedState.unlock();
+                }
+            }
+        });
+        return state;
+    }
+
+    /**
+     * Starts tracking a freshly created game. The state is published once the creating transaction commits.
+     */
+    public void track(Game game) {
+        List<UnitState> units = game.getUnits().stream().map(unit -> UnitState.of(unit, game.getId())).toList();
+        GameState state = new GameState(game.getId(), game.getBoardWidth(), game.getBoardHeight(), units, commandSeed(game));
+        runAfterCommit(() -> states.put(game.getId(), state));
+    }
+
+    public void evict(Long gameId) {
+        runAfterCommit(() -> states.remove(gameId));
+    }
+
+    /**
+     * Type of a unit of a game that is already in memory, read without taking the game lock (a unit never
+     * changes type). Empty if the game or the unit is not known.
+     */
+    public Optional<UnitType> peekUnitType(Long gameId, Long unitId) {
+        GameState state = states.get(gameId);
+        if (state == null) return Optional.empty();
+        return state.findUnit(unitId).map(UnitState::getUnitType);
+    }
+
+    public int activeGameCount() {
+        return states.size();
+    }
+
+    public int activeUnitCount() {
+        return states.values().stream().mapToInt(GameState::activeUnitCount).sum();
+    }
+
+    private GameState load(Game game) {
+        List<UnitState> units = unitRepository.findByGameId(game.getId()).stream()
+                .map(unit -> UnitState.of(unit, game.getId()))
+                .toList();
+        log.info("Loaded game {} with {} units into memory.", game.getId(), units.size());
+        return new GameState(game.getId(), game.getBoardWidth(), game.getBoardHeight(), units, commandSeed(game));
+    }
+
+    // games created before seeds were stored use their id
+    private long commandSeed(Game game) {
+        return gameRandom.commandSeed(game.getRandomSeed() != null ? game.getRandomSeed() : game.getId());
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
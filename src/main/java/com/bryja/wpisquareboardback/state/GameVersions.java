@@ -0,0 +1,147 @@
+package com.bryja.wpisquareboardback.state;
+
+import com.bryja.wpisquareboardback.event.CommandExecutedEvent;
+import com.bryja.wpisquareboardback.event.GameStartedEvent;
+import com.bryja.wpisquareboardback.model.GameStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Committed version of every game, bumped after each command or status change commits, together with a change
+ * log of the units each version touched. The read endpoints hand the version out as an ETag and answer a
+ * matching {@code If-None-Match} without going to the database; the changes endpoint answers from the log.
+ * <p>
+ * Versions are kept in memory only and count up from 0 in every instance. ETags and change answers carry a
+ * random id of the instance, so a tag or version handed out before a restart is never mistaken for a current one.
+ * A finished game no longer changes: its log is dropped and its ETag only depends on its id. Only the active game
+ * has a log, opened when it starts or is first read, and commands to any other game are not recorded.
+ */
+@Component
+public class GameVersions {
+
+    private final String instanceId = Long.toString(new SecureRandom().nextLong() >>> 1, Character.MAX_RADIX);
+    private final ConcurrentMap<Long, ChangeLog> logs = new ConcurrentHashMap<>();
+    private final AtomicReference<Long> activeGameId = new AtomicReference<>();
+
+    /**
+     * Units changed after some version, each in its latest state (destroyed units included).
+     */
+    public record UnitChanges(String instanceId, long version, List<UnitState> units) {}
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCommandExecuted(CommandExecutedEvent event) {
+        ChangeLog log = logs.get(event.getGameId());
+        if (log != null) {
+            log.record(event.getChangedUnits());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGameStarted(GameStartedEvent event) {
+        if (event.getFinishedGameId() != null) {
+            logs.remove(event.getFinishedGameId());
+        }
+        activeGameId.set(event.getGameId());
+        logs.putIfAbsent(event.getGameId(), new ChangeLog());
+    }
+
+    public long currentVersion(Long gameId) {
+        ChangeLog log = logs.get(gameId);
+        return log != null ? log.version : 0;
+    }
+
+    /**
+     * Current version of a game as read from the database. Opens the change log of the active game if it has
+     * none yet (e.g. after a restart), so the version handed out moves with its next command.
+     */
+    public long currentVersion(Long gameId, GameStatus status) {
+        if (status != GameStatus.FINISHED) {
+            activeGameLoaded(gameId);
+        }
+        return currentVersion(gameId);
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Strong ETag of the game's current committed state. Take it before reading the state itself, so a
+     * response is never tagged with a newer version than its body.
+     */
+    public String etag(Long gameId, GameStatus status) {
+        if (status == GameStatus.FINISHED) {
+            return "\"" + gameId + "-finished\"";
+        }
+        return "\"" + instanceId + "-" + gameId + "-" + currentVersion(gameId, status) + "\"";
+    }
+
+    /**
+     * Units of the game changed after {@code since}, or empty when the log can't tell (a version of another
+     * instance, one this instance never handed out, or one of a game that has finished since).
+     */
+    public Optional<UnitChanges> changesSince(Long gameId, String instanceId, long since) {
+        if (!this.instanceId.equals(instanceId)) {
+            return Optional.empty();
+        }
+        ChangeLog log = logs.get(gameId);
+        if (log == null) {
+            return since == 0 ? Optional.of(new UnitChanges(instanceId, since, List.of())) : Optional.empty();
+        }
+        return log.changesSince(since);
+    }
+
+    /**
+     * Id of the active game, or null until one was started or read since startup.
+     */
+    public Long getActiveGameId() {
+        return activeGameId.get();
+    }
+
+    /**
+     * Remembers the active game as read from the database, unless a newer game was started meanwhile, and opens
+     * its change log.
+     */
+    public void activeGameLoaded(Long gameId) {
+        activeGameId.compareAndSet(null, gameId);
+        if (gameId.equals(activeGameId.get())) {
+            logs.computeIfAbsent(gameId, id -> new ChangeLog());
+        }
+    }
+
+    private final class ChangeLog {
+        private volatile long version;
+        // latest change per unit, so the log never outgrows the board
+        private final Map<Long, Change> changes = new HashMap<>();
+
+        private record Change(long version, UnitState unit) {}
+
+        synchronized void record(List<UnitState> changedUnits) {
+            long next = version + 1;
+            changedUnits.forEach(unit -> changes.put(unit.getId(), new Change(next, unit)));
+            version = next;
+        }
+
+        synchronized Optional<UnitChanges> changesSince(long since) {
+            if (since < 0 || since > version) {
+                return Optional.empty();
+            }
+            List<UnitState> changed = new ArrayList<>();
+            for (Change change : changes.values()) {
+                if (change.version() > since) changed.add(change.unit());
+            }
+            return Optional.of(new UnitChanges(instanceId, version, changed));
+        }
+    }
+}
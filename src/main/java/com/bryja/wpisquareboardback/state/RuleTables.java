@@ -0,0 +1,169 @@
+package com.bryja.wpisquareboardback.state;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.UnitType;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * What each unit type can do, compiled once from the configuration into lookup tables indexed by
+ * {@link UnitType} and {@link CommandType} ordinal: whether the command is allowed, its cooldown, the target
+ * offsets it can reach and a reach grid answering "is {@code (dx, dy)} one of them" in one array read. The
+ * validators in {@code CommandRules} and {@code CommandService}, the {@code MoveGenerator} and the
+ * {@link CooldownLedger} all read these tables, so a unit type's rules live in {@link #define} calls only.
+ * <p>
+ * The tables are never modified after construction; returned offset arrays are shared and must not be changed.
+ */
+@Component
+public class RuleTables {
+
+    private static final int[] NO_OFFSETS = new int[0];
+    private static final int[][] ORTHOGONAL = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}};
+    private static final int VEHICLE_MAX_DISTANCE = 3;
+    private static final int COMMANDS = CommandType.values().length;
+
+    // all indexed by slot(unitType, commandType)
+    private final boolean[] allowed = new boolean[UnitType.values().length * COMMANDS];
+    private final long[] cooldownNanos = new long[allowed.length];
+    private final Duration[] cooldowns = new Duration[allowed.length];
+    private final int[][] offsets = new int[allowed.length][]; // packed {dx0, dy0, dx1, dy1, ...}
+    private final boolean[] orthogonal = new boolean[allowed.length];
+    private final int[] reachX = new int[allowed.length];
+    private final int[] reachY = new int[allowed.length];
+    private final boolean[][] reach = new boolean[allowed.length][]; // (2 * reachX + 1) x (2 * reachY + 1), origin in the centre
+
+    private final boolean[] runsOver = new boolean[UnitType.values().length];
+    private final String[] names = new String[UnitType.values().length];
+
+    public RuleTables(GameConfigProperties config) {
+        GameConfigProperties.Units.Archer archer = config.getUnits().getArcher();
+        GameConfigProperties.Units.Vehicle vehicle = config.getUnits().getVehicle();
+        GameConfigProperties.Units.Cannon cannon = config.getUnits().getCannon();
+
+        for (int slot = 0; slot < allowed.length; slot++) {
+            offsets[slot] = NO_OFFSETS;
+            cooldowns[slot] = Duration.ZERO;
+            reach[slot] = new boolean[1];
+        }
+        for (UnitType type : UnitType.values()) {
+            names[type.ordinal()] = type.name().charAt(0) + type.name().substring(1).toLowerCase(Locale.ROOT);
+        }
+
+        define(UnitType.ARCHER, CommandType.MOVE, archer.getMoveCooldownSeconds(), orthogonalOffsets(1));
+        define(UnitType.ARCHER, CommandType.SHOOT, archer.getShootCooldownSeconds(), orthogonalOffsets(archer.getShootRange()));
+        define(UnitType.VEHICLE, CommandType.MOVE, vehicle.getMoveCooldownSeconds(), orthogonalOffsets(VEHICLE_MAX_DISTANCE));
+        define(UnitType.CANNON, CommandType.SHOOT, cannon.getShootCooldownSeconds(),
+                rectangleOffsets(cannon.getShootRangeX(), cannon.getShootRangeY()));
+        runsOver[UnitType.VEHICLE.ordinal()] = true;
+    }
+
+    public boolean allowed(UnitType unitType, CommandType commandType) {
+        return allowed[slot(unitType, commandType)];
+    }
+
+    /**
+     * Time between the unit's last action and the command, {@link Duration#ZERO} for commands it cannot perform.
+     */
+    public Duration cooldown(UnitType unitType, CommandType commandType) {
+        return cooldowns[slot(unitType, commandType)];
+    }
+
+    public long cooldownNanos(UnitType unitType, CommandType commandType) {
+        return cooldownNanos[slot(unitType, commandType)];
+    }
+
+    /**
+     * Target offsets as packed {@code {dx, dy}} pairs, empty for commands the unit cannot perform.
+     */
+    public int[] offsets(UnitType unitType, CommandType commandType) {
+        return offsets[slot(unitType, commandType)];
+    }
+
+    public boolean reaches(UnitType unitType, CommandType commandType, int dx, int dy) {
+        int slot = slot(unitType, commandType);
+        int rx = reachX[slot];
+        int ry = reachY[slot];
+        if (dx < -rx || dx > rx || dy < -ry || dy > ry) return false;
+        return reach[slot][(dy + ry) * (2 * rx + 1) + dx + rx];
+    }
+
+    /** Whether every offset of the command lies on a row or column through the unit. */
+    public boolean orthogonal(UnitType unitType, CommandType commandType) {
+        return orthogonal[slot(unitType, commandType)];
+    }
+
+    public int reachX(UnitType unitType, CommandType commandType) {
+        return reachX[slot(unitType, commandType)];
+    }
+
+    public int reachY(UnitType unitType, CommandType commandType) {
+        return reachY[slot(unitType, commandType)];
+    }
+
+    /** Whether the unit type may move onto an enemy, destroying it. */
+    public boolean runsOver(UnitType unitType) {
+        return runsOver[unitType.ordinal()];
+    }
+
+    /** "Archer", "Vehicle", ... for messages. */
+    public String displayName(UnitType unitType) {
+        return names[unitType.ordinal()];
+    }
+
+    private void define(UnitType unitType, CommandType commandType, int cooldownSeconds, int[] targetOffsets) {
+        int slot = slot(unitType, commandType);
+        allowed[slot] = true;
+        cooldowns[slot] = Duration.ofSeconds(cooldownSeconds);
+        cooldownNanos[slot] = cooldowns[slot].toNanos();
+        offsets[slot] = targetOffsets;
+
+        int rx = 0;
+        int ry = 0;
+        boolean straight = true;
+        for (int i = 0; i < targetOffsets.length; i += 2) {
+            rx = Math.max(rx, Math.abs(targetOffsets[i]));
+            ry = Math.max(ry, Math.abs(targetOffsets[i + 1]));
+            straight &= targetOffsets[i] == 0 || targetOffsets[i + 1] == 0;
+        }
+        boolean[] grid = new boolean[(2 * rx + 1) * (2 * ry + 1)];
+        for (int i = 0; i < targetOffsets.length; i += 2) {
+            grid[(targetOffsets[i + 1] + ry) * (2 * rx + 1) + targetOffsets[i] + rx] = true;
+        }
+        reachX[slot] = rx;
+        reachY[slot] = ry;
+        reach[slot] = grid;
+        orthogonal[slot] = straight;
+    }
+
+    private static int slot(UnitType unitType, CommandType commandType) {
+        return unitType.ordinal() * COMMANDS + commandType.ordinal();
+    }
+
+    private static int[] orthogonalOffsets(int maxDistance) {
+        int[] offsets = new int[ORTHOGONAL.length * maxDistance * 2];
+        int i = 0;
+        for (int dist = 1; dist <= maxDistance; dist++) {
+            for (int[] dir : ORTHOGONAL) {
+                offsets[i++] = dir[0] * dist;
+                offsets[i++] = dir[1] * dist;
+            }
+        }
+        return offsets;
+    }
+
+    private static int[] rectangleOffsets(int rangeX, int rangeY) {
+        int[] offsets = new int[((2 * rangeX + 1) * (2 * rangeY + 1) - 1) * 2];
+        int i = 0;
+        for (int dx = -rangeX; dx <= rangeX; dx++) {
+            for (int dy = -rangeY; dy <= rangeY; dy++) {
+                if (dx == 0 && dy == 0) continue;
+                offsets[i++] = dx;
+                offsets[i++] = dy;
+            }
+        }
+        return offsets;
+    }
+}
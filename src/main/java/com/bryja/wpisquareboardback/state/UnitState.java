@@ -0,0 +1,68 @@
+package com.bryja.wpisquareboardback.state;
+
+import com.bryja.wpisquareboardback.model.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * In-memory copy of a {@link Unit} row. Position and status are only changed through
+ * {@link GameState} so the occupancy index stays in sync with the units.
+ */
+@Getter
+public class UnitState {
+
+    private final Long id;
+    private final Long gameId;
+    private final PlayerColor playerColor;
+    private final UnitType unitType;
+
+    @Setter(AccessLevel.PACKAGE)
+    private Position position;
+
+    @Setter(AccessLevel.PACKAGE)
+    private UnitStatus status;
+
+    @Setter(AccessLevel.PACKAGE)
+    private int moveCount;
+
+    @Setter(AccessLevel.PACKAGE)
+    private Instant lastActionTimestamp;
+
+    @Setter
+    private Long version;
+
+    public UnitState(Long id, Long gameId, PlayerColor playerColor, UnitType unitType, Position position,
+                     UnitStatus status, int moveCount, Instant lastActionTimestamp, Long version) {
+        this.id = id;
+        this.gameId = gameId;
+        this.playerColor = playerColor;
+        this.unitType = unitType;
+        this.position = position;
+        this.status = status;
+        this.moveCount = moveCount;
+        this.lastActionTimestamp = lastActionTimestamp;
+        this.version = version;
+    }
+
+    public static UnitState of(Unit unit, Long gameId) {
+        Position position = unit.getPosition();
+        return new UnitState(unit.getId(), gameId, unit.getPlayerColor(), unit.getUnitType(),
+                new Position(position.getX(), position.getY()), unit.getStatus(), unit.getMoveCount(),
+                unit.getLastActionTimestamp(), unit.getVersion());
+    }
+
+    /**
+     * Detached copy, safe to hand to other threads once the game lock is released.
+     */
+    public UnitState snapshot() {
+        return new UnitState(id, gameId, playerColor, unitType, new Position(position.getX(), position.getY()),
+                status, moveCount, lastActionTimestamp, version);
+    }
+
+    public boolean isActive() {
+        return status == UnitStatus.ACTIVE;
+    }
+}
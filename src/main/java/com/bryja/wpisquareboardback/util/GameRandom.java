@@ -0,0 +1,57 @@
+package com.bryja.wpisquareboardback.util;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Source of every random decision of a game. Each game gets a seed, stored on the game, and everything random is
+ * derived from that seed alone: the initial placement from one stream, and each random command from the game's
+ * command seed, the unit and the unit's version at the time of the draw. Unit versions are stored with the units,
+ * so a game reloaded from the database carries on with the draws it would have made anyway, and a game can be
+ * replayed exactly from its seed and its commands. A random command keeps no generator between draws, so
+ * commands of any game can draw on any thread without sharing one.
+ * <p>
+ * With {@code game.seed} set, the seeds of new games are drawn from that seed too, so a whole run (e.g. a
+ * benchmark) is reproducible.
+ */
+@Component
+public class GameRandom {
+
+    private final SplittableRandom seeds;
+
+    public GameRandom(GameConfigProperties config) {
+        this.seeds = config.getSeed() != null ? new SplittableRandom(config.getSeed()) : new SplittableRandom();
+    }
+
+    public synchronized long newSeed() { // once per new game
+        return seeds.nextLong();
+    }
+
+    public RandomGenerator placement(long seed) {
+        return new SplittableRandom(seed).split();
+    }
+
+    /**
+     * One stream for all random commands, for a game played out in one go (see {@code BattleSimulator}).
+     */
+    public RandomGenerator commands(long seed) {
+        SplittableRandom game = new SplittableRandom(seed);
+        game.split(); // the placement stream
+        return game.split();
+    }
+
+    public long commandSeed(long seed) {
+        return commands(seed).nextLong();
+    }
+
+    /**
+     * The draw for one random command of a unit: the same game, unit and unit version always give the same draw.
+     */
+    public static RandomGenerator command(long commandSeed, long unitId, long unitVersion) {
+        long unitSeed = new SplittableRandom(commandSeed + unitId).nextLong(); // a 64-bit mix of the two
+        return new SplittableRandom(unitSeed + unitVersion);
+    }
+}
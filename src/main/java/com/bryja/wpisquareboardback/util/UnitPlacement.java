@@ -0,0 +1,70 @@
+package com.bryja.wpisquareboardback.util;
+
+import com.bryja.wpisquareboardback.model.PlayerColor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Strategies for spreading the initial units over the board, selected with {@code game.units.placement}. A
+ * strategy picks the squares of both players at once, as {@code y * width + x} indexed by
+ * {@link PlayerColor#ordinal()}. Squares are drawn with a partial Fisher-Yates shuffle of the square indexes,
+ * so each unit costs one random draw however full the board gets. The shuffle only remembers the squares it
+ * displaced, so time and memory grow with the number of units, not with the size of the board.
+ * Callers make sure both players fit, i.e. {@code 2 * perPlayer <= width * height}.
+ */
+public enum UnitPlacement {
+
+    /** Every unit on any free square of the board. */
+    RANDOM {
+        @Override
+        public int[][] squares(int width, int height, int perPlayer, RandomGenerator random) {
+            int[] drawn = shuffledPrefix(width * height, 2 * perPlayer, random);
+            int[][] squares = new int[PlayerColor.values().length][perPlayer];
+            System.arraycopy(drawn, 0, squares[PlayerColor.WHITE.ordinal()], 0, perPlayer);
+            System.arraycopy(drawn, perPlayer, squares[PlayerColor.BLACK.ordinal()], 0, perPlayer);
+            return squares;
+        }
+    },
+
+    /**
+     * White units on random squares of the first half of the board, each black unit on the square mirrored
+     * through the centre of its white counterpart, so both players start from the same position.
+     */
+    MIRRORED {
+        @Override
+        public int[][] squares(int width, int height, int perPlayer, RandomGenerator random) {
+            int cells = width * height;
+            // squares 0 .. cells/2 - 1 mirror onto the other half, the centre square of an odd board stays empty
+            int[] drawn = shuffledPrefix(cells / 2, perPlayer, random);
+            int[][] squares = new int[PlayerColor.values().length][perPlayer];
+            for (int i = 0; i < perPlayer; i++) {
+                squares[PlayerColor.WHITE.ordinal()][i] = drawn[i];
+                squares[PlayerColor.BLACK.ordinal()][i] = cells - 1 - drawn[i];
+            }
+            return squares;
+        }
+    };
+
+    public abstract int[][] squares(int width, int height, int perPlayer, RandomGenerator random);
+
+    /**
+     * A uniformly random selection of {@code count} distinct squares out of {@code 0 .. bound - 1}, in random
+     * order. Positions of the virtual index array that were never swapped hold their own index and are not stored.
+     */
+    static int[] shuffledPrefix(int bound, int count, RandomGenerator random) {
+        if (count > bound) {
+            throw new IllegalArgumentException("Cannot pick " + count + " distinct squares out of " + bound);
+        }
+        int[] squares = new int[count];
+        Map<Integer, Integer> displaced = new HashMap<>(2 * count);
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(bound - i);
+            squares[i] = displaced.getOrDefault(j, j);
+            // position i is never drawn from again, so only j has to remember what was swapped in
+            displaced.put(j, displaced.getOrDefault(i, i));
+        }
+        return squares;
+    }
+}
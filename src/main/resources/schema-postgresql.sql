@@ -0,0 +1,9 @@
+-- Runs after Hibernate has updated the schema (spring.jpa.defer-datasource-initialization), for what entity
+-- mappings can't declare. Every statement must be safe to run on each start.
+
+-- At most one active unit per square of a game, checked after every statement. The command path never needs two
+-- active units on a square, not even within a transaction: each unit write is its own conditional UPDATE, and a
+-- vehicle running over a unit destroys it before the UPDATE moving the vehicle onto its square. A partial unique
+-- index is enough for that; it replaces the deferred exclusion constraint earlier versions created.
+ALTER TABLE units DROP CONSTRAINT IF EXISTS uk_units_active_position;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_units_active_position ON units (game_id, x, y) WHERE status = 'ACTIVE';
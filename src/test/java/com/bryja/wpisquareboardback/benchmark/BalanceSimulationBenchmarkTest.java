@@ -0,0 +1,89 @@
+package com.bryja.wpisquareboardback.benchmark;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.simulation.BalanceSimulation;
+import com.bryja.wpisquareboardback.simulation.BotPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Monte-Carlo balance runs: plays {@code sim.games} bot-vs-bot games per configuration with the in-memory
+ * {@link BalanceSimulation} on a fork-join pool of {@code sim.parallelism} workers (all cores by default), white
+ * playing {@code sim.white} and black {@code sim.black}. The default configuration is always run; every entry of
+ * {@code sim.variants} ({@code ;}-separated, each a {@code ,}-separated list of {@code game.*} overrides) adds
+ * one, e.g. {@code -Dsim.variants="game.units.cannon.shoot-cooldown-seconds=8;game.units.archer.shoot-range=3"}.
+ * <p>
+ * Reports win rates, game length in simulated seconds and unit survival per configuration. Run with
+ * {@code mvn test -Pbenchmark -Dtest=BalanceSimulationBenchmarkTest}; results are printed and written to
+ * {@code target/benchmarks/balance-simulation.json}.
+ */
+@Tag("benchmark")
+class BalanceSimulationBenchmarkTest {
+
+    private static final int GAMES = Integer.getInteger("sim.games", 10_000);
+    private static final BotPolicy WHITE = BotPolicy.valueOf(System.getProperty("sim.white", "GREEDY"));
+    private static final BotPolicy BLACK = BotPolicy.valueOf(System.getProperty("sim.black", "GREEDY"));
+    private static final long MAX_SECONDS = Long.getLong("sim.max-seconds", 3600);
+    private static final int PARALLELISM = Integer.getInteger("sim.parallelism", Runtime.getRuntime().availableProcessors());
+    private static final long SEED = Long.getLong("sim.seed", 42);
+    private static final String VARIANTS = System.getProperty("sim.variants", "");
+
+    record Result(String variant, double gamesPerSecond, BalanceSimulation.Report report) {}
+
+    @Test
+    void simulateBalance() throws Exception {
+        List<String> variants = new ArrayList<>();
+        variants.add("");
+        Arrays.stream(VARIANTS.split(";")).map(String::trim).filter(v -> !v.isEmpty()).forEach(variants::add);
+
+        ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+        List<Result> results = new ArrayList<>();
+        try {
+            for (String variant : variants) {
+                BalanceSimulation simulation = new BalanceSimulation(config(variant));
+                simulation.run(Math.min(GAMES, 500), WHITE, BLACK, MAX_SECONDS, pool); // warm-up
+                long start = System.nanoTime();
+                BalanceSimulation.Report report = simulation.run(GAMES, WHITE, BLACK, MAX_SECONDS, pool);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                Result result = new Result(variant.isEmpty() ? "default" : variant, GAMES / seconds, report);
+                results.add(result);
+                System.out.printf("%s: %.0f games/s, white %.1f%%, black %.1f%%, draws %.1f%%, length mean %.0fs p50 %ds p90 %ds, survival %s%n",
+                        result.variant(), result.gamesPerSecond(), 100 * report.whiteWinRate(), 100 * report.blackWinRate(),
+                        100 * report.drawRate(), report.meanSeconds(), report.p50Seconds(), report.p90Seconds(),
+                        report.survivalRate());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        Path out = Path.of("target", "benchmarks", "balance-simulation.json");
+        Files.createDirectories(out.getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(out.toFile(), Map.of(
+                "games", GAMES, "white", WHITE, "black", BLACK, "maxSeconds", MAX_SECONDS,
+                "parallelism", PARALLELISM, "results", results));
+    }
+
+    private static GameConfigProperties config(String variant) {
+        Map<String, String> properties = new HashMap<>();
+        for (String override : variant.split(",")) {
+            if (override.isBlank()) continue;
+            String[] pair = override.split("=", 2);
+            properties.put(pair[0].trim(), pair[1].trim());
+        }
+        GameConfigProperties config = new GameConfigProperties();
+        new Binder(new MapConfigurationPropertySource(properties)).bind("game", Bindable.ofInstance(config));
+        if (config.getSeed() == null) {
+            config.setSeed(SEED); // every configuration plays the same seeds
+        }
+        return config;
+    }
+}
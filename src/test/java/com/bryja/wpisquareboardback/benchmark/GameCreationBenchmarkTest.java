@@ -0,0 +1,110 @@
+package com.bryja.wpisquareboardback.benchmark;
+
+import com.bryja.wpisquareboardback.WpiSquareboardBackApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Times {@code POST /api/games/new} with the pooled sequence ids and JDBC insert batching the entities use, and with
+ * games and units mapped back to IDENTITY ids ({@code benchmark/identity-ids.xml}), where Hibernate has to insert
+ * every row on its own to read its id back. Each mode boots the application on a random port against its own
+ * in-memory H2 database in PostgreSQL mode, creates {@code bench.warmup-games} games to warm up and then times
+ * {@code bench.games} more, one after another. Boards are {@code bench.board-size} squares wide with
+ * {@code bench.units} units of each type per player.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=GameCreationBenchmarkTest}. Results are printed and written to
+ * {@code target/benchmarks/game-creation.json}.
+ */
+@Tag("benchmark")
+class GameCreationBenchmarkTest {
+
+    private static final int GAMES = Integer.getInteger("bench.games", 200);
+    private static final int WARMUP_GAMES = Integer.getInteger("bench.warmup-games", 50);
+    private static final int BOARD_SIZE = Integer.getInteger("bench.board-size", 100);
+    private static final int UNITS = Integer.getInteger("bench.units", 100);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    record Result(String ids, int unitsPerGame, int games, double meanMillis, double p50Millis, double p99Millis,
+                  double statementsPerGame) {}
+
+    @Test
+    void compareIdGeneration() throws Exception {
+        List<Result> results = List.of(run("identity"), run("sequence"));
+
+        System.out.printf("%-9s %6s %6s %9s %9s %9s %12s%n", "ids", "units", "games", "mean ms", "p50 ms", "p99 ms", "statements");
+        results.forEach(r -> System.out.printf("%-9s %6d %6d %9.2f %9.2f %9.2f %12.1f%n",
+                r.ids(), r.unitsPerGame(), r.games(), r.meanMillis(), r.p50Millis(), r.p99Millis(), r.statementsPerGame()));
+        Path report = Path.of("target", "benchmarks", "game-creation.json");
+        Files.createDirectories(report.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(report.toFile(), results);
+    }
+
+    private Result run(String ids) throws Exception {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:creation-" + ids + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.generate_statistics=true",
+                "--logging.level.com.bryja=WARN",
+                "--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+                "--game.board.width=" + BOARD_SIZE, "--game.board.height=" + BOARD_SIZE,
+                "--game.units.initial.archers=" + UNITS, "--game.units.initial.vehicles=" + UNITS,
+                "--game.units.initial.cannons=" + UNITS));
+        if (ids.equals("identity")) {
+            args.add("--spring.jpa.mapping-resources=benchmark/identity-ids.xml");
+        }
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(WpiSquareboardBackApplication.class)
+                .run(args.toArray(String[]::new))) {
+            HttpRequest newGame = HttpRequest.newBuilder(URI.create("http://localhost:"
+                            + context.getEnvironment().getProperty("local.server.port") + "/api/games/new"))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build();
+            Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+            for (int i = 0; i < WARMUP_GAMES; i++) {
+                send(newGame);
+            }
+            statistics.clear();
+            long[] nanos = new long[GAMES];
+            for (int i = 0; i < GAMES; i++) {
+                long start = System.nanoTime();
+                send(newGame);
+                nanos[i] = System.nanoTime() - start;
+            }
+            double statementsPerGame = statistics.getPrepareStatementCount() / (double) GAMES;
+
+            Arrays.sort(nanos);
+            return new Result(ids, UNITS * 3 * 2, GAMES, Arrays.stream(nanos).average().orElse(0) / 1_000_000.0,
+                    percentile(nanos, 0.50), percentile(nanos, 0.99), statementsPerGame);
+        }
+    }
+
+    private void send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201 && response.statusCode() != 200) {
+            throw new IllegalStateException("POST /new answered " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,288 @@
+package com.bryja.wpisquareboardback.benchmark;
+
+import com.bryja.wpisquareboardback.WpiSquareboardBackApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Simulates many players at once against the application on a random port, backed by an in-memory H2 database in
+ * PostgreSQL compatibility mode. {@code load.games} games are started, each with {@code load.bots} bots sending
+ * {@code POST /command} (a move or shot next to one of their units) or {@code POST /command/random} at
+ * {@code load.command-rate} requests per second each, and {@code load.spectators} spectators polling
+ * {@code GET /units} every {@code load.poll-millis}. Starting a game finishes the previous one, but commands and
+ * reads are served for any game id, so every game keeps its own board and command writer.
+ * <p>
+ * Reports throughput, p50/p99/p999 latency and the response statuses (409 conflicts, 429 cooldowns, ...) per
+ * endpoint. Run with {@code mvn test -Pbenchmark -Dtest=LoadSimulationBenchmarkTest}; results are printed and
+ * written to {@code target/benchmarks/load-simulation.json}.
+ */
+@Tag("benchmark")
+class LoadSimulationBenchmarkTest {
+
+    private static final int GAMES = Integer.getInteger("load.games", 4);
+    private static final int BOTS = Integer.getInteger("load.bots", 8);
+    private static final int SPECTATORS = Integer.getInteger("load.spectators", 4);
+    private static final double COMMAND_RATE = Double.parseDouble(System.getProperty("load.command-rate", "5"));
+    private static final double RANDOM_SHARE = Double.parseDouble(System.getProperty("load.random-share", "0.5"));
+    private static final long POLL_MILLIS = Long.getLong("load.poll-millis", 250);
+    private static final int COOLDOWN_SECONDS = Integer.getInteger("load.cooldown-seconds", 1);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 20);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 5);
+
+    private static final String COMMAND = "command";
+    private static final String RANDOM_COMMAND = "command/random";
+    private static final String UNITS = "units";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    record Result(String endpoint, long requests, double throughputPerSecond,
+                  double p50Millis, double p99Millis, double p999Millis, Map<Integer, Long> statuses) {}
+
+    private record Sample(String endpoint, int status, long nanos) {}
+
+    @Test
+    void simulatePlayers() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(WpiSquareboardBackApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.bryja=ERROR", // every rejected command logs a warning
+                "--game.units.archer.move-cooldown-seconds=" + COOLDOWN_SECONDS,
+                "--game.units.archer.shoot-cooldown-seconds=" + COOLDOWN_SECONDS,
+                "--game.units.vehicle.move-cooldown-seconds=" + COOLDOWN_SECONDS,
+                "--game.units.cannon.shoot-cooldown-seconds=" + COOLDOWN_SECONDS)) {
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/games";
+
+            List<Runnable> players = new ArrayList<>();
+            for (int g = 0; g < GAMES; g++) {
+                JsonNode game = objectMapper.readTree(send(HttpRequest.newBuilder(URI.create(base + "/new"))
+                        .POST(HttpRequest.BodyPublishers.noBody()).build()).body());
+                String gameBase = base + "/" + game.get("id").asLong();
+                JsonNode units = objectMapper.readTree(send(HttpRequest.newBuilder(URI.create(gameBase + "/units")).build()).body());
+                for (int b = 0; b < BOTS; b++) {
+                    String color = b % 2 == 0 ? "WHITE" : "BLACK";
+                    List<JsonNode> own = new ArrayList<>();
+                    units.forEach(unit -> {
+                        if (color.equals(unit.get("playerColor").asText())) own.add(unit);
+                    });
+                    players.add(new Bot(gameBase, color, own));
+                }
+                for (int s = 0; s < SPECTATORS; s++) {
+                    players.add(new Spectator(gameBase));
+                }
+            }
+
+            run(players, WARMUP_SECONDS);
+            List<Sample> samples = run(players, SECONDS);
+            report(samples);
+        }
+    }
+
+    private List<Sample> run(List<Runnable> players, int seconds) throws Exception {
+        Recorder recorder = new Recorder(System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds));
+        ExecutorService threads = Executors.newFixedThreadPool(players.size());
+        List<Future<?>> running = new ArrayList<>();
+        for (Runnable player : players) {
+            running.add(threads.submit(() -> {
+                RECORDER.set(recorder);
+                player.run();
+            }));
+        }
+        for (Future<?> player : running) {
+            player.get();
+        }
+        threads.shutdown();
+        return recorder.samples();
+    }
+
+    private void report(List<Sample> samples) throws Exception {
+        List<Result> results = new ArrayList<>();
+        for (String endpoint : List.of(COMMAND, RANDOM_COMMAND, UNITS)) {
+            long[] latencies = samples.stream().filter(s -> s.endpoint().equals(endpoint)).mapToLong(Sample::nanos).sorted().toArray();
+            Map<Integer, Long> statuses = new TreeMap<>();
+            samples.stream().filter(s -> s.endpoint().equals(endpoint)).forEach(s -> statuses.merge(s.status(), 1L, Long::sum));
+            results.add(new Result(endpoint, latencies.length, latencies.length / (double) SECONDS,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999), statuses));
+        }
+
+        System.out.printf("%d games, %d bots and %d spectators per game, %.1f commands/s per bot, %ds%n",
+                GAMES, BOTS, SPECTATORS, COMMAND_RATE, SECONDS);
+        System.out.printf("%-15s %10s %10s %9s %9s %9s  %s%n", "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "statuses");
+        results.forEach(r -> System.out.printf("%-15s %10d %10.1f %9.2f %9.2f %9.2f  %s%n",
+                r.endpoint(), r.requests(), r.throughputPerSecond(), r.p50Millis(), r.p99Millis(), r.p999Millis(), r.statuses()));
+        Path report = Path.of("target", "benchmarks", "load-simulation.json");
+        Files.createDirectories(report.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(report.toFile(), results);
+    }
+
+    private static final ThreadLocal<Recorder> RECORDER = new ThreadLocal<>();
+
+    private static final class Recorder {
+        private final long deadline;
+        private final Queue<Sample> samples = new ConcurrentLinkedQueue<>();
+
+        Recorder(long deadline) {
+            this.deadline = deadline;
+        }
+
+        boolean running() {
+            return System.nanoTime() < deadline;
+        }
+
+        /**
+         * Waits for the next slot of a fixed schedule. A request that is already late goes out at once, so slow
+         * responses do not lower the offered rate.
+         */
+        long pace(long nextStart, long intervalNanos) throws InterruptedException {
+            long wait = nextStart - System.nanoTime();
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+            return nextStart + intervalNanos;
+        }
+
+        List<Sample> samples() {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    private HttpResponse<String> record(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        HttpResponse<String> response = null;
+        int status;
+        try {
+            response = send(request);
+            status = response.statusCode();
+        } catch (Exception e) {
+            status = -1; // connection refused, reset or timed out
+        }
+        RECORDER.get().samples.add(new Sample(endpoint, status, System.nanoTime() - start));
+        return response;
+    }
+
+    private final class Bot implements Runnable {
+        private final String gameBase;
+        private final String color;
+        private final List<JsonNode> units;
+        private final Random random = new Random();
+
+        Bot(String gameBase, String color, List<JsonNode> units) {
+            this.gameBase = gameBase;
+            this.color = color;
+            this.units = units;
+        }
+
+        @Override
+        public void run() {
+            if (units.isEmpty()) return;
+            Recorder recorder = RECORDER.get();
+            long interval = (long) (TimeUnit.SECONDS.toNanos(1) / COMMAND_RATE);
+            long next = System.nanoTime() + (long) (random.nextDouble() * interval); // spread the bots out
+            try {
+                while (recorder.running()) {
+                    next = recorder.pace(next, interval);
+                    int index = random.nextInt(units.size());
+                    JsonNode unit = units.get(index);
+                    String unitBase = gameBase + "/units/" + unit.get("id").asLong();
+                    HttpResponse<String> response;
+                    if (random.nextDouble() < RANDOM_SHARE) {
+                        response = record(RANDOM_COMMAND, post(unitBase + "/command/random", "{\"playerColor\":\"" + color + "\"}"));
+                    } else {
+                        response = record(COMMAND, post(unitBase + "/command", commandFor(unit)));
+                    }
+                    if (response != null && response.statusCode() == 200) {
+                        units.set(index, objectMapper.readTree(response.body())); // keeps the position current
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        // targets within the unit's reach, so most commands pass the range rules and run into the other players
+        private String commandFor(JsonNode unit) {
+            int x = unit.get("position").get("x").asInt();
+            int y = unit.get("position").get("y").asInt();
+            int dx = 0;
+            int dy = 0;
+            String type;
+            switch (unit.get("unitType").asText()) {
+                case "CANNON" -> {
+                    type = "SHOOT";
+                    dx = random.nextInt(5) - 2;
+                    dy = random.nextBoolean() ? 1 : -1;
+                }
+                case "VEHICLE" -> {
+                    type = "MOVE";
+                    dx = random.nextInt(3) + 1;
+                }
+                default -> {
+                    type = random.nextBoolean() ? "SHOOT" : "MOVE";
+                    dx = type.equals("SHOOT") ? random.nextInt(3) + 1 : 1;
+                }
+            }
+            if (random.nextBoolean()) dx = -dx;
+            if (dy == 0 && random.nextBoolean()) { // orthogonal: turn it into a vertical one
+                dy = dx;
+                dx = 0;
+            }
+            return String.format("{\"playerColor\":\"%s\",\"commandType\":\"%s\",\"targetX\":%d,\"targetY\":%d}",
+                    color, type, x + dx, y + dy);
+        }
+
+        private HttpRequest post(String uri, String body) {
+            return HttpRequest.newBuilder(URI.create(uri))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+    }
+
+    private final class Spectator implements Runnable {
+        private final HttpRequest poll;
+
+        Spectator(String gameBase) {
+            this.poll = HttpRequest.newBuilder(URI.create(gameBase + "/units")).build();
+        }
+
+        @Override
+        public void run() {
+            Recorder recorder = RECORDER.get();
+            long interval = TimeUnit.MILLISECONDS.toNanos(POLL_MILLIS);
+            long next = System.nanoTime() + ThreadLocalRandom.current().nextLong(interval);
+            try {
+                while (recorder.running()) {
+                    next = recorder.pace(next, interval);
+                    record(UNITS, poll);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) return 0;
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
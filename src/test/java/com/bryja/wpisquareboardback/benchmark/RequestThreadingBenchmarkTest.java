@@ -0,0 +1,142 @@
+package com.bryja.wpisquareboardback.benchmark;
+
+import com.bryja.wpisquareboardback.WpiSquareboardBackApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Compares request handling on platform threads (Tomcat's pool) with virtual threads, for a read endpoint that
+ * queries the database ({@code GET /units}) and a command endpoint ({@code POST /command/random}). Each mode boots
+ * the application on a random port against its own in-memory H2 database, then {@code bench.clients} clients
+ * hammer one endpoint at a time for {@code bench.seconds} after {@code bench.warmup-seconds} of warm-up.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark} (platform threads only) or {@code mvn test -Pbenchmark,java21} on a
+ * Java 21 JDK (both). Results are printed and written to {@code target/benchmarks/request-threading.json}.
+ */
+@Tag("benchmark")
+class RequestThreadingBenchmarkTest {
+
+    private static final int CLIENTS = Integer.getInteger("bench.clients", 400);
+    private static final int SECONDS = Integer.getInteger("bench.seconds", 15);
+    private static final int WARMUP_SECONDS = Integer.getInteger("bench.warmup-seconds", 5);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    record Result(String threads, String endpoint, long requests, double throughputPerSecond,
+                  double p50Millis, double p99Millis, Map<Integer, Long> statuses) {}
+
+    @Test
+    void compareThreadingModes() throws Exception {
+        List<Result> results = new ArrayList<>(run(false));
+        if (Runtime.version().feature() >= 21) {
+            results.addAll(run(true));
+        } else {
+            System.out.println("Java " + Runtime.version().feature() + ": skipping virtual threads, they need a Java 21 build (-Pjava21).");
+        }
+
+        System.out.printf("%-9s %-9s %10s %12s %9s %9s  %s%n", "threads", "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "statuses");
+        results.forEach(r -> System.out.printf("%-9s %-9s %10d %12.1f %9.2f %9.2f  %s%n",
+                r.threads(), r.endpoint(), r.requests(), r.throughputPerSecond(), r.p50Millis(), r.p99Millis(), r.statuses()));
+        Path report = Path.of("target", "benchmarks", "request-threading.json");
+        Files.createDirectories(report.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(report.toFile(), results);
+    }
+
+    private List<Result> run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(WpiSquareboardBackApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + mode + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.bryja=WARN",
+                "--game.board.width=100", "--game.board.height=100",
+                "--game.units.initial.archers=300", "--game.units.initial.vehicles=300", "--game.units.initial.cannons=100",
+                "--game.units.archer.move-cooldown-seconds=1", "--game.units.archer.shoot-cooldown-seconds=1",
+                "--game.units.vehicle.move-cooldown-seconds=1", "--game.units.cannon.shoot-cooldown-seconds=1")) {
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/games";
+            JsonNode game = objectMapper.readTree(send(HttpRequest.newBuilder(URI.create(base + "/new"))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build()).body());
+            String gameBase = base + "/" + game.get("id").asLong();
+            List<JsonNode> units = new ArrayList<>();
+            objectMapper.readTree(send(HttpRequest.newBuilder(URI.create(gameBase + "/units")).build()).body()).forEach(units::add);
+
+            List<HttpRequest> reads = List.of(HttpRequest.newBuilder(URI.create(gameBase + "/units")).build());
+            List<HttpRequest> commands = units.stream()
+                    .map(unit -> HttpRequest.newBuilder(URI.create(gameBase + "/units/" + unit.get("id").asLong() + "/command/random"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"playerColor\":\"" + unit.get("playerColor").asText() + "\"}"))
+                            .build())
+                    .toList();
+
+            return List.of(measure(mode, "read", reads), measure(mode, "command", commands));
+        }
+    }
+
+    private Result measure(String mode, String endpoint, List<HttpRequest> requests) throws Exception {
+        load(requests, WARMUP_SECONDS);
+        List<Sample> samples = load(requests, SECONDS);
+
+        long[] latencies = samples.stream().mapToLong(Sample::nanos).sorted().toArray();
+        Map<Integer, Long> statuses = new TreeMap<>();
+        samples.forEach(sample -> statuses.merge(sample.status(), 1L, Long::sum));
+        return new Result(mode, endpoint, latencies.length, latencies.length / (double) SECONDS,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), statuses);
+    }
+
+    private record Sample(int status, long nanos) {}
+
+    private List<Sample> load(List<HttpRequest> requests, int seconds) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<List<Sample>>> perClient = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            int offset = c;
+            perClient.add(clients.submit(() -> {
+                List<Sample> samples = new ArrayList<>();
+                for (int i = offset; System.nanoTime() < deadline; i += CLIENTS) {
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = send(requests.get(i % requests.size())).statusCode();
+                    } catch (Exception e) {
+                        status = -1; // connection refused, reset or timed out
+                    }
+                    samples.add(new Sample(status, System.nanoTime() - start));
+                }
+                return samples;
+            }));
+        }
+        List<Sample> samples = new ArrayList<>();
+        for (Future<List<Sample>> client : perClient) {
+            samples.addAll(client.get());
+        }
+        clients.shutdown();
+        return samples;
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) return 0;
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
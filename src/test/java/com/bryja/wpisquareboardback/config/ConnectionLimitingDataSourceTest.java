@@ -0,0 +1,80 @@
+package com.bryja.wpisquareboardback.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class ConnectionLimitingDataSourceTest {
+
+    private final DataSource pool = mock(DataSource.class);
+    private final ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(pool, 2, 1, 2000);
+
+    @Test
+    void getConnection_beyondLimit_waitsThenFailsWithoutReachingThePool() throws SQLException {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(pool, 2, 1, 50);
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessageContaining("within 50 ms");
+        verify(pool, times(2)).getConnection();
+    }
+
+    @Test
+    void getConnection_whenTooManyAreWaiting_failsAtOnce() throws Exception {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+        CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (!waiting.isDone() && dataSource.getQueueLength() == 0) {
+            Thread.onSpinWait();
+        }
+
+        long start = System.nanoTime();
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessageContaining("1 callers are already waiting");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+
+        first.close(); // the waiting caller gets its turn
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isNotNull();
+        verify(pool, times(3)).getConnection();
+    }
+
+    @Test
+    void close_releasesThePermitOnce() throws SQLException {
+        Connection pooled = mock(Connection.class);
+        when(pool.getConnection()).thenReturn(pooled);
+
+        Connection connection = dataSource.getConnection();
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+        connection.close();
+        connection.close();
+
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(2);
+        verify(pooled, times(2)).close();
+    }
+
+    @Test
+    void getConnection_whenPoolFails_givesThePermitBack() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLException("pool exhausted"));
+
+        assertThatThrownBy(dataSource::getConnection).hasMessage("pool exhausted");
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,27 @@
+package com.bryja.wpisquareboardback.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VirtualThreadsConfigTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void postProcessor_limitsConnectionsToThePoolSize_evenBeforeThePoolStarts() {
+        ObjectProvider<GameConfigProperties> config = mock(ObjectProvider.class);
+        when(config.getObject()).thenReturn(new GameConfigProperties());
+        HikariDataSource hikari = new HikariDataSource();
+        hikari.setJdbcUrl("jdbc:h2:mem:virtual-threads-config");
+
+        Object limited = VirtualThreadsConfig.connectionLimitingDataSourcePostProcessor(config)
+                .postProcessAfterInitialization(hikari, "dataSource");
+
+        assertThat(limited).isInstanceOf(ConnectionLimitingDataSource.class);
+        assertThat(((ConnectionLimitingDataSource) limited).getAvailablePermits()).isEqualTo(hikari.getMaximumPoolSize()).isPositive();
+    }
+}
@@ -0,0 +1,100 @@
+package com.bryja.wpisquareboardback.controller;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.dto.*;
+import com.bryja.wpisquareboardback.mapper.DtoMapper;
+import com.bryja.wpisquareboardback.model.*;
+import com.bryja.wpisquareboardback.repository.GameRepository;
+import com.bryja.wpisquareboardback.exception.ActionNotAllowedException;
+import com.bryja.wpisquareboardback.service.CommandMetrics;
+import com.bryja.wpisquareboardback.service.CommandOutcome;
+import com.bryja.wpisquareboardback.service.CommandService;
+import com.bryja.wpisquareboardback.service.CommandTickEngine;
+import com.bryja.wpisquareboardback.service.GameCommandExecutor;
+import com.bryja.wpisquareboardback.state.GameStateStore;
+import com.bryja.wpisquareboardback.state.UnitState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(CommandController.class)
+@Import({GameCommandExecutor.class, CommandTickEngine.class, GameConfigProperties.class, DtoMapper.class, CommandMetrics.class, SimpleMeterRegistry.class})
+class CommandControllerTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private SimpleMeterRegistry meterRegistry;
+    @MockitoBean private CommandService commandService;
+    @MockitoBean private GameRepository gameRepository;
+    @MockitoBean private GameStateStore gameStateStore;
+
+    private final Long GAME_ID = 1L;
+
+    @BeforeEach
+    void setUp() {
+        when(gameRepository.existsById(GAME_ID)).thenReturn(true);
+    }
+
+    @Test
+    void executeBatch_returnsResultPerCommand() throws Exception {
+        UnitState movedArcher = new UnitState(10L, GAME_ID, PlayerColor.WHITE, UnitType.ARCHER, new Position(1, 2),
+                UnitStatus.ACTIVE, 1, Instant.now(), 1L);
+        when(gameStateStore.peekUnitType(GAME_ID, 20L)).thenReturn(Optional.of(UnitType.VEHICLE));
+        when(commandService.executeBatch(eq(GAME_ID), anyList())).thenReturn(List.of(
+                new CommandOutcome(10L, CommandType.MOVE, true, "SUCCESS: Moved to Position(x=1, y=2)", movedArcher),
+                CommandOutcome.rejected(20L, CommandType.SHOOT, new ActionNotAllowedException("Vehicle cannot perform: SHOOT"))));
+
+        mockMvc.perform(post("/api/games/{gameId}/commands:batch", GAME_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"commands": [
+                                  {"unitId": 10, "playerColor": "WHITE", "commandType": "MOVE", "targetX": 1, "targetY": 2},
+                                  {"unitId": 20, "playerColor": "WHITE", "commandType": "SHOOT", "targetX": 3, "targetY": 3}
+                                ]}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].success", is(true)))
+                .andExpect(jsonPath("$[0].unit.position.y", is(2)))
+                .andExpect(jsonPath("$[1].unitId", is(20)))
+                .andExpect(jsonPath("$[1].success", is(false)))
+                .andExpect(jsonPath("$[1].result", is("FAILED: Vehicle cannot perform: SHOOT")))
+                .andExpect(jsonPath("$[1].unit", nullValue()));
+
+        verify(commandService).executeBatch(eq(GAME_ID), argThat(commands -> commands.size() == 2
+                && commands.get(1).getUnitId() == 20L && commands.get(1).getCommandType() == CommandType.SHOOT));
+        assertThat(meterRegistry.get("game.commands").tags("unit.type", "ARCHER", "command.type", "MOVE", "outcome", "success")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("game.commands").tags("unit.type", "VEHICLE", "command.type", "SHOOT", "outcome", "rejected")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void executeBatch_withoutUnitId_returnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/games/{gameId}/commands:batch", GAME_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"commands": [{"playerColor": "WHITE", "commandType": "MOVE", "targetX": 1, "targetY": 2}]}
+                                """))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Validation failed: Unit id is required")));
+
+        verifyNoInteractions(commandService);
+    }
+}
@@ -4,15 +4,19 @@ import com.bryja.wpisquareboardback.exception.GameNotFoundException;
 import com.bryja.wpisquareboardback.mapper.DtoMapper;
 import com.bryja.wpisquareboardback.model.Game;
 import com.bryja.wpisquareboardback.model.GameStatus;
+import com.bryja.wpisquareboardback.service.BoardEventBroadcaster;
 import com.bryja.wpisquareboardback.service.GameService;
+import com.bryja.wpisquareboardback.state.GameVersions;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.Instant;
 
@@ -25,6 +29,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.hamcrest.Matchers.is; // For jsonPath checks
 
 @WebMvcTest(GameController.class) // Test only this controller, mock dependencies
+@Import(GameVersions.class)
 class GameControllerTest {
 
     @Autowired
@@ -39,6 +44,12 @@ class GameControllerTest {
     @MockitoBean
     private DtoMapper dtoMapper;
 
+    @MockitoBean
+    private BoardEventBroadcaster boardEventBroadcaster;
+
+    @Autowired
+    private GameVersions gameVersions;
+
     @Test
     void startNewGame_withDefaultConfig_returnsCreatedGame() throws Exception {
         Game createdGame = new Game(10,10);
@@ -119,6 +130,37 @@ class GameControllerTest {
                 .andExpect(jsonPath("$.status", is("FINISHED")));
     }
 
+    @Test
+    void getActiveGame_whenActiveGameUnchanged_returnsNotModifiedWithoutLoading() throws Exception {
+        Game activeGameEntity = mock(Game.class);
+        when(activeGameEntity.getId()).thenReturn(5L);
+        when(activeGameEntity.getStatus()).thenReturn(GameStatus.ACTIVE);
+        when(gameService.findActiveGameOrFail()).thenReturn(activeGameEntity);
+        when(gameService.findGameByIdOrFail(5L)).thenReturn(activeGameEntity);
+        when(dtoMapper.toGameDTO(activeGameEntity)).thenReturn(new GameDTO());
+
+        String etag = mockMvc.perform(get("/api/games/active"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        clearInvocations(gameService, dtoMapper);
+
+        mockMvc.perform(get("/api/games/active").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(gameService);
+        mockMvc.perform(get("/api/games/{gameId}", 5L).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(dtoMapper);
+    }
+
+    @Test
+    void getGameById_whenGameDoesNotExist_ignoresIfNoneMatch() throws Exception {
+        String etag = gameVersions.etag(99L, GameStatus.FINISHED);
+        when(gameService.findGameByIdOrFail(99L)).thenThrow(new GameNotFoundException("Game not found with ID: 99"));
+
+        mockMvc.perform(get("/api/games/{gameId}", 99L).header("If-None-Match", etag))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void getGameById_whenGameDoesNotExist_returnsNotFound() throws Exception {
         long nonExistentGameId = 99L;
@@ -134,4 +176,43 @@ class GameControllerTest {
         verify(dtoMapper, never()).toGameDTO(any());
     }
 
+    @Test
+    void streamGameEvents_whenGameExists_subscribesFromLastEventId() throws Exception {
+        long gameId = 7L;
+        when(gameService.findGameByIdOrFail(gameId)).thenReturn(mock(Game.class));
+        when(boardEventBroadcaster.subscribe(gameId, "abc-41")).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/games/{gameId}/events", gameId)
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("Last-Event-ID", "abc-41"))
+                .andExpect(request().asyncStarted());
+
+        verify(boardEventBroadcaster).subscribe(gameId, "abc-41");
+    }
+
+    @Test
+    void streamGameEvents_whenGameFinished_returnsNoContent() throws Exception {
+        Game finished = new Game(10, 10);
+        finished.setId(7L);
+        finished.setStatus(GameStatus.FINISHED);
+        when(gameService.findGameByIdOrFail(7L)).thenReturn(finished);
+
+        mockMvc.perform(get("/api/games/{gameId}/events", 7L).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isNoContent());
+
+        verifyNoInteractions(boardEventBroadcaster);
+    }
+
+    @Test
+    void streamGameEvents_whenGameDoesNotExist_returnsNotFound() throws Exception {
+        long nonExistentGameId = 99L;
+        when(gameService.findGameByIdOrFail(nonExistentGameId))
+                .thenThrow(new GameNotFoundException("Game not found with ID: " + nonExistentGameId));
+
+        mockMvc.perform(get("/api/games/{gameId}/events", nonExistentGameId))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(boardEventBroadcaster);
+    }
+
 }
@@ -0,0 +1,138 @@
+package com.bryja.wpisquareboardback.controller;
+
+import com.bryja.wpisquareboardback.dto.CommandHistoryDTO;
+import com.bryja.wpisquareboardback.dto.CommandHistoryPageDTO;
+import com.bryja.wpisquareboardback.exception.GameNotFoundException;
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import com.bryja.wpisquareboardback.model.Position;
+import com.bryja.wpisquareboardback.repository.CommandHistoryFilter;
+import com.bryja.wpisquareboardback.service.CommandHistoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(HistoryController.class)
+class HistoryControllerTest {
+
+    @Autowired private MockMvc mockMvc;
+    @MockitoBean private CommandHistoryService historyService;
+
+    private static final Long GAME_ID = 1L;
+
+    private static CommandHistoryDTO entry(long id, String result) {
+        return new CommandHistoryDTO(id, GAME_ID, 10L, PlayerColor.WHITE, CommandType.MOVE, new Position(1, 2), Instant.now(), result);
+    }
+
+    @Test
+    void getHistory_forUnitWithFilters_returnsPage() throws Exception {
+        CommandHistoryPageDTO page = new CommandHistoryPageDTO();
+        page.setItems(List.of(entry(7L, "FAILED: blocked")));
+        page.setNextCursor("abc");
+        CommandHistoryFilter expectedFilter = new CommandHistoryFilter(GAME_ID, 10L, PlayerColor.WHITE, CommandType.MOVE, false);
+        when(historyService.findPage(expectedFilter, "prev", 20)).thenReturn(page);
+
+        mockMvc.perform(get("/api/games/{gameId}/units/{unitId}/history", GAME_ID, 10L)
+                        .param("player", "WHITE").param("commandType", "MOVE").param("success", "false")
+                        .param("cursor", "prev").param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.items[0].id", is(7)))
+                .andExpect(jsonPath("$.items[0].success", is(false)))
+                .andExpect(jsonPath("$.nextCursor", is("abc")));
+    }
+
+    @Test
+    void getHistory_withUnknownCommandType_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/games/{gameId}/history", GAME_ID).param("commandType", "DANCE"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Invalid value 'DANCE' for parameter 'commandType'.")));
+
+        verifyNoInteractions(historyService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamHistory_asNdjson_writesOneEntryPerLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<CommandHistoryDTO> sink = invocation.getArgument(2);
+            sink.accept(entry(2L, "SUCCESS: Moved"));
+            sink.accept(entry(1L, "FAILED: cooldown"));
+            return null;
+        }).when(historyService).streamAll(eq(new CommandHistoryFilter(GAME_ID, null, null, null, null)), isNull(), any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/games/{gameId}/history", GAME_ID).accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).startsWith("{\"id\":2,");
+    }
+
+    @Test
+    void streamHistory_forUnknownGame_returnsNotFoundBeforeStreaming() throws Exception {
+        doThrow(new GameNotFoundException("Game not found with ID: 99")).when(historyService).requireGame(99L);
+
+        mockMvc.perform(get("/api/games/{gameId}/history", 99L).accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", is("Game not found with ID: 99")));
+
+        verify(historyService, never()).streamAll(any(), any(), any());
+    }
+
+    @Test
+    void streamHistory_withMalformedCursor_returnsBadRequestBeforeStreaming() throws Exception {
+        mockMvc.perform(get("/api/games/{gameId}/history", GAME_ID).param("cursor", "not a cursor!")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Invalid history cursor: not a cursor!")));
+
+        verifyNoInteractions(historyService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamHistory_whenReadingFailsMidStream_endsWithAnErrorLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<CommandHistoryDTO> sink = invocation.getArgument(2);
+            sink.accept(entry(2L, "SUCCESS: Moved"));
+            throw new QueryTimeoutException("canceling statement due to statement timeout");
+        }).when(historyService).streamAll(any(), isNull(), any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/games/{gameId}/history", GAME_ID).accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).startsWith("{\"id\":2,");
+        assertThat(lines.get(1)).startsWith("{\"status\":500,\"error\":\"Internal Server Error\"");
+    }
+}
@@ -1,41 +1,79 @@
 package com.bryja.wpisquareboardback.controller;
 
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
 import com.bryja.wpisquareboardback.dto.*;
 import com.bryja.wpisquareboardback.exception.*; // Import custom exceptions
 import com.bryja.wpisquareboardback.mapper.DtoMapper;
 import com.bryja.wpisquareboardback.model.*;
+import com.bryja.wpisquareboardback.repository.GameRepository;
+import com.bryja.wpisquareboardback.service.CommandMetrics;
+import com.bryja.wpisquareboardback.service.CommandOutcome;
 import com.bryja.wpisquareboardback.service.CommandService;
+import com.bryja.wpisquareboardback.service.CommandTickEngine;
+import com.bryja.wpisquareboardback.service.GameCommandExecutor;
+import com.bryja.wpisquareboardback.service.GameService;
 import com.bryja.wpisquareboardback.service.UnitService;
+import com.bryja.wpisquareboardback.state.CooldownLedger;
+import com.bryja.wpisquareboardback.state.GameStateStore;
+import com.bryja.wpisquareboardback.state.GameVersions;
+import com.bryja.wpisquareboardback.state.RuleTables;
+import com.bryja.wpisquareboardback.state.UnitState;
+import com.bryja.wpisquareboardback.event.CommandExecutedEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Collections;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.Matchers.not;
 
 @WebMvcTest(UnitController.class)
+@Import({GameCommandExecutor.class, CommandTickEngine.class, CommandMetrics.class, SimpleMeterRegistry.class,
+        CooldownLedger.class, RuleTables.class, GameVersions.class, GameConfigProperties.class})
 class UnitControllerTest {
 
     @Autowired private MockMvc mockMvc;
     @Autowired private ObjectMapper objectMapper;
     @MockitoBean
     private UnitService unitService;
+    @MockitoBean private GameService gameService;
     @MockitoBean private CommandService commandService;
     @MockitoBean private DtoMapper dtoMapper;
+    @MockitoBean private GameStateStore gameStateStore;
+    @MockitoBean private GameRepository gameRepository;
+    @Autowired private SimpleMeterRegistry meterRegistry;
+    @Autowired private CooldownLedger cooldownLedger;
+    @Autowired private GameVersions gameVersions;
 
     private final Long GAME_ID = 1L;
     private final Long UNIT_ID = 10L;
 
+    @BeforeEach
+    void setUp() {
+        when(gameRepository.existsById(GAME_ID)).thenReturn(true);
+        Game game = new Game(10, 10);
+        game.setId(GAME_ID);
+        game.setStatus(GameStatus.ACTIVE);
+        when(gameService.findGameByIdOrFail(GAME_ID)).thenReturn(game);
+    }
+
     @Test
     void listUnits_withPlayerFilter_returnsUnitList() throws Exception {
         UnitDTO unitDto = new UnitDTO();
@@ -66,11 +104,12 @@ class UnitControllerTest {
         commandDto.setTargetX(1);
         commandDto.setTargetY(2);
 
-        Unit updatedUnitEntity = mock(Unit.class);
+        UnitState updatedUnitEntity = mock(UnitState.class);
         UnitDTO updatedUnitDto = new UnitDTO();
         updatedUnitDto.setId(UNIT_ID);
         updatedUnitDto.setPosition(new Position(1,2));
-        when(commandService.executeCommand(GAME_ID, UNIT_ID, commandDto)).thenReturn(updatedUnitEntity);
+        when(commandService.executeCommand(GAME_ID, UNIT_ID, commandDto))
+                .thenReturn(new CommandOutcome(UNIT_ID, CommandType.MOVE, true, "SUCCESS: Moved to Position(x=1, y=2)", updatedUnitEntity));
         when(dtoMapper.toUnitDTO(updatedUnitEntity)).thenReturn(updatedUnitDto);
 
         mockMvc.perform(post("/api/games/{gameId}/units/{unitId}/command", GAME_ID, UNIT_ID)
@@ -100,6 +139,132 @@ class UnitControllerTest {
                         .content(objectMapper.writeValueAsString(commandDto)))
                 .andExpect(status().isTooManyRequests())
                 .andExpect(jsonPath("$.message", is("Unit 10 cannot move yet. Cooldown remaining: 3.0 seconds.")));
+
+        assertThat(meterRegistry.get("game.commands")
+                .tags("unit.type", "UNKNOWN", "command.type", "MOVE", "outcome", "cooldown")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void executeSpecificCommand_whenVehicleBlockedByAlly_returnsUnitAndCountsItAsBlocked() throws Exception {
+        CommandRequestDTO commandDto = new CommandRequestDTO();
+        commandDto.setPlayerColor(PlayerColor.WHITE);
+        commandDto.setCommandType(CommandType.MOVE);
+        commandDto.setTargetX(1);
+        commandDto.setTargetY(4);
+
+        Long vehicleId = 30L; // the context's cooldown ledger may already know UNIT_ID from other tests
+        UnitState vehicle = new UnitState(vehicleId, GAME_ID, PlayerColor.WHITE, UnitType.VEHICLE, new Position(1, 1),
+                UnitStatus.ACTIVE, 0, Instant.now(), 1L);
+        UnitDTO vehicleDto = new UnitDTO();
+        vehicleDto.setId(vehicleId);
+        vehicleDto.setPosition(new Position(1, 1));
+        when(commandService.executeCommand(GAME_ID, vehicleId, commandDto)).thenReturn(new CommandOutcome(vehicleId,
+                CommandType.MOVE, true, "FAILED_BLOCKED: Ally unit at destination Position(x=1, y=4)", vehicle));
+        when(dtoMapper.toUnitDTO(vehicle)).thenReturn(vehicleDto);
+
+        mockMvc.perform(post("/api/games/{gameId}/units/{unitId}/command", GAME_ID, vehicleId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(commandDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.position.y", is(1)));
+
+        assertThat(meterRegistry.get("game.commands")
+                .tags("unit.type", "VEHICLE", "command.type", "MOVE", "outcome", "blocked")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("game.commands")
+                .tags("unit.type", "VEHICLE", "outcome", "success")
+                .timer()).isNull();
+    }
+
+    @Test
+    void listUnits_whenETagStillCurrent_returnsNotModifiedWithoutLoading() throws Exception {
+        when(unitService.getAllActiveUnits(GAME_ID)).thenReturn(Collections.emptyList());
+        when(dtoMapper.toUnitDTOList(anyList())).thenReturn(Collections.emptyList());
+
+        String etag = mockMvc.perform(get("/api/games/{gameId}/units", GAME_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+        clearInvocations(unitService);
+
+        mockMvc.perform(get("/api/games/{gameId}/units", GAME_ID).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+        verifyNoInteractions(unitService);
+
+        // a committed command moves the version on
+        gameVersions.onCommandExecuted(new CommandExecutedEvent(GAME_ID, UNIT_ID, PlayerColor.WHITE, UnitType.ARCHER,
+                CommandType.MOVE, Instant.now(), "SUCCESS", new Position(1, 2), true, null, null, List.of()));
+        mockMvc.perform(get("/api/games/{gameId}/units", GAME_ID).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    void listUnits_whenGameDoesNotExist_ignoresIfNoneMatch() throws Exception {
+        String etag = gameVersions.etag(99L, GameStatus.FINISHED);
+        when(gameService.findGameByIdOrFail(99L)).thenThrow(new GameNotFoundException("Game not found with ID: 99"));
+
+        mockMvc.perform(get("/api/games/{gameId}/units", 99L).header("If-None-Match", etag))
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(unitService);
+    }
+
+    @Test
+    void listUnitChanges_returnsChangedUnitsFromLogWithoutLoading() throws Exception {
+        long since = gameVersions.currentVersion(GAME_ID, GameStatus.ACTIVE);
+        UnitState destroyed = new UnitState(20L, GAME_ID, PlayerColor.BLACK, UnitType.ARCHER, new Position(1, 2),
+                UnitStatus.DESTROYED, 0, null, 2L);
+        gameVersions.onCommandExecuted(new CommandExecutedEvent(GAME_ID, UNIT_ID, PlayerColor.WHITE, UnitType.VEHICLE,
+                CommandType.MOVE, Instant.now(), "SUCCESS", new Position(1, 2), true, 20L, new Position(1, 2), List.of(destroyed)));
+        when(dtoMapper.toUnitChangesDTO(any())).thenCallRealMethod();
+        when(dtoMapper.toUnitDTO(any(UnitState.class))).thenCallRealMethod();
+
+        mockMvc.perform(get("/api/games/{gameId}/units/changes", GAME_ID).param("since", String.valueOf(since))
+                        .param("instanceId", gameVersions.getInstanceId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(since + 1))
+                .andExpect(jsonPath("$.full", is(false)))
+                .andExpect(jsonPath("$.units[0].id", is(20)))
+                .andExpect(jsonPath("$.units[0].status", is("DESTROYED")));
+
+        verifyNoInteractions(unitService);
+    }
+
+    @Test
+    void listUnitChanges_withUnknownVersion_returnsAllActiveUnits() throws Exception {
+        when(unitService.getAllActiveUnits(GAME_ID)).thenReturn(Collections.emptyList());
+        when(dtoMapper.toUnitDTOList(anyList())).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/api/games/{gameId}/units/changes", GAME_ID).param("since", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.full", is(true)))
+                .andExpect(jsonPath("$.instanceId", is(gameVersions.getInstanceId())))
+                .andExpect(jsonPath("$.version").value(gameVersions.currentVersion(GAME_ID)));
+
+        verify(unitService).getAllActiveUnits(GAME_ID);
+    }
+
+    @Test
+    void executeSpecificCommand_whenLedgerShowsCooldown_rejectsWithoutCallingService() throws Exception {
+        cooldownLedger.onCommandExecuted(new CommandExecutedEvent(GAME_ID, UNIT_ID, PlayerColor.WHITE, UnitType.ARCHER,
+                CommandType.MOVE, Instant.now().minusSeconds(1), "SUCCESS: Moved to Position(x=1, y=1)",
+                new Position(1, 1), true, null, null, List.of()));
+        CommandRequestDTO commandDto = new CommandRequestDTO();
+        commandDto.setPlayerColor(PlayerColor.WHITE);
+        commandDto.setCommandType(CommandType.MOVE);
+        commandDto.setTargetX(1);
+        commandDto.setTargetY(2);
+
+        mockMvc.perform(post("/api/games/{gameId}/units/{unitId}/command", GAME_ID, UNIT_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(commandDto)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "4"))
+                .andExpect(jsonPath("$.message", startsWith("Unit 10 cannot perform MOVE yet.")));
+
+        verifyNoInteractions(commandService);
     }
 
     @Test
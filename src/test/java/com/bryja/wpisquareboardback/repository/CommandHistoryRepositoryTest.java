@@ -0,0 +1,164 @@
+package com.bryja.wpisquareboardback.repository;
+
+import com.bryja.wpisquareboardback.dto.CommandHistoryDTO;
+import com.bryja.wpisquareboardback.model.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.bryja.wpisquareboardback.repository.RecordingStatementInspector"})
+class CommandHistoryRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CommandHistoryRepository historyRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Game testGame;
+    private Unit whiteArcher;
+
+    @BeforeEach
+    void setUp() {
+        testGame = entityManager.persistFlushFind(new Game(10, 10));
+        whiteArcher = entityManager.persistAndFlush(new Archer(testGame, PlayerColor.WHITE, new Position(1, 1)));
+    }
+
+    @Test
+    void insertAll_writesEveryEntryIncludingThoseWithoutUnitOrTarget() {
+        historyRepository.insertAll(List.of(
+                new CommandHistoryEntry(testGame.getId(), whiteArcher.getId(), PlayerColor.WHITE, CommandType.MOVE, new Position(1, 2), "SUCCESS: Moved to Position(x=1, y=2)"),
+                new CommandHistoryEntry(testGame.getId(), null, PlayerColor.BLACK, CommandType.SHOOT, null, "FAILED: Unit 99 not found in game " + testGame.getId())));
+        entityManager.clear();
+
+        List<CommandHistoryDTO> history = historyRepository.findPage(allOf(testGame), null, 10);
+
+        assertThat(history).hasSize(2)
+                .extracting(CommandHistoryDTO::getResultDescription)
+                .containsExactlyInAnyOrder("SUCCESS: Moved to Position(x=1, y=2)", "FAILED: Unit 99 not found in game " + testGame.getId());
+        CommandHistoryDTO move = history.stream().filter(h -> h.getCommandType() == CommandType.MOVE).findFirst().orElseThrow();
+        assertThat(move.getUnitId()).isEqualTo(whiteArcher.getId());
+        assertThat(move.getTargetPosition()).isEqualTo(new Position(1, 2));
+        assertThat(move.getExecutingPlayer()).isEqualTo(PlayerColor.WHITE);
+        assertThat(move.isSuccess()).isTrue();
+        CommandHistoryDTO failed = history.stream().filter(h -> h.getCommandType() == CommandType.SHOOT).findFirst().orElseThrow();
+        assertThat(failed.getUnitId()).isNull();
+        assertThat(failed.isSuccess()).isFalse();
+    }
+
+    @Test
+    void insertAll_costsTheSameWhateverTheExistingHistory() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long withoutHistory = statementsToAppendOne(statistics);
+
+        Instant start = Instant.now().minusSeconds(3600);
+        for (int i = 0; i < 500; i++) {
+            CommandHistory old = new CommandHistory(testGame, whiteArcher, PlayerColor.WHITE, CommandType.MOVE, new Position(1, 1), "FAILED: cooldown");
+            old.setTimestamp(start.plusMillis(i));
+            entityManager.persist(old);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        long withLongHistory = statementsToAppendOne(statistics);
+
+        assertThat(withLongHistory).isEqualTo(withoutHistory);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    private long statementsToAppendOne(Statistics statistics) {
+        entityManager.clear();
+        statistics.clear();
+        historyRepository.insertAll(List.of(new CommandHistoryEntry(testGame.getId(), whiteArcher.getId(), PlayerColor.WHITE,
+                CommandType.MOVE, new Position(1, 2), "SUCCESS: Moved to Position(x=1, y=2)")));
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void findPage_walksHistoryInWriteOrderSoLateRowsAreNotSkipped() {
+        Instant start = Instant.parse("2025-05-01T10:00:00Z");
+        for (int i = 0; i < 5; i++) {
+            entry(CommandType.MOVE, "SUCCESS: move " + i, start.plusSeconds(i));
+        }
+
+        List<CommandHistoryDTO> first = historyRepository.findPage(allOf(testGame), null, 3);
+        // written behind, after the client read the first page, though the command ran before all of them
+        entry(CommandType.MOVE, "SUCCESS: late", start.minusSeconds(1));
+        List<CommandHistoryDTO> second = historyRepository.findPage(allOf(testGame), new HistoryCursor(first.get(2).getId()), 3);
+
+        assertThat(first).extracting(CommandHistoryDTO::getResultDescription)
+                .containsExactly("SUCCESS: move 4", "SUCCESS: move 3", "SUCCESS: move 2");
+        assertThat(second).extracting(CommandHistoryDTO::getResultDescription)
+                .containsExactly("SUCCESS: move 1", "SUCCESS: move 0");
+        assertThat(historyRepository.findPage(allOf(testGame), null, 1))
+                .extracting(CommandHistoryDTO::getResultDescription).containsExactly("SUCCESS: late");
+    }
+
+    @Test
+    void findPage_appliesUnitPlayerTypeAndSuccessFilters() {
+        Instant now = Instant.now();
+        entry(CommandType.MOVE, "SUCCESS: Moved", now);
+        entry(CommandType.MOVE, "FAILED: Unit 1 cannot perform MOVE yet.", now);
+        entry(CommandType.SHOOT, "SUCCESS: Shot target", now);
+
+        CommandHistoryFilter failedMoves = new CommandHistoryFilter(testGame.getId(), whiteArcher.getId(), PlayerColor.WHITE, CommandType.MOVE, false);
+        CommandHistoryFilter blackOnly = new CommandHistoryFilter(testGame.getId(), null, PlayerColor.BLACK, null, null);
+
+        assertThat(historyRepository.findPage(failedMoves, null, 10))
+                .extracting(CommandHistoryDTO::getResultDescription).containsExactly("FAILED: Unit 1 cannot perform MOVE yet.");
+        assertThat(historyRepository.findPage(blackOnly, null, 10)).isEmpty();
+    }
+
+    @Test
+    void streamAll_returnsEveryMatchingRowNewestFirst() {
+        Instant start = Instant.parse("2025-05-01T10:00:00Z");
+        for (int i = 0; i < 30; i++) {
+            entry(CommandType.MOVE, "SUCCESS: move " + i, start.plusSeconds(i));
+        }
+
+        try (Stream<CommandHistoryDTO> rows = historyRepository.streamAll(allOf(testGame), null)) {
+            assertThat(rows.map(CommandHistoryDTO::getResultDescription).toList())
+                    .hasSize(30).startsWith("SUCCESS: move 29", "SUCCESS: move 28").endsWith("SUCCESS: move 0");
+        }
+    }
+
+    @Test
+    void findPage_seeksIntoTheGameIdIndexAtTheCursor() {
+        entry(CommandType.MOVE, "SUCCESS: Moved", Instant.now());
+
+        String plan = RecordingStatementInspector.explainIssued(entityManager.getEntityManager(),
+                () -> historyRepository.findPage(allOf(testGame), new HistoryCursor(Long.MAX_VALUE), 20));
+
+        // H2 notes the index and the conditions it seeks on in a comment after the table
+        String indexLookup = plan.substring(plan.indexOf("/*"), plan.indexOf("*/"));
+        assertThat(indexLookup).containsIgnoringCase("idx_command_history_game_id")
+                .containsIgnoringCase("game_id = ?").containsIgnoringCase("id < ?");
+    }
+
+    private static CommandHistoryFilter allOf(Game game) {
+        return new CommandHistoryFilter(game.getId(), null, null, null, null);
+    }
+
+    private void entry(CommandType commandType, String result, Instant timestamp) {
+        CommandHistory history = new CommandHistory(testGame, whiteArcher, PlayerColor.WHITE, commandType, new Position(1, 2), result);
+        history.setTimestamp(timestamp);
+        entityManager.persist(history);
+        entityManager.flush();
+    }
+}
@@ -1,16 +1,21 @@
 package com.bryja.wpisquareboardback.repository;
 
 import com.bryja.wpisquareboardback.model.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class GameRepositoryTest {
 
     @Autowired
@@ -19,6 +24,9 @@ class GameRepositoryTest {
     @Autowired
     private GameRepository gameRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     void findByStatus_whenActiveGameExists_returnsGame() {
         Game activeGame = new Game(10,10);
@@ -51,4 +59,56 @@ class GameRepositoryTest {
         Optional<Game> foundGame = gameRepository.findByStatus(GameStatus.ACTIVE);
         assertThat(foundGame).isNotPresent();
     }
+
+    @Test
+    void save_gameWithUnits_insertsInBatches() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Game game = new Game(10, 10);
+        for (int i = 0; i < 22; i++) {
+            PlayerColor color = i % 2 == 0 ? PlayerColor.WHITE : PlayerColor.BLACK;
+            Position position = new Position(i % 10, i / 10);
+            Unit unit = switch (i % 3) {
+                case 0 -> new Archer(game, color, position);
+                case 1 -> new Vehicle(game, color, position);
+                default -> new Cannon(game, color, position);
+            };
+            game.addUnit(unit);
+        }
+        statistics.clear();
+
+        gameRepository.save(game);
+        entityManager.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(23);
+        // one batch per unit subclass plus the game and a few sequence calls, instead of one insert per row
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(8);
+        assertThat(game.getUnits()).allSatisfy(unit -> assertThat(unit.getId()).isNotNull());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // only committed games are cached
+    void findByStatusAndExistsById_areCachedUntilTheGamesTableChanges() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Game first = gameRepository.save(new Game(10, 10));
+        try {
+            gameRepository.findByStatus(GameStatus.ACTIVE);
+            gameRepository.existsById(first.getId());
+            statistics.clear();
+
+            assertThat(gameRepository.findByStatus(GameStatus.ACTIVE)).get().extracting(Game::getId).isEqualTo(first.getId());
+            assertThat(gameRepository.existsById(first.getId())).isTrue();
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+            assertThat(statistics.getQueryCacheHitCount()).isEqualTo(2);
+
+            // what createNewGame does: finish the active game, then start the next one
+            first.setStatus(GameStatus.FINISHED);
+            gameRepository.save(first);
+            Game second = gameRepository.save(new Game(10, 10));
+
+            assertThat(gameRepository.findByStatus(GameStatus.ACTIVE)).get().extracting(Game::getId).isEqualTo(second.getId());
+            assertThat(gameRepository.existsById(second.getId())).isTrue();
+        } finally {
+            gameRepository.deleteAll();
+        }
+    }
 }
@@ -0,0 +1,85 @@
+package com.bryja.wpisquareboardback.repository;
+
+import com.bryja.wpisquareboardback.model.*;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks what {@code schema-postgresql.sql} adds, which H2 can't stand in for. Runs only against a PostgreSQL
+ * given with {@code -Dtest.postgres.url=jdbc:postgresql://localhost:5432/<db>} (and {@code test.postgres.username},
+ * {@code test.postgres.password}); the tables of that database are dropped and recreated.
+ */
+@EnabledIfSystemProperty(named = "test.postgres.url", matches = ".+")
+@DataJpaTest(properties = {
+        "spring.sql.init.platform=postgresql",
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PostgresSchemaTest {
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("test.postgres.url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("test.postgres.username", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getProperty("test.postgres.password", "postgres"));
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UnitRepository unitRepository;
+
+    private Game game;
+
+    @BeforeEach
+    void setUp() {
+        game = entityManager.persistFlushFind(new Game(10, 10));
+    }
+
+    @Test
+    void secondActiveUnitOnASquare_isRejectedByItsOwnStatement() {
+        entityManager.persistAndFlush(new Archer(game, PlayerColor.WHITE, new Position(3, 3)));
+
+        entityManager.persist(new Cannon(game, PlayerColor.BLACK, new Position(3, 3)));
+
+        assertThatThrownBy(() -> entityManager.flush())
+                .isInstanceOf(PersistenceException.class)
+                .hasStackTraceContaining("uk_units_active_position");
+    }
+
+    @Test
+    void destroyedUnitsAndOtherGames_doNotHoldTheSquare() {
+        Unit destroyed = new Archer(game, PlayerColor.WHITE, new Position(3, 3));
+        destroyed.setStatus(UnitStatus.DESTROYED);
+        entityManager.persist(destroyed);
+        entityManager.persist(new Cannon(game, PlayerColor.BLACK, new Position(3, 3)));
+        Game otherGame = entityManager.persist(new Game(10, 10));
+        entityManager.persist(new Vehicle(otherGame, PlayerColor.WHITE, new Position(3, 3)));
+
+        entityManager.flush();
+    }
+
+    @Test
+    void vehicleRunningOverAUnit_passesTheCheckAfterEachStatement() {
+        Unit victim = entityManager.persist(new Archer(game, PlayerColor.BLACK, new Position(3, 3)));
+        Unit vehicle = entityManager.persistAndFlush(new Vehicle(game, PlayerColor.WHITE, new Position(2, 3)));
+
+        // the order CommandService writes them in
+        assertThat(unitRepository.destroyIfActive(victim.getId(), victim.getVersion())).isEqualTo(1);
+        assertThat(unitRepository.moveIfFree(vehicle.getId(), vehicle.getVersion(), 3, 3, 1, Instant.now())).isEqualTo(1);
+    }
+}
@@ -0,0 +1,44 @@
+package com.bryja.wpisquareboardback.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Remembers the SQL Hibernate sends, so tests can EXPLAIN the statements the repositories really issue. Enabled
+ * with {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql);
+        return sql;
+    }
+
+    /**
+     * Plan of the one statement {@code query} sends, exactly as Hibernate generated it (parameters left unbound).
+     */
+    static String explainIssued(EntityManager entityManager, Runnable query) {
+        statements.clear();
+        query.run();
+        if (statements.size() != 1) {
+            throw new IllegalStateException("Expected one statement, got " + statements);
+        }
+        String sql = statements.get(0);
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+                 ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        });
+    }
+}
@@ -7,12 +7,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.bryja.wpisquareboardback.repository.RecordingStatementInspector")
 class UnitRepositoryTest {
 
     @Autowired
@@ -97,4 +99,77 @@ class UnitRepositoryTest {
         assertThat(unitOpt).isNotPresent();
     }
 
+
+    @Test
+    void moveIfFree_whenVersionMatchesAndTargetFree_movesAndBumpsVersion() {
+        Instant actedAt = Instant.now();
+
+        int updated = unitRepository.moveIfFree(whiteArcher.getId(), whiteArcher.getVersion(), 1, 2, 1, actedAt);
+        entityManager.clear();
+
+        assertThat(updated).isEqualTo(1);
+        Unit moved = entityManager.find(Unit.class, whiteArcher.getId());
+        assertThat(moved.getPosition()).isEqualTo(new Position(1, 2));
+        assertThat(moved.getMoveCount()).isEqualTo(1);
+        assertThat(moved.getVersion()).isEqualTo(whiteArcher.getVersion() + 1);
+    }
+
+    @Test
+    void moveIfFree_whenTargetHeldByActiveUnit_updatesNothing() {
+        assertThat(unitRepository.moveIfFree(whiteArcher.getId(), whiteArcher.getVersion(), 5, 5, 1, Instant.now())).isZero();
+        // a destroyed unit does not hold its square
+        assertThat(unitRepository.moveIfFree(whiteArcher.getId(), whiteArcher.getVersion(), 2, 2, 1, Instant.now())).isEqualTo(1);
+    }
+
+    @Test
+    void conditionalUpdates_whenVersionIsStale_updateNothing() {
+        Long staleVersion = whiteArcher.getVersion() - 1;
+
+        assertThat(unitRepository.moveIfFree(whiteArcher.getId(), staleVersion, 1, 2, 1, Instant.now())).isZero();
+        assertThat(unitRepository.recordActionIfActive(whiteArcher.getId(), staleVersion, Instant.now())).isZero();
+        assertThat(unitRepository.destroyIfActive(whiteArcher.getId(), staleVersion)).isZero();
+    }
+
+    @Test
+    void destroyIfActive_onlyDestroysActiveUnits() {
+        assertThat(unitRepository.destroyIfActive(blackVehicle.getId(), blackVehicle.getVersion())).isEqualTo(1);
+        assertThat(unitRepository.destroyIfActive(destroyedWhiteCannon.getId(), destroyedWhiteCannon.getVersion())).isZero();
+        entityManager.clear();
+
+        assertThat(entityManager.find(Unit.class, blackVehicle.getId()).getStatus()).isEqualTo(UnitStatus.DESTROYED);
+    }
+
+    @Test
+    void moveIfFree_looksTheTargetSquareUpThroughGameStatusPositionIndex() {
+        String plan = explainIssued(() -> unitRepository.moveIfFree(whiteArcher.getId(), whiteArcher.getVersion(), 1, 2, 1, Instant.now()));
+
+        assertThat(plan).containsIgnoringCase("idx_units_game_status_position: status = ")
+                .containsIgnoringCase("and x = ?").containsIgnoringCase("and y = ?");
+    }
+
+    @Test
+    void activeUnitsLookup_readsOnlyTheGamesUnitsThroughAnIndex() {
+        String plan = explainIssued(() -> unitRepository.findByGameIdAndStatus(testGame.getId(), UnitStatus.ACTIVE));
+
+        // H2 picks between the foreign key index and idx_units_game_status_position by its own estimates
+        assertThat(plan).containsIgnoringCase("game_id = ?").doesNotContainIgnoringCase("tableScan").doesNotContainIgnoringCase("games");
+    }
+
+    @Test
+    void playerUnitsLookup_usesGameColorStatusIndex() {
+        String plan = explainIssued(() -> unitRepository.findByGameIdAndPlayerColorAndStatus(testGame.getId(), PlayerColor.WHITE, UnitStatus.ACTIVE));
+
+        assertThat(plan).containsIgnoringCase("idx_units_game_color_status").doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void boardLoad_readsOnlyTheGamesUnitsThroughAnIndex() {
+        String plan = explainIssued(() -> unitRepository.findByGameId(testGame.getId()));
+
+        assertThat(plan).containsIgnoringCase("game_id = ?").doesNotContainIgnoringCase("tableScan").doesNotContainIgnoringCase("games");
+    }
+
+    private String explainIssued(Runnable query) {
+        return RecordingStatementInspector.explainIssued(entityManager.getEntityManager(), query);
+    }
 }
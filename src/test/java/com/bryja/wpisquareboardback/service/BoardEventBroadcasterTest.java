@@ -0,0 +1,240 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.dto.BoardEventDTO;
+import com.bryja.wpisquareboardback.event.CommandExecutedEvent;
+import com.bryja.wpisquareboardback.event.GameStartedEvent;
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.Game;
+import com.bryja.wpisquareboardback.model.GameStatus;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import com.bryja.wpisquareboardback.model.Position;
+import com.bryja.wpisquareboardback.model.UnitType;
+import com.bryja.wpisquareboardback.repository.GameRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BoardEventBroadcasterTest {
+
+    private static final Long GAME_ID = 1L;
+
+    private GameConfigProperties config;
+    private GameRepository gameRepository;
+    private Game game;
+    private BoardEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        config = new GameConfigProperties();
+        config.getEvents().setSubscriberBufferSize(4);
+        game = new Game(10, 10);
+        gameRepository = mock(GameRepository.class);
+        when(gameRepository.findById(GAME_ID)).thenReturn(Optional.of(game));
+        broadcaster = new BoardEventBroadcaster(config, gameRepository, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    private static CommandExecutedEvent vehicleRanOver(Long unitId, Long victimId) {
+        return new CommandExecutedEvent(GAME_ID, unitId, PlayerColor.WHITE, UnitType.VEHICLE, CommandType.MOVE, Instant.now(),
+                "SUCCESS: Moved to Position(x=3, y=3), destroyed enemy unit " + victimId, new Position(3, 3), true, victimId, new Position(3, 3), List.of());
+    }
+
+    private static CommandExecutedEvent missedShot(Long unitId) {
+        return new CommandExecutedEvent(GAME_ID, unitId, PlayerColor.BLACK, UnitType.CANNON, CommandType.SHOOT, Instant.now(),
+                "SUCCESS: Shot target Position(x=0, y=0) - missed", new Position(5, 5), false, null, null, List.of());
+    }
+
+    @Test
+    void onCommandExecuted_pushesMoveDestroyAndResultWithIncreasingIds() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(3);
+        broadcaster.subscribe(GAME_ID, null, emitter);
+
+        broadcaster.onCommandExecuted(vehicleRanOver(10L, 20L));
+
+        List<BoardEventDTO> events = emitter.await();
+        assertThat(events).extracting(BoardEventDTO::getType).containsExactly(
+                BoardEventDTO.Type.UNIT_MOVED, BoardEventDTO.Type.UNIT_DESTROYED, BoardEventDTO.Type.COMMAND_RESULT);
+        long first = events.get(0).getSequence();
+        assertThat(events).extracting(BoardEventDTO::getSequence).containsExactly(first, first + 1, first + 2);
+        assertThat(events.get(1).getUnitId()).isEqualTo(20L);
+        assertThat(events.get(2).getResult()).startsWith("SUCCESS: Moved");
+    }
+
+    @Test
+    void subscribe_withLastEventId_replaysOnlyMissedEvents() throws Exception {
+        RecordingEmitter before = new RecordingEmitter(1);
+        broadcaster.subscribe(GAME_ID, null, before);
+        broadcaster.onCommandExecuted(missedShot(30L));
+        long seen = before.await().get(0).getSequence();
+        broadcaster.onCommandExecuted(missedShot(31L));
+        broadcaster.onCommandExecuted(missedShot(32L));
+
+        RecordingEmitter emitter = new RecordingEmitter(2);
+        broadcaster.subscribe(GAME_ID, broadcaster.eventId(seen), emitter);
+
+        assertThat(emitter.await()).extracting(BoardEventDTO::getUnitId).containsExactly(31L, 32L);
+    }
+
+    @Test
+    void subscribe_withUnknownLastEventId_asksClientToResync() throws Exception {
+        RecordingEmitter before = new RecordingEmitter(1);
+        broadcaster.subscribe(GAME_ID, null, before);
+        broadcaster.onCommandExecuted(missedShot(30L));
+        long last = before.await().get(0).getSequence();
+
+        RecordingEmitter emitter = new RecordingEmitter(1);
+        broadcaster.subscribe(GAME_ID, broadcaster.eventId(last + 99), emitter);
+
+        BoardEventDTO resync = emitter.await().get(0);
+        assertThat(resync.getType()).isEqualTo(BoardEventDTO.Type.RESYNC);
+        assertThat(resync.getSequence()).isEqualTo(last);
+    }
+
+    @Test
+    void subscribe_withLastEventIdFromBeforeARestart_asksClientToResync() throws Exception {
+        BoardEventBroadcaster previous = new BoardEventBroadcaster(config, gameRepository, new SimpleMeterRegistry());
+        RecordingEmitter earlier = new RecordingEmitter(3);
+        previous.subscribe(GAME_ID, null, earlier);
+        for (long unitId = 30; unitId < 33; unitId++) {
+            previous.onCommandExecuted(missedShot(unitId));
+        }
+        String staleId = previous.eventId(earlier.await().get(0).getSequence());
+        previous.shutdown();
+
+        BoardEventBroadcaster restarted = new BoardEventBroadcaster(config, gameRepository, new SimpleMeterRegistry());
+        try {
+            restarted.subscribe(GAME_ID, null, new RecordingEmitter(3));
+            for (long unitId = 40; unitId < 43; unitId++) {
+                restarted.onCommandExecuted(missedShot(unitId)); // as many events as before, so the sequences alone would match
+            }
+            RecordingEmitter emitter = new RecordingEmitter(1);
+            restarted.subscribe(GAME_ID, staleId, emitter);
+
+            assertThat(emitter.await()).extracting(BoardEventDTO::getType).containsExactly(BoardEventDTO.Type.RESYNC);
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    void onGameStarted_endsStreamsOfTheFinishedGameAfterPendingEvents() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(1);
+        broadcaster.subscribe(GAME_ID, null, emitter);
+        broadcaster.onCommandExecuted(missedShot(30L));
+
+        game.setStatus(GameStatus.FINISHED);
+        broadcaster.onGameStarted(new GameStartedEvent(2L, GAME_ID));
+
+        assertThat(emitter.await()).extracting(BoardEventDTO::getUnitId).containsExactly(30L);
+        assertThat(emitter.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(broadcaster.hasChannel(GAME_ID)).isFalse();
+    }
+
+    @Test
+    void onCommandExecuted_forAGameWithoutChannel_doesNotOpenOne() {
+        broadcaster.onCommandExecuted(missedShot(30L)); // e.g. a command sent to a finished game
+
+        assertThat(broadcaster.hasChannel(GAME_ID)).isFalse();
+    }
+
+    @Test
+    void subscribe_racingTheGameFinishing_endsTheStreamAndDropsTheChannel() throws Exception {
+        game.setStatus(GameStatus.FINISHED); // committed, but onGameStarted already ran before this subscriber registered
+
+        RecordingEmitter late = new RecordingEmitter(0);
+        broadcaster.subscribe(GAME_ID, null, late);
+
+        assertThat(late.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(broadcaster.hasChannel(GAME_ID)).isFalse();
+    }
+
+    @Test
+    void slowSubscriber_isDisconnectedWithoutHoldingUpPublishingOrOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter stuck = new RecordingEmitter(1) {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.send(builder);
+            }
+        };
+        RecordingEmitter healthy = new RecordingEmitter(10);
+        broadcaster.subscribe(GAME_ID, null, stuck);
+        broadcaster.subscribe(GAME_ID, null, healthy);
+
+        for (long unitId = 1; unitId <= 10; unitId++) {
+            long published = unitId;
+            assertTimeoutPreemptively(Duration.ofMillis(500), () -> broadcaster.onCommandExecuted(missedShot(published)));
+            healthy.awaitAtLeast((int) published); // keeps up, unlike the stuck one with its buffer of 4
+        }
+        release.countDown();
+
+        assertThat(healthy.await()).hasSize(10);
+        assertThat(stuck.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(healthy.completed.getCount()).isEqualTo(1);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<BoardEventDTO> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch received;
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        RecordingEmitter(int expectedEvents) {
+            this.received = new CountDownLatch(expectedEvents);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            builder.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(BoardEventDTO.class::isInstance)
+                    .forEach(data -> {
+                        events.add((BoardEventDTO) data);
+                        received.countDown();
+                    });
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        void awaitAtLeast(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(events).as("events received in time").hasSizeGreaterThanOrEqualTo(count);
+        }
+
+        List<BoardEventDTO> await() throws InterruptedException {
+            assertThat(received.await(5, TimeUnit.SECONDS)).as("events received in time").isTrue();
+            return events;
+        }
+    }
+}
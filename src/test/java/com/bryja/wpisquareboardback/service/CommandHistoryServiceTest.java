@@ -0,0 +1,76 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.dto.CommandHistoryDTO;
+import com.bryja.wpisquareboardback.dto.CommandHistoryPageDTO;
+import com.bryja.wpisquareboardback.exception.GameNotFoundException;
+import com.bryja.wpisquareboardback.exception.InvalidCommandException;
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import com.bryja.wpisquareboardback.repository.CommandHistoryFilter;
+import com.bryja.wpisquareboardback.repository.CommandHistoryRepository;
+import com.bryja.wpisquareboardback.repository.GameRepository;
+import com.bryja.wpisquareboardback.repository.HistoryCursor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CommandHistoryServiceTest {
+
+    @Mock
+    private CommandHistoryRepository historyRepository;
+    @Mock
+    private GameRepository gameRepository;
+
+    @InjectMocks
+    private CommandHistoryService historyService;
+
+    private final CommandHistoryFilter filter = new CommandHistoryFilter(1L, null, null, null, null);
+
+    private static CommandHistoryDTO entry(long id, Instant timestamp) {
+        return new CommandHistoryDTO(id, 1L, 10L, PlayerColor.WHITE, CommandType.MOVE, null, timestamp, "SUCCESS");
+    }
+
+    @Test
+    void findPage_whenMoreRowsThanLimit_returnsCursorOfLastRowOnPage() {
+        Instant now = Instant.now();
+        when(gameRepository.existsById(1L)).thenReturn(true);
+        when(historyRepository.findPage(filter, null, 3)).thenReturn(List.of(entry(9, now), entry(8, now), entry(7, now.minusSeconds(1))));
+
+        CommandHistoryPageDTO page = historyService.findPage(filter, null, 2);
+
+        assertThat(page.getItems()).extracting(CommandHistoryDTO::getId).containsExactly(9L, 8L);
+        assertThat(HistoryCursor.decode(page.getNextCursor())).isEqualTo(new HistoryCursor(8L));
+    }
+
+    @Test
+    void findPage_onLastPage_hasNoCursor() {
+        HistoryCursor after = new HistoryCursor(8L);
+        when(gameRepository.existsById(1L)).thenReturn(true);
+        when(historyRepository.findPage(filter, after, 3)).thenReturn(List.of(entry(7, Instant.now())));
+
+        CommandHistoryPageDTO page = historyService.findPage(filter, after.encode(), 2);
+
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void findPage_withBadLimitCursorOrGame_throws() {
+        assertThatThrownBy(() -> historyService.findPage(filter, null, 0)).isInstanceOf(InvalidCommandException.class);
+        assertThatThrownBy(() -> historyService.findPage(filter, null, CommandHistoryService.MAX_PAGE_SIZE + 1)).isInstanceOf(InvalidCommandException.class);
+        assertThatThrownBy(() -> historyService.findPage(filter, "not-a-cursor", 10)).isInstanceOf(InvalidCommandException.class);
+        assertThatThrownBy(() -> historyService.findPage(filter, null, 10)).isInstanceOf(GameNotFoundException.class);
+
+        verify(historyRepository, never()).findPage(any(), any(), anyInt());
+    }
+}
@@ -0,0 +1,103 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.model.CommandHistoryEntry;
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import com.bryja.wpisquareboardback.repository.CommandHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class CommandHistoryWriterTest {
+
+    private final CommandHistoryRepository historyRepository = mock(CommandHistoryRepository.class);
+    private final GameConfigProperties config = new GameConfigProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Integer> writtenBatches = Collections.synchronizedList(new ArrayList<>());
+    private CommandHistoryWriter historyWriter;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            writtenBatches.add(invocation.<List<CommandHistoryEntry>>getArgument(0).size());
+            return null;
+        }).when(historyRepository).insertAll(anyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        historyWriter.stop();
+    }
+
+    private CommandHistoryWriter writer(int batchSize, long maxDelayMillis) {
+        config.getHistory().setBatchSize(batchSize);
+        config.getHistory().setMaxDelayMillis(maxDelayMillis);
+        historyWriter = new CommandHistoryWriter(historyRepository, mock(PlatformTransactionManager.class), config, meterRegistry);
+        return historyWriter;
+    }
+
+    private CommandHistoryEntry entry(int n) {
+        return new CommandHistoryEntry(1L, 10L, PlayerColor.WHITE, CommandType.MOVE, null, "SUCCESS: " + n);
+    }
+
+    @Test
+    void append_writesQueuedEntriesInBatchesOfConfiguredSize() {
+        writer(3, 50).start();
+
+        for (int i = 0; i < 7; i++) {
+            historyWriter.append(entry(i));
+        }
+
+        verify(historyRepository, timeout(2000).atLeast(3)).insertAll(anyList());
+        assertThat(writtenBatches).allMatch(size -> size <= 3);
+        assertThat(writtenBatches.stream().mapToInt(Integer::intValue).sum()).isEqualTo(7);
+        assertThat(meterRegistry.get("command.history.batch.size").summary().totalAmount()).isEqualTo(7);
+        assertThat(meterRegistry.get("command.history.queue.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void stop_flushesPendingEntries() {
+        writer(100, 300).start();
+        historyWriter.append(entry(1));
+        historyWriter.append(entry(2));
+
+        historyWriter.stop();
+
+        assertThat(writtenBatches).containsExactly(2);
+        assertThat(historyWriter.isRunning()).isFalse();
+    }
+
+    @Test
+    void write_whenBatchFails_retriesEntriesOneByOne() {
+        doThrow(new IllegalStateException("FK violation")).when(historyRepository).insertAll(argThat(entries -> entries.size() > 1));
+        writer(100, 20).start();
+
+        historyWriter.append(entry(1));
+        historyWriter.append(entry(2));
+        historyWriter.stop();
+
+        verify(historyRepository, times(2)).insertAll(argThat(entries -> entries.size() == 1));
+    }
+
+    @Test
+    void append_whenWriterNotRunning_writesSynchronously() {
+        writer(100, 50);
+
+        historyWriter.append(entry(1));
+
+        assertThat(writtenBatches).containsExactly(1);
+        assertThat(meterRegistry.get("command.history.sync.writes").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,86 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.exception.ConcurrencyConflictException;
+import com.bryja.wpisquareboardback.exception.PositionOccupiedException;
+import com.bryja.wpisquareboardback.model.*;
+import com.bryja.wpisquareboardback.state.GameStateStore;
+import com.bryja.wpisquareboardback.state.UnitState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CommandMetricsTest {
+
+    private static final Long GAME_ID = 1L;
+    private static final Long UNIT_ID = 10L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GameStateStore gameStateStore = mock(GameStateStore.class);
+    private final CommandMetrics commandMetrics = new CommandMetrics(meterRegistry, gameStateStore);
+
+    @Test
+    void record_success_isTaggedWithTheUnitTypeOfTheResult() {
+        UnitState vehicle = new UnitState(UNIT_ID, GAME_ID, PlayerColor.WHITE, UnitType.VEHICLE, new Position(1, 1),
+                UnitStatus.ACTIVE, 1, Instant.now(), 1L);
+
+        CommandOutcome moved = new CommandOutcome(UNIT_ID, CommandType.MOVE, true, "SUCCESS: Moved to Position(x=1, y=1)", vehicle);
+
+        CommandOutcome result = commandMetrics.record(GAME_ID, UNIT_ID, CommandType.MOVE, () -> moved);
+
+        assertThat(result).isSameAs(moved);
+        assertThat(timerCount("VEHICLE", "MOVE", "success")).isEqualTo(1);
+    }
+
+    @Test
+    void record_vehicleBumpingIntoAnAlly_isTaggedAsBlocked() {
+        UnitState vehicle = new UnitState(UNIT_ID, GAME_ID, PlayerColor.WHITE, UnitType.VEHICLE, new Position(1, 1),
+                UnitStatus.ACTIVE, 0, Instant.now(), 1L);
+
+        commandMetrics.record(GAME_ID, UNIT_ID, CommandType.MOVE, () -> new CommandOutcome(UNIT_ID, CommandType.MOVE, true,
+                "FAILED_BLOCKED: Ally unit at destination Position(x=1, y=3)", vehicle));
+
+        assertThat(timerCount("VEHICLE", "MOVE", "blocked")).isEqualTo(1);
+        assertThat(meterRegistry.find(CommandMetrics.TIMER).tag("outcome", "success").timer()).isNull();
+    }
+
+    @Test
+    void record_rejection_isTaggedWithItsOutcomeAndRethrown() {
+        when(gameStateStore.peekUnitType(GAME_ID, UNIT_ID)).thenReturn(Optional.of(UnitType.ARCHER));
+
+        assertThatThrownBy(() -> commandMetrics.record(GAME_ID, UNIT_ID, CommandType.MOVE, () -> {
+            throw new PositionOccupiedException("occupied");
+        })).isInstanceOf(PositionOccupiedException.class);
+        assertThatThrownBy(() -> commandMetrics.record(GAME_ID, UNIT_ID, CommandType.RANDOM_MOVE, () -> {
+            throw new ConcurrencyConflictException("conflict");
+        })).isInstanceOf(ConcurrencyConflictException.class);
+        assertThatThrownBy(() -> commandMetrics.record(GAME_ID, UNIT_ID, CommandType.SHOOT, () -> {
+            throw new IllegalStateException("bug");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(timerCount("ARCHER", "MOVE", "blocked")).isEqualTo(1);
+        assertThat(timerCount("ARCHER", "RANDOM_MOVE", "conflict")).isEqualTo(1);
+        assertThat(timerCount("ARCHER", "SHOOT", "error")).isEqualTo(1);
+    }
+
+    @Test
+    void gauges_readTheGamesHeldInMemory() {
+        when(gameStateStore.activeGameCount()).thenReturn(2);
+        when(gameStateStore.activeUnitCount()).thenReturn(37);
+
+        assertThat(meterRegistry.get("games.active").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("games.units.active").gauge().value()).isEqualTo(37);
+    }
+
+    private long timerCount(String unitType, String commandType, String outcome) {
+        return meterRegistry.get(CommandMetrics.TIMER)
+                .tags("unit.type", unitType, "command.type", commandType, "outcome", outcome)
+                .timer().count();
+    }
+}
@@ -2,29 +2,37 @@ package com.bryja.wpisquareboardback.service;
 
 import com.bryja.wpisquareboardback.config.GameConfigProperties;
 import com.bryja.wpisquareboardback.dto.CommandRequestDTO;
+import com.bryja.wpisquareboardback.dto.UnitCommandRequestDTO;
+import com.bryja.wpisquareboardback.event.CommandExecutedEvent;
 import com.bryja.wpisquareboardback.exception.*;
 import com.bryja.wpisquareboardback.model.*;
-import com.bryja.wpisquareboardback.repository.CommandHistoryRepository;
-import com.bryja.wpisquareboardback.repository.GameRepository;
 import com.bryja.wpisquareboardback.repository.UnitRepository;
+import com.bryja.wpisquareboardback.state.GameState;
+import com.bryja.wpisquareboardback.state.GameStateStore;
+import com.bryja.wpisquareboardback.state.RuleTables;
+import com.bryja.wpisquareboardback.state.UnitState;
 import com.bryja.wpisquareboardback.util.BoardUtils;
+import com.bryja.wpisquareboardback.util.GameRandom;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.Optional;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,17 +41,23 @@ class CommandServiceTest {
     @Mock
     private UnitRepository unitRepository;
     @Mock
-    private CommandHistoryRepository historyRepository;
+    private CommandHistoryWriter historyWriter;
     @Mock
-    private GameRepository gameRepository;
+    private GameStateStore gameStateStore;
     @Mock
-    private GameService gameService;
+    private ApplicationEventPublisher eventPublisher;
 
     @Spy
-    private GameConfigProperties gameConfigProperties;
+    private GameConfigProperties gameConfigProperties = new GameConfigProperties();
 
     @Spy
-    private BoardUtils boardUtils;
+    private RuleTables ruleTables = new RuleTables(gameConfigProperties);
+
+    @Spy
+    private CommandRules commandRules = new CommandRules(new BoardUtils(), ruleTables);
+
+    @Spy
+    private MoveGenerator moveGenerator = new MoveGenerator(ruleTables);
 
     @InjectMocks
     private CommandService commandService;
@@ -61,25 +75,25 @@ class CommandServiceTest {
         lenient().when(testGame.getId()).thenReturn(GAME_ID);
         lenient().when(testGame.getBoardWidth()).thenReturn(10);
         lenient().when(testGame.getBoardHeight()).thenReturn(10);
-        whiteArcher = spy(Archer.class);
-        lenient().when(whiteArcher.getId()).thenReturn(ARCHER_ID);
-        lenient().when(whiteArcher.getGame()).thenReturn(testGame);
-        lenient().when(whiteArcher.getPlayerColor()).thenReturn(PlayerColor.WHITE);
-        lenient().when(whiteArcher.getUnitType()).thenReturn(UnitType.ARCHER);
-        lenient().when(whiteArcher.getStatus()).thenReturn(UnitStatus.ACTIVE);
-        lenient().when(whiteArcher.getPosition()).thenReturn(new Position(1, 1));
-        lenient().when(whiteArcher.getLastActionTimestamp()).thenReturn(Instant.EPOCH);
 
-        blackVehicle = spy(Vehicle.class);
-        lenient().when(blackVehicle.getId()).thenReturn(VEHICLE_ID);
-        lenient().when(blackVehicle.getGame()).thenReturn(testGame);
-        lenient().when(blackVehicle.getPlayerColor()).thenReturn(PlayerColor.BLACK);
-        lenient().when(blackVehicle.getUnitType()).thenReturn(UnitType.VEHICLE);
-        lenient().when(blackVehicle.getStatus()).thenReturn(UnitStatus.ACTIVE);
-        lenient().when(blackVehicle.getPosition()).thenReturn(new Position(1, 5));
-        lenient().when(blackVehicle.getLastActionTimestamp()).thenReturn(Instant.EPOCH);
+        whiteArcher = new Archer(testGame, PlayerColor.WHITE, new Position(1, 1));
+        whiteArcher.setId(ARCHER_ID);
+        whiteArcher.setVersion(0L);
 
-        //lenient().when(boardUtils.isWithinBounds(any(Position.class), eq(10), eq(10))).thenReturn(true);
+        blackVehicle = new Vehicle(testGame, PlayerColor.BLACK, new Position(1, 5));
+        blackVehicle.setId(VEHICLE_ID);
+        blackVehicle.setVersion(0L);
+
+        lenient().when(unitRepository.moveIfFree(anyLong(), anyLong(), anyInt(), anyInt(), anyInt(), any())).thenReturn(1);
+        lenient().when(unitRepository.recordActionIfActive(anyLong(), anyLong(), any())).thenReturn(1);
+        lenient().when(unitRepository.destroyIfActive(anyLong(), anyLong())).thenReturn(1);
+    }
+
+    private GameState stateWith(Unit... units) {
+        List<UnitState> unitStates = Arrays.stream(units).map(u -> UnitState.of(u, GAME_ID)).toList();
+        GameState state = new GameState(GAME_ID, 10, 10, unitStates);
+        when(gameStateStore.lock(GAME_ID)).thenReturn(state);
+        return state;
     }
 
     @Test
@@ -91,21 +105,28 @@ class CommandServiceTest {
         moveCommand.setTargetY(1);
 
         Position targetPos = new Position(0, 1);
+        GameState state = stateWith(whiteArcher, blackVehicle);
 
-        when(unitRepository.findByIdAndGameIdForUpdate(ARCHER_ID, GAME_ID)).thenReturn(Optional.of(whiteArcher));
-        lenient().when(gameService.findUnitAtPositionForUpdate(GAME_ID, targetPos)).thenReturn(Optional.empty());
-        when(unitRepository.save(whiteArcher)).thenReturn(whiteArcher);
-        when(historyRepository.save(any(CommandHistory.class))).thenReturn(mock(CommandHistory.class));
-
-        Unit resultUnit = commandService.executeCommand(GAME_ID, ARCHER_ID, moveCommand);
+        UnitState resultUnit = commandService.executeCommand(GAME_ID, ARCHER_ID, moveCommand).getUnit();
 
         assertThat(resultUnit).isNotNull();
         assertThat(resultUnit.getId()).isEqualTo(ARCHER_ID);
-        verify(whiteArcher).setPosition(eq(targetPos));
-        verify(whiteArcher).setLastActionTimestamp(any(Instant.class));
-        verify(whiteArcher).setMoveCount(1);
-        verify(unitRepository).save(whiteArcher);
-        verify(historyRepository).save(any(CommandHistory.class));
+        assertThat(resultUnit.getPosition()).isEqualTo(targetPos);
+        assertThat(resultUnit.getLastActionTimestamp()).isAfter(Instant.EPOCH);
+        assertThat(resultUnit.getMoveCount()).isEqualTo(1);
+
+        UnitState archerState = state.findUnit(ARCHER_ID).orElseThrow();
+        assertThat(archerState.getPosition()).isEqualTo(targetPos);
+        assertThat(archerState.getVersion()).isEqualTo(1L);
+        assertThat(state.findActiveUnitAt(targetPos)).contains(archerState);
+        assertThat(state.findActiveUnitAt(new Position(1, 1))).isEmpty();
+
+        verify(unitRepository).moveIfFree(eq(ARCHER_ID), eq(0L), eq(0), eq(1), eq(1), eq(archerState.getLastActionTimestamp()));
+        verifyNoMoreInteractions(unitRepository);
+        verify(historyWriter).appendAfterCommit(any(CommandHistoryEntry.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof CommandExecutedEvent e
+                && e.getUnitId().equals(ARCHER_ID) && e.getActionTimestamp().equals(archerState.getLastActionTimestamp())
+                && e.getChangedUnits().size() == 1 && e.getChangedUnits().get(0).getPosition().equals(archerState.getPosition())));
     }
 
     @Test
@@ -116,17 +137,19 @@ class CommandServiceTest {
         moveCommand.setTargetX(1);
         moveCommand.setTargetY(2);
 
-        when(whiteArcher.getLastActionTimestamp()).thenReturn(Instant.now().minusSeconds(2));
+        whiteArcher.setLastActionTimestamp(Instant.now().minusSeconds(2));
+        GameState state = stateWith(whiteArcher);
 
-        when(unitRepository.findByIdAndGameIdForUpdate(ARCHER_ID, GAME_ID)).thenReturn(Optional.of(whiteArcher));
-        when(gameRepository.findById(GAME_ID)).thenReturn(Optional.of(testGame));
         assertThatThrownBy(() -> commandService.executeCommand(GAME_ID, ARCHER_ID, moveCommand))
                 .isInstanceOf(CooldownException.class)
-                .hasMessageContaining("Cooldown remaining");
-
-        verify(whiteArcher, never()).setPosition(any());
-        verify(unitRepository, never()).save(any());
-        verify(historyRepository).save(any(CommandHistory.class));
+                .hasMessageContaining("Cooldown remaining")
+                .satisfies(e -> assertThat(((CooldownException) e).getRetryAfter()).isPositive());
+
+        assertThat(state.findUnit(ARCHER_ID).orElseThrow().getPosition()).isEqualTo(new Position(1, 1));
+        assertThat(state.getModCount()).isZero();
+        verifyNoInteractions(unitRepository);
+        verify(historyWriter).append(argThat(h -> h.getResultDescription().startsWith("FAILED: Unit 10 cannot perform MOVE yet")));
+        verify(historyWriter, never()).appendAfterCommit(any(CommandHistoryEntry.class));
     }
 
     @Test
@@ -136,26 +159,24 @@ class CommandServiceTest {
         moveCommand.setCommandType(CommandType.MOVE);
         moveCommand.setTargetX(1);
         moveCommand.setTargetY(4);
-        lenient().when(whiteArcher.getPosition()).thenReturn(new Position(1, 4));
+        whiteArcher.setPosition(new Position(1, 4));
         Position targetPos = new Position(1, 4);
 
+        GameState state = stateWith(whiteArcher, blackVehicle);
 
-        when(unitRepository.findByIdAndGameIdForUpdate(VEHICLE_ID, GAME_ID)).thenReturn(Optional.of(blackVehicle));
-        when(unitRepository.save(any(Unit.class))).thenAnswer(i -> i.getArgument(0));
-        when(historyRepository.save(any(CommandHistory.class))).thenReturn(mock(CommandHistory.class));
-
-        when(gameService.findUnitAtPosition(GAME_ID, new Position(1, 4))).thenReturn(Optional.of(whiteArcher));
+        UnitState vehicle = commandService.executeCommand(GAME_ID, VEHICLE_ID, moveCommand).getUnit();
 
-        commandService.executeCommand(GAME_ID, VEHICLE_ID, moveCommand);
+        assertThat(vehicle.getPosition()).isEqualTo(targetPos);
+        assertThat(vehicle.getLastActionTimestamp()).isAfter(Instant.EPOCH);
+        assertThat(state.findUnit(ARCHER_ID).orElseThrow().isActive()).isFalse();
+        assertThat(state.findActiveUnitAt(targetPos).map(UnitState::getId)).contains(VEHICLE_ID);
 
-        verify(blackVehicle).setPosition(eq(targetPos));
-        verify(blackVehicle).setLastActionTimestamp(any(Instant.class));
-        verify(whiteArcher).setStatus(eq(UnitStatus.DESTROYED));
-        verify(unitRepository).save(blackVehicle);
-        verify(unitRepository).save(whiteArcher);
+        // the victim's square is freed before the vehicle's conditional move checks it
+        InOrder writes = inOrder(unitRepository);
+        writes.verify(unitRepository).destroyIfActive(ARCHER_ID, 0L);
+        writes.verify(unitRepository).moveIfFree(eq(VEHICLE_ID), eq(0L), eq(1), eq(4), eq(1), any());
 
-
-        verify(historyRepository).save(argThat(h -> h.getResultDescription().contains("destroyed enemy unit")));
+        verify(historyWriter).appendAfterCommit(ArgumentMatchers.<CommandHistoryEntry>argThat(h -> h.getResultDescription().contains("destroyed enemy unit")));
     }
 
 
@@ -166,31 +187,304 @@ class CommandServiceTest {
         moveCommand.setCommandType(CommandType.MOVE);
         moveCommand.setTargetX(1);
         moveCommand.setTargetY(2);
-        Position targetPos = new Position(1, 2);
 
-        when(unitRepository.findByIdAndGameIdForUpdate(ARCHER_ID, GAME_ID)).thenReturn(Optional.of(whiteArcher));
-        lenient().when(gameService.findUnitAtPositionForUpdate(GAME_ID, targetPos)).thenReturn(Optional.empty());
-        doThrow(new OptimisticLockingFailureException("Simulated lock conflict"))
-                .when(unitRepository).save(whiteArcher);
+        stateWith(whiteArcher);
+        when(unitRepository.moveIfFree(anyLong(), anyLong(), anyInt(), anyInt(), anyInt(), any()))
+                .thenThrow(new OptimisticLockingFailureException("Simulated lock conflict"));
+
+
+        assertThatThrownBy(() -> commandService.executeCommand(GAME_ID, ARCHER_ID, moveCommand))
+                .isInstanceOf(ConcurrencyConflictException.class)
+                .hasMessageContaining("Concurrency conflict");
+
+        verify(historyWriter).append(argThat(h -> h.getResultDescription().equals("FAILED: Concurrency conflict, please retry.")));
+    }
+
+    @Test
+    void executeCommand_whenConditionalUpdateMatchesNoRow_throwsConcurrencyConflictException() {
+        CommandRequestDTO moveCommand = new CommandRequestDTO();
+        moveCommand.setPlayerColor(PlayerColor.WHITE);
+        moveCommand.setCommandType(CommandType.MOVE);
+        moveCommand.setTargetX(1);
+        moveCommand.setTargetY(2);
 
-        when(gameRepository.findById(GAME_ID)).thenReturn(Optional.of(testGame));
-        when(unitRepository.findById(ARCHER_ID)).thenReturn(Optional.of(whiteArcher));
+        stateWith(whiteArcher);
+        // row was written by someone bypassing the state store (other version, or the target is taken)
+        when(unitRepository.moveIfFree(anyLong(), anyLong(), anyInt(), anyInt(), anyInt(), any())).thenReturn(0);
 
         assertThatThrownBy(() -> commandService.executeCommand(GAME_ID, ARCHER_ID, moveCommand))
-                .isInstanceOf(RuntimeException.class)
-                .hasMessageContaining("Command execution failed unexpectedly");
+                .isInstanceOf(ConcurrencyConflictException.class);
+
+        verify(historyWriter).append(argThat(h -> h.getResultDescription().equals("FAILED: Concurrency conflict, please retry.")));
+        verify(historyWriter, never()).appendAfterCommit(any(CommandHistoryEntry.class));
+    }
+
+    @Test
+    void executeCommand_archerShootsDiagonally_throwsInvalidCommandException() {
+        CommandRequestDTO shootCommand = new CommandRequestDTO();
+        shootCommand.setPlayerColor(PlayerColor.WHITE);
+        shootCommand.setCommandType(CommandType.SHOOT);
+        shootCommand.setTargetX(2);
+        shootCommand.setTargetY(2);
+
+        stateWith(whiteArcher);
+
+        assertThatThrownBy(() -> commandService.executeCommand(GAME_ID, ARCHER_ID, shootCommand))
+                .isInstanceOf(InvalidCommandException.class)
+                .hasMessageContaining("only shoot orthogonally");
+    }
 
-        verify(historyRepository).save(any(CommandHistory.class));
+    @Test
+    void executeCommand_archerShootsAllyInRange_destroysAlly() {
+        CommandRequestDTO shootCommand = new CommandRequestDTO();
+        shootCommand.setPlayerColor(PlayerColor.WHITE);
+        shootCommand.setCommandType(CommandType.SHOOT);
+        shootCommand.setTargetX(1);
+        shootCommand.setTargetY(5);
+
+        Archer allyArcher = new Archer(testGame, PlayerColor.WHITE, new Position(1, 5));
+        allyArcher.setId(30L);
+        allyArcher.setVersion(0L);
+        GameState state = stateWith(whiteArcher, allyArcher);
+
+        commandService.executeCommand(GAME_ID, ARCHER_ID, shootCommand);
+
+        assertThat(state.findUnit(30L).orElseThrow().getStatus()).isEqualTo(UnitStatus.DESTROYED);
+        verify(unitRepository).destroyIfActive(30L, 0L);
+        verify(unitRepository).recordActionIfActive(eq(ARCHER_ID), eq(0L), any());
+        assertThat(state.occupantColor(state.cellIndex(new Position(1, 5)))).isNull();
+        verify(historyWriter).appendAfterCommit(ArgumentMatchers.<CommandHistoryEntry>argThat(h -> h.getResultDescription().contains("destroyed ally unit 30")));
+    }
+
+    @Test
+    void executeRandomCommand_whenShootOnCooldown_onlyPicksFreeMoves() {
+        // moved 6s ago: MOVE (5s) is ready, SHOOT (10s) is not; three of four neighbours are taken, so (1,0) is the only option
+        whiteArcher.setLastActionTimestamp(Instant.now().minusSeconds(6));
+        Archer allyAbove = new Archer(testGame, PlayerColor.WHITE, new Position(1, 2));
+        allyAbove.setId(31L);
+        Archer allyLeft = new Archer(testGame, PlayerColor.WHITE, new Position(0, 1));
+        allyLeft.setId(32L);
+        Archer enemyRight = new Archer(testGame, PlayerColor.BLACK, new Position(2, 1));
+        enemyRight.setId(33L);
+        GameState state = stateWith(whiteArcher, allyAbove, allyLeft, enemyRight);
+        lenient().when(gameStateStore.lock(GAME_ID)).thenReturn(state);
+
+        UnitState result = commandService.executeRandomCommand(GAME_ID, ARCHER_ID, PlayerColor.WHITE).getUnit();
+
+        assertThat(result.getPosition()).isEqualTo(new Position(1, 0));
+        verify(historyWriter).appendAfterCommit(ArgumentMatchers.<CommandHistoryEntry>argThat(h -> h.getCommandType() == CommandType.MOVE
+                && h.getResultDescription().startsWith("SUCCESS: Moved to")));
+    }
+
+    @Test
+    void executeRandomCommand_sameGameSeed_picksTheSameCommand() {
+        GameRandom gameRandom = new GameRandom(gameConfigProperties);
+        for (int run = 0; run < 2; run++) {
+            Archer archer = new Archer(testGame, PlayerColor.WHITE, new Position(4, 4));
+            archer.setId(ARCHER_ID);
+            archer.setVersion(0L);
+            GameState state = new GameState(GAME_ID, 10, 10,
+                    List.of(UnitState.of(archer, GAME_ID)), gameRandom.commandSeed(99L));
+            when(gameStateStore.lock(GAME_ID)).thenReturn(state);
+
+            commandService.executeRandomCommand(GAME_ID, ARCHER_ID, PlayerColor.WHITE);
+        }
+
+        ArgumentCaptor<CommandHistoryEntry> entries = ArgumentCaptor.forClass(CommandHistoryEntry.class);
+        verify(historyWriter, times(2)).appendAfterCommit(entries.capture());
+        CommandHistoryEntry first = entries.getAllValues().get(0);
+        CommandHistoryEntry second = entries.getAllValues().get(1);
+        assertThat(second.getCommandType()).isEqualTo(first.getCommandType());
+        assertThat(second.getTargetPosition()).isEqualTo(first.getTargetPosition());
+    }
+
+    @Test
+    void executeRandomCommand_whenEveryActionOnCooldown_throwsCooldownException() {
+        blackVehicle.setLastActionTimestamp(Instant.now().minusSeconds(1));
+        stateWith(blackVehicle);
+
+        assertThatThrownBy(() -> commandService.executeRandomCommand(GAME_ID, VEHICLE_ID, PlayerColor.BLACK))
+                .isInstanceOf(CooldownException.class);
+
+        verify(historyWriter).append(argThat(h -> h.getCommandType() == CommandType.RANDOM_MOVE));
+    }
+
+    @Test
+    void executeBatch_whenOneCommandRejected_appliesOthers() {
+        GameState state = stateWith(whiteArcher, blackVehicle);
+        UnitCommandRequestDTO archerMove = new UnitCommandRequestDTO();
+        archerMove.setUnitId(ARCHER_ID);
+        archerMove.setPlayerColor(PlayerColor.WHITE);
+        archerMove.setCommandType(CommandType.MOVE);
+        archerMove.setTargetX(1);
+        archerMove.setTargetY(2);
+        UnitCommandRequestDTO foreignVehicle = new UnitCommandRequestDTO();
+        foreignVehicle.setUnitId(VEHICLE_ID);
+        foreignVehicle.setPlayerColor(PlayerColor.WHITE);
+        foreignVehicle.setCommandType(CommandType.MOVE);
+        foreignVehicle.setTargetX(1);
+        foreignVehicle.setTargetY(4);
+        UnitCommandRequestDTO archerShoot = new UnitCommandRequestDTO();
+        archerShoot.setUnitId(ARCHER_ID);
+        archerShoot.setPlayerColor(PlayerColor.WHITE);
+        archerShoot.setCommandType(CommandType.SHOOT);
+        archerShoot.setTargetX(1);
+        archerShoot.setTargetY(5);
+
+        List<CommandOutcome> outcomes = commandService.executeBatch(GAME_ID, List.of(archerMove, foreignVehicle, archerShoot));
+
+        assertThat(outcomes).extracting(CommandOutcome::isSuccess).containsExactly(true, false, false);
+        assertThat(outcomes.get(0).getUnit().getPosition()).isEqualTo(new Position(1, 2));
+        assertThat(outcomes.get(1).getResultDescription()).startsWith("FAILED: Player WHITE cannot command unit 20");
+        assertThat(outcomes.get(2).getResultDescription()).contains("Cooldown remaining"); // sees the move applied before it
+        assertThat(state.findUnit(VEHICLE_ID).orElseThrow().getPosition()).isEqualTo(new Position(1, 5));
+
+        verify(unitRepository).moveIfFree(eq(ARCHER_ID), eq(0L), eq(1), eq(2), eq(1), any());
+        verifyNoMoreInteractions(unitRepository);
+        verify(historyWriter).appendAfterCommit(ArgumentMatchers.<List<CommandHistoryEntry>>argThat(histories -> histories.size() == 3));
+        verify(historyWriter, never()).append(any());
+    }
+
+    @Test
+    void executeBatch_whenOneCommandConflicts_failsTheWholeBatch() {
+        stateWith(whiteArcher, blackVehicle);
+        when(unitRepository.moveIfFree(eq(VEHICLE_ID), anyLong(), anyInt(), anyInt(), anyInt(), any())).thenReturn(0); // changed behind our back
+
+        assertThatThrownBy(() -> commandService.executeBatch(GAME_ID, List.of(
+                tickCommand(ARCHER_ID, PlayerColor.WHITE, CommandType.MOVE, 1, 2),
+                tickCommand(VEHICLE_ID, PlayerColor.BLACK, CommandType.MOVE, 1, 7))))
+                .isInstanceOf(ConcurrencyConflictException.class);
+
+        // the archer's move was written first, it goes with the rollback and none of the batch is recorded
+        verify(unitRepository).moveIfFree(eq(ARCHER_ID), eq(0L), eq(1), eq(2), eq(1), any());
+        verify(historyWriter, never()).appendAfterCommit(ArgumentMatchers.<List<CommandHistoryEntry>>any());
+        verify(historyWriter, never()).append(any());
+    }
+
+    private static UnitCommandRequestDTO tickCommand(Long unitId, PlayerColor player, CommandType type, int x, int y) {
+        UnitCommandRequestDTO command = new UnitCommandRequestDTO();
+        command.setUnitId(unitId);
+        command.setPlayerColor(player);
+        command.setCommandType(type);
+        command.setTargetX(x);
+        command.setTargetY(y);
+        return command;
+    }
+
+    @Test
+    void resolveTick_movesOntoOneSquare_areAllBlockedWhateverTheirOrder() {
+        Archer otherArcher = new Archer(testGame, PlayerColor.WHITE, new Position(1, 3));
+        otherArcher.setId(30L);
+        otherArcher.setVersion(0L);
+        Vehicle whiteVehicle = new Vehicle(testGame, PlayerColor.WHITE, new Position(4, 2));
+        whiteVehicle.setId(40L);
+        whiteVehicle.setVersion(0L);
+        GameState state = stateWith(whiteArcher, otherArcher, whiteVehicle);
+
+        List<CommandOutcome> outcomes = commandService.resolveTick(GAME_ID, List.of(
+                tickCommand(30L, PlayerColor.WHITE, CommandType.MOVE, 1, 2),
+                tickCommand(ARCHER_ID, PlayerColor.WHITE, CommandType.MOVE, 1, 2),
+                tickCommand(40L, PlayerColor.WHITE, CommandType.MOVE, 1, 2)));
+
+        assertThat(outcomes.get(0).getRejection()).isInstanceOf(PositionOccupiedException.class);
+        assertThat(outcomes.get(1).getRejection()).isInstanceOf(PositionOccupiedException.class);
+        assertThat(outcomes.get(2).getResultDescription()).startsWith("FAILED_BLOCKED").contains("contested by 3 units");
+        assertThat(state.findActiveUnitAt(new Position(1, 2))).isEmpty();
+        verify(unitRepository, never()).moveIfFree(anyLong(), anyLong(), anyInt(), anyInt(), anyInt(), any());
+        verify(unitRepository).recordActionIfActive(eq(40L), eq(0L), any()); // the vehicle bumped, its cooldown runs
+        verify(historyWriter).appendAfterCommit(ArgumentMatchers.<List<CommandHistoryEntry>>argThat(histories -> histories.size() == 3));
+    }
+
+    @Test
+    void resolveTick_shotsFireTogetherBeforeMoves() {
+        // the archer hits the vehicle before it can drive off, and is hit by the cannon in the same tick
+        Cannon blackCannon = new Cannon(testGame, PlayerColor.BLACK, new Position(4, 4));
+        blackCannon.setId(50L);
+        blackCannon.setVersion(0L);
+        GameState state = stateWith(whiteArcher, blackVehicle, blackCannon);
+
+        List<CommandOutcome> outcomes = commandService.resolveTick(GAME_ID, List.of(
+                tickCommand(VEHICLE_ID, PlayerColor.BLACK, CommandType.MOVE, 1, 7),
+                tickCommand(50L, PlayerColor.BLACK, CommandType.SHOOT, 1, 1),
+                tickCommand(ARCHER_ID, PlayerColor.WHITE, CommandType.SHOOT, 1, 5)));
+
+        assertThat(outcomes.get(0).getRejection()).hasMessageContaining("destroyed before it could move");
+        assertThat(outcomes.get(1).getResultDescription()).isEqualTo("SUCCESS: Shot target Position(x=1, y=1), destroyed enemy unit 10");
+        assertThat(outcomes.get(2).getResultDescription()).isEqualTo("SUCCESS: Shot target Position(x=1, y=5), destroyed enemy unit 20");
+        assertThat(state.findUnit(ARCHER_ID).orElseThrow().isActive()).isFalse();
+        assertThat(state.findUnit(VEHICLE_ID).orElseThrow().getPosition()).isEqualTo(new Position(1, 5));
+        // the archer's shot was written while it was still active
+        InOrder writes = inOrder(unitRepository);
+        writes.verify(unitRepository).recordActionIfActive(eq(ARCHER_ID), eq(0L), any());
+        writes.verify(unitRepository).destroyIfActive(ARCHER_ID, 1L);
+    }
+
+    @Test
+    void resolveTick_severalShotsAtOneUnit_onlyTheFirstDestroysIt() {
+        Archer otherArcher = new Archer(testGame, PlayerColor.WHITE, new Position(1, 3));
+        otherArcher.setId(30L);
+        otherArcher.setVersion(0L);
+        GameState state = stateWith(whiteArcher, otherArcher, blackVehicle);
+
+        List<CommandOutcome> outcomes = commandService.resolveTick(GAME_ID, List.of(
+                tickCommand(30L, PlayerColor.WHITE, CommandType.SHOOT, 1, 5),
+                tickCommand(ARCHER_ID, PlayerColor.WHITE, CommandType.SHOOT, 1, 5)));
+
+        assertThat(outcomes.get(1).getResultDescription()).isEqualTo("SUCCESS: Shot target Position(x=1, y=5), destroyed enemy unit 20");
+        assertThat(outcomes.get(0).getResultDescription()).isEqualTo("SUCCESS: Shot target Position(x=1, y=5) - unit 20 already destroyed in this tick");
+        assertThat(state.findUnit(VEHICLE_ID).orElseThrow().isActive()).isFalse();
+        verify(unitRepository, times(1)).destroyIfActive(eq(VEHICLE_ID), anyLong());
+    }
+
+    @Test
+    void resolveTick_randomCommand_isDrawnFromTheBoardAsTheTickFoundIt() {
+        // as in executeRandomCommand_whenShootOnCooldown_onlyPicksFreeMoves, (1,0) is the only option
+        whiteArcher.setLastActionTimestamp(Instant.now().minusSeconds(6));
+        Archer allyAbove = new Archer(testGame, PlayerColor.WHITE, new Position(1, 2));
+        allyAbove.setId(31L);
+        Archer allyLeft = new Archer(testGame, PlayerColor.WHITE, new Position(0, 1));
+        allyLeft.setId(32L);
+        Archer enemyRight = new Archer(testGame, PlayerColor.BLACK, new Position(2, 1));
+        enemyRight.setId(33L);
+        GameState state = stateWith(whiteArcher, allyAbove, allyLeft, enemyRight);
+        UnitCommandRequestDTO random = new UnitCommandRequestDTO();
+        random.setUnitId(ARCHER_ID);
+        random.setPlayerColor(PlayerColor.WHITE);
+        random.setCommandType(CommandType.RANDOM_MOVE);
+
+        List<CommandOutcome> outcomes = commandService.resolveTick(GAME_ID, List.of(random));
+
+        assertThat(outcomes.get(0).getCommandType()).isEqualTo(CommandType.MOVE);
+        assertThat(state.findUnit(ARCHER_ID).orElseThrow().getPosition()).isEqualTo(new Position(1, 0));
+        verify(historyWriter).appendAfterCommit(ArgumentMatchers.<List<CommandHistoryEntry>>argThat(histories ->
+                histories.get(0).getCommandType() == CommandType.MOVE && new Position(1, 0).equals(histories.get(0).getTargetPosition())));
+    }
+
+    @Test
+    void resolveTick_moveOntoSquareLeftInSameTick_waitsForTheUnitLeavingIt() {
+        Archer follower = new Archer(testGame, PlayerColor.WHITE, new Position(1, 0));
+        follower.setId(5L); // resolved first, so it has to wait
+        follower.setVersion(0L);
+        GameState state = stateWith(whiteArcher, follower);
+
+        List<CommandOutcome> outcomes = commandService.resolveTick(GAME_ID, List.of(
+                tickCommand(5L, PlayerColor.WHITE, CommandType.MOVE, 1, 1),
+                tickCommand(ARCHER_ID, PlayerColor.WHITE, CommandType.MOVE, 1, 2)));
+
+        assertThat(outcomes).extracting(CommandOutcome::isSuccess).containsExactly(true, true);
+        assertThat(state.findUnit(5L).orElseThrow().getPosition()).isEqualTo(new Position(1, 1));
+        assertThat(state.findUnit(ARCHER_ID).orElseThrow().getPosition()).isEqualTo(new Position(1, 2));
+        InOrder writes = inOrder(unitRepository);
+        writes.verify(unitRepository).moveIfFree(eq(ARCHER_ID), eq(0L), eq(1), eq(2), eq(1), any());
+        writes.verify(unitRepository).moveIfFree(eq(5L), eq(0L), eq(1), eq(1), eq(1), any());
     }
 
     // todo tests:
     // - Moving blocked by Ally
-    // - Shooting and hitting
     // - Shooting and missing
     // - Commanding opponent unit (ActionNotAllowedException)
     // - Moving out of bounds (OutOfBoundsException)
     // - Invalid move distance/direction (InvalidCommandException)
-    // - Invalid shoot range/direction (InvalidCommandException)
     // - Commanding destroyed unit (InvalidCommandException)
     // - Random command generation/execution paths
     // - Tests for Cannon logic
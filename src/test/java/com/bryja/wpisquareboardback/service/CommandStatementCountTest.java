@@ -0,0 +1,90 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.dto.CommandRequestDTO;
+import com.bryja.wpisquareboardback.model.*;
+import com.bryja.wpisquareboardback.repository.CommandHistoryRepository;
+import com.bryja.wpisquareboardback.repository.UnitRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards against the command path touching a game's or unit's history: the statements a command costs must not
+ * depend on how much history there is. History rows are written separately, so the writer is stubbed out here.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CommandStatementCountTest {
+
+    @Autowired private GameService gameService;
+    @Autowired private CommandService commandService;
+    @Autowired private UnitRepository unitRepository;
+    @Autowired private CommandHistoryRepository historyRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @MockitoBean private CommandHistoryWriter historyWriter;
+
+    @Test
+    void executeCommand_statementCountDoesNotGrowWithHistory() {
+        Game game = gameService.createNewGame();
+        List<Unit> units = unitRepository.findByGameId(game.getId());
+        Set<Position> occupied = units.stream().map(Unit::getPosition).collect(Collectors.toSet());
+        List<Unit> movers = units.stream()
+                .filter(unit -> unit.getUnitType() == UnitType.VEHICLE && freeSquareNextTo(unit, occupied, game) != null)
+                .limit(2).toList();
+        Unit quietUnit = movers.get(0);
+        Unit busyUnit = movers.get(1);
+
+        List<CommandHistoryEntry> history = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            history.add(new CommandHistoryEntry(game.getId(), busyUnit.getId(), busyUnit.getPlayerColor(), CommandType.MOVE,
+                    null, "FAILED: Unit " + busyUnit.getId() + " cannot perform MOVE yet."));
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> historyRepository.insertAll(history));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long quiet = statementsFor(statistics, game, quietUnit, occupied);
+        long busy = statementsFor(statistics, game, busyUnit, occupied);
+
+        assertThat(busy).isEqualTo(quiet).isEqualTo(1); // the conditional move is the only statement
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    private long statementsFor(Statistics statistics, Game game, Unit unit, Set<Position> occupied) {
+        Position target = freeSquareNextTo(unit, occupied, game);
+        occupied.add(target);
+        CommandRequestDTO request = new CommandRequestDTO();
+        request.setPlayerColor(unit.getPlayerColor());
+        request.setCommandType(CommandType.MOVE);
+        request.setTargetX(target.getX());
+        request.setTargetY(target.getY());
+
+        statistics.clear();
+        commandService.executeCommand(game.getId(), unit.getId(), request);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static Position freeSquareNextTo(Unit unit, Set<Position> occupied, Game game) {
+        Position position = unit.getPosition();
+        for (int[] step : new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}}) {
+            Position candidate = new Position(position.getX() + step[0], position.getY() + step[1]);
+            if (candidate.getX() >= 0 && candidate.getX() < game.getBoardWidth() && candidate.getY() >= 0
+                    && candidate.getY() < game.getBoardHeight() && !occupied.contains(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,146 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.dto.CommandRequestDTO;
+import com.bryja.wpisquareboardback.dto.UnitCommandRequestDTO;
+import com.bryja.wpisquareboardback.exception.ConcurrencyConflictException;
+import com.bryja.wpisquareboardback.exception.PositionOccupiedException;
+import com.bryja.wpisquareboardback.model.*;
+import com.bryja.wpisquareboardback.repository.GameRepository;
+import com.bryja.wpisquareboardback.state.UnitState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CommandTickEngineTest {
+
+    private static final Long GAME_ID = 1L;
+
+    private final GameConfigProperties config = new GameConfigProperties();
+    private final CommandService commandService = mock(CommandService.class);
+    private final GameRepository gameRepository = mock(GameRepository.class);
+    private final GameCommandExecutor commandExecutor = new GameCommandExecutor(config, gameRepository);
+    private final ExecutorService callers = Executors.newFixedThreadPool(4);
+    private CommandTickEngine tickEngine;
+
+    @BeforeEach
+    void setUp() {
+        config.getCommands().setTickMillis(100);
+        when(gameRepository.existsById(GAME_ID)).thenReturn(true);
+        tickEngine = new CommandTickEngine(commandService, commandExecutor, config);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        callers.shutdownNow();
+        tickEngine.shutdown();
+        commandExecutor.shutdown();
+    }
+
+    private static CommandRequestDTO move(PlayerColor player, int x, int y) {
+        CommandRequestDTO request = new CommandRequestDTO();
+        request.setPlayerColor(player);
+        request.setCommandType(CommandType.MOVE);
+        request.setTargetX(x);
+        request.setTargetY(y);
+        return request;
+    }
+
+    private static UnitState unitAt(Long unitId, int x, int y) {
+        return new UnitState(unitId, GAME_ID, PlayerColor.WHITE, UnitType.ARCHER, new Position(x, y), UnitStatus.ACTIVE, 1, Instant.now(), 1L);
+    }
+
+    @Test
+    void execute_commandsWithinOneTick_areResolvedTogetherAndAnsweredEach() throws Exception {
+        when(commandService.resolveTick(eq(GAME_ID), anyList())).thenAnswer(invocation -> {
+            List<UnitCommandRequestDTO> commands = invocation.getArgument(1);
+            return commands.stream()
+                    .map(command -> command.getUnitId() == 10L
+                            ? new CommandOutcome(10L, CommandType.MOVE, true, "SUCCESS: Moved", unitAt(10L, 1, 2))
+                            : CommandOutcome.rejected(command.getUnitId(), CommandType.MOVE, new PositionOccupiedException("Cannot move to Position(x=1, y=2), contested by 2 units")))
+                    .toList();
+        });
+
+        Future<CommandOutcome> moved = callers.submit(() -> tickEngine.execute(GAME_ID, 10L, move(PlayerColor.WHITE, 1, 2)));
+        Future<CommandOutcome> rejected = callers.submit(() -> tickEngine.execute(GAME_ID, 11L, move(PlayerColor.WHITE, 1, 2)));
+
+        assertThat(moved.get(5, TimeUnit.SECONDS).getUnit().getPosition()).isEqualTo(new Position(1, 2));
+        assertThatThrownBy(() -> rejected.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(PositionOccupiedException.class);
+        verify(commandService, times(1)).resolveTick(eq(GAME_ID), argThat(commands -> commands.size() == 2));
+    }
+
+    @Test
+    void execute_whenTickFailsAsAWhole_everyCallerGetsTheFailure() throws Exception {
+        when(commandService.resolveTick(eq(GAME_ID), anyList()))
+                .thenThrow(new ConcurrencyConflictException("FAILED: Concurrency conflict, please retry."));
+
+        Future<CommandOutcome> first = callers.submit(() -> tickEngine.execute(GAME_ID, 10L, move(PlayerColor.WHITE, 1, 2)));
+        Future<CommandOutcome> second = callers.submit(() -> tickEngine.execute(GAME_ID, 20L, move(PlayerColor.BLACK, 5, 5)));
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(ConcurrencyConflictException.class);
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(ConcurrencyConflictException.class);
+    }
+
+    @Test
+    void executeBatchAndRandom_landInTheSameTickAsSingleCommands() throws Exception {
+        when(commandService.resolveTick(eq(GAME_ID), anyList())).thenAnswer(invocation -> {
+            List<UnitCommandRequestDTO> commands = invocation.getArgument(1);
+            return commands.stream()
+                    .map(command -> command.getUnitId() == 11L
+                            ? CommandOutcome.rejected(11L, CommandType.MOVE, new PositionOccupiedException("Cannot move to Position(x=1, y=2), contested by 2 units"))
+                            : new CommandOutcome(command.getUnitId(), CommandType.MOVE, true, "SUCCESS: Moved", unitAt(command.getUnitId(), 1, 2)))
+                    .toList();
+        });
+        UnitCommandRequestDTO first = new UnitCommandRequestDTO();
+        first.setUnitId(11L);
+        UnitCommandRequestDTO second = new UnitCommandRequestDTO();
+        second.setUnitId(12L);
+
+        Future<CommandOutcome> single = callers.submit(() -> tickEngine.execute(GAME_ID, 10L, move(PlayerColor.WHITE, 1, 2)));
+        Future<List<CommandOutcome>> batch = callers.submit(() -> tickEngine.executeBatch(GAME_ID, List.of(first, second)));
+        Future<CommandOutcome> random = callers.submit(() -> tickEngine.executeRandom(GAME_ID, 13L, PlayerColor.WHITE));
+
+        assertThat(single.get(5, TimeUnit.SECONDS).isSuccess()).isTrue();
+        assertThat(random.get(5, TimeUnit.SECONDS).isSuccess()).isTrue();
+        // a rejected command of the batch is answered like executeBatch would, not thrown
+        assertThat(batch.get(5, TimeUnit.SECONDS)).extracting(CommandOutcome::isSuccess).containsExactly(false, true);
+        verify(commandService, times(1)).resolveTick(eq(GAME_ID), argThat(commands -> commands.size() == 4
+                && commands.stream().anyMatch(command -> command.getCommandType() == CommandType.RANDOM_MOVE)));
+    }
+
+    @Test
+    void closingTicks_doesNotWaitForSlowGames() throws Exception {
+        when(gameRepository.existsById(anyLong())).thenReturn(true);
+        CountDownLatch slowGamesReleased = new CountDownLatch(1);
+        when(commandService.resolveTick(anyLong(), anyList())).thenAnswer(invocation -> {
+            Long gameId = invocation.getArgument(0);
+            if (gameId != GAME_ID) {
+                slowGamesReleased.await();
+            }
+            return List.of(new CommandOutcome(10L, CommandType.MOVE, true, "SUCCESS: Moved", unitAt(10L, 1, 2)));
+        });
+
+        // more slow games than the scheduler has threads, each closing its tick before the fast one
+        int slowGames = Runtime.getRuntime().availableProcessors() + 1;
+        for (long gameId = 2; gameId < 2 + slowGames; gameId++) {
+            tickEngine.submit(gameId, List.of(new UnitCommandRequestDTO()));
+        }
+        Thread.sleep(20);
+        CompletableFuture<CommandOutcome> fast = tickEngine.submit(GAME_ID, List.of(new UnitCommandRequestDTO())).get(0);
+
+        try {
+            assertThat(fast.get(5, TimeUnit.SECONDS).isSuccess()).isTrue();
+        } finally {
+            slowGamesReleased.countDown();
+        }
+    }
+}
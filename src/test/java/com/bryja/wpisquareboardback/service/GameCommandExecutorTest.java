@@ -0,0 +1,141 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.event.GameStartedEvent;
+import com.bryja.wpisquareboardback.exception.CommandQueueFullException;
+import com.bryja.wpisquareboardback.exception.CooldownException;
+import com.bryja.wpisquareboardback.exception.GameNotFoundException;
+import com.bryja.wpisquareboardback.repository.GameRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GameCommandExecutorTest {
+
+    private final GameConfigProperties config = new GameConfigProperties();
+    private final GameRepository gameRepository = mock(GameRepository.class);
+    private final GameCommandExecutor commandExecutor = new GameCommandExecutor(config, gameRepository);
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @BeforeEach
+    void setUp() {
+        when(gameRepository.existsById(1L)).thenReturn(true);
+        when(gameRepository.existsById(2L)).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        callers.shutdownNow();
+        commandExecutor.shutdown();
+    }
+
+    @Test
+    void execute_concurrentCallers_commandsOfOneGameNeverOverlap() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        List<Future<Integer>> results = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            int n = i;
+            results.add(callers.submit(() -> commandExecutor.execute(1L, () -> {
+                assertThat(running.incrementAndGet()).isEqualTo(1);
+                threads.add(Thread.currentThread().getName());
+                running.decrementAndGet();
+                return n;
+            })));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(i);
+        }
+        assertThat(threads).hasSize(50).containsOnly("game-1-writer");
+    }
+
+    @Test
+    void execute_whenCommandFails_rethrowsOriginalException() {
+        assertThatThrownBy(() -> commandExecutor.execute(1L, () -> {
+            throw new CooldownException("Unit 10 cannot perform MOVE yet.");
+        })).isInstanceOf(CooldownException.class).hasMessage("Unit 10 cannot perform MOVE yet.");
+    }
+
+    @Test
+    void execute_whenMailboxFull_rejectsCommand() throws Exception {
+        config.getCommands().setMailboxCapacity(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        callers.submit(() -> commandExecutor.execute(1L, () -> {
+            started.countDown();
+            return await(release);
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        callers.submit(() -> commandExecutor.execute(1L, () -> true)); // fills the only mailbox slot
+        Thread.sleep(100);
+
+        assertThatThrownBy(() -> commandExecutor.execute(1L, () -> true))
+                .isInstanceOf(CommandQueueFullException.class);
+        // other games have their own mailbox
+        assertThat(commandExecutor.execute(2L, () -> Thread.currentThread().getName())).isEqualTo("game-2-writer");
+        release.countDown();
+    }
+
+    @Test
+    void execute_forUnknownGame_rejectsWithoutOpeningAMailbox() {
+        assertThatThrownBy(() -> commandExecutor.execute(99L, () -> true))
+                .isInstanceOf(GameNotFoundException.class);
+        assertThat(commandExecutor.mailboxCount()).isZero();
+    }
+
+    @Test
+    void onGameStarted_dropsTheMailboxOfTheFinishedGame() {
+        commandExecutor.execute(1L, () -> true);
+        commandExecutor.execute(2L, () -> true);
+
+        commandExecutor.onGameStarted(new GameStartedEvent(3L, 1L));
+
+        assertThat(commandExecutor.mailboxCount()).isEqualTo(1);
+        assertThat(commandExecutor.execute(2L, () -> Thread.currentThread().getName())).isEqualTo("game-2-writer");
+    }
+
+    @Test
+    void execute_idleMailbox_isDroppedOnceItsWriterTimesOut() throws Exception {
+        config.getCommands().setWriterKeepAliveMillis(50);
+        commandExecutor.execute(1L, () -> true);
+        assertThat(commandExecutor.mailboxCount()).isEqualTo(1);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (commandExecutor.mailboxCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(commandExecutor.mailboxCount()).isZero();
+        // the next command simply opens a fresh one
+        assertThat(commandExecutor.execute(1L, () -> Thread.currentThread().getName())).isEqualTo("game-1-writer");
+    }
+
+    @Test
+    void execute_whenSingleWriterDisabled_runsOnCallerThread() {
+        config.getCommands().setSingleWriter(false);
+
+        assertThat(commandExecutor.execute(1L, () -> Thread.currentThread().getName()))
+                .isEqualTo(Thread.currentThread().getName());
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,23 +1,32 @@
 package com.bryja.wpisquareboardback.service;
 
 import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.event.GameStartedEvent;
 import com.bryja.wpisquareboardback.exception.InvalidCommandException;
 import com.bryja.wpisquareboardback.model.*;
 import com.bryja.wpisquareboardback.repository.GameRepository;
+import com.bryja.wpisquareboardback.state.GameStateStore;
+import com.bryja.wpisquareboardback.util.GameRandom;
+import com.bryja.wpisquareboardback.util.UnitPlacement;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.context.TestPropertySource;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +36,13 @@ class GameServiceTest {
     private GameRepository gameRepository;
     @Mock
     private GameConfigProperties defaultConfig;
+    @Mock
+    private GameStateStore gameStateStore;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private GameRandom gameRandom = new GameRandom(new GameConfigProperties());
 
     @InjectMocks
     private GameService gameService;
@@ -43,12 +59,14 @@ class GameServiceTest {
         lenient().when(defaultConfig.getUnits().getInitial().getArchers()).thenReturn(2);
         lenient().when(defaultConfig.getUnits().getInitial().getVehicles()).thenReturn(1);
         lenient().when(defaultConfig.getUnits().getInitial().getCannons()).thenReturn(1);
+        lenient().when(defaultConfig.getUnits().getPlacement()).thenReturn(UnitPlacement.RANDOM);
 
     }
 
     @Test
     void createNewGame_withNullConfig_usesDefaultsAndArchivesOldGame() {
         Game oldActiveGame = mock(Game.class);
+        when(oldActiveGame.getId()).thenReturn(3L);
         when(gameRepository.findByStatus(GameStatus.ACTIVE)).thenReturn(Optional.of(oldActiveGame));
         when(gameRepository.save(any(Game.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -72,6 +90,10 @@ class GameServiceTest {
         verify(gameRepository).save(oldActiveGame);
 
         verify(gameRepository).save(newGame);
+        verify(gameStateStore).evict(oldActiveGame.getId());
+        verify(gameStateStore).track(newGame);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof GameStartedEvent started
+                && started.getFinishedGameId().equals(3L)));
     }
 
     @Test
@@ -89,8 +111,8 @@ class GameServiceTest {
 
 
         assertThatThrownBy(() -> gameService.createNewGame())
-                .isInstanceOf(RuntimeException.class)
-                .hasMessageContaining("Failed to place units randomly, too many attempts. Board might be too full.");
+                .isInstanceOf(InvalidCommandException.class)
+                .hasMessageContaining("Cannot place 120 units on a 10x10 board (max 100)");
 
         verify(gameRepository, never()).save(any(Game.class));
     }
@@ -134,4 +156,79 @@ class GameServiceTest {
 
 
     }
+
+    @Test
+    void placeInitialUnits_fillsTheWholeBoardWhenTheUnitsExactlyFit() {
+        when(defaultConfig.getUnits().getInitial().getArchers()).thenReturn(20);
+        when(defaultConfig.getUnits().getInitial().getVehicles()).thenReturn(20);
+        when(defaultConfig.getUnits().getInitial().getCannons()).thenReturn(10);
+        Game game = new Game(10, 10);
+        game.setRandomSeed(42L);
+
+        gameService.placeInitialUnits(game);
+
+        assertThat(game.getUnits()).hasSize(100);
+        assertThat(game.getUnits().stream().map(Unit::getPosition).distinct().count()).isEqualTo(100);
+        assertThat(game.getUnits().stream().filter(unit -> unit.getPlayerColor() == PlayerColor.BLACK
+                && unit.getUnitType() == UnitType.CANNON)).hasSize(10);
+    }
+
+    @Test
+    void placeInitialUnits_handlesLargeDenseBoards() {
+        when(defaultConfig.getUnits().getInitial().getArchers()).thenReturn(20_000);
+        when(defaultConfig.getUnits().getInitial().getVehicles()).thenReturn(20_000);
+        when(defaultConfig.getUnits().getInitial().getCannons()).thenReturn(10_000);
+        Game game = new Game(1000, 1000);
+        game.setRandomSeed(42L);
+
+        gameService.placeInitialUnits(game);
+
+        assertThat(game.getUnits()).hasSize(100_000);
+        assertThat(game.getUnits().stream().map(unit -> unit.getPosition().getY() * 1000 + unit.getPosition().getX())
+                .distinct().count()).isEqualTo(100_000);
+    }
+
+    @Test
+    void placeInitialUnits_sparseHugeBoard_costsNothingPerSquare() {
+        Game game = new Game(40_000, 40_000); // 1.6 billion squares, 6.4 GB as an index array
+        game.setRandomSeed(42L);
+
+        gameService.placeInitialUnits(game);
+
+        assertThat(game.getUnits()).hasSize(8);
+        assertThat(game.getUnits().stream().map(Unit::getPosition).distinct().count()).isEqualTo(8);
+        assertThat(game.getUnits()).allMatch(unit -> unit.getPosition().getX() < 40_000 && unit.getPosition().getY() < 40_000);
+    }
+
+    @Test
+    void placeInitialUnits_mirrored_placesBlackOnTheMirroredSquaresOfWhite() {
+        when(defaultConfig.getUnits().getPlacement()).thenReturn(UnitPlacement.MIRRORED);
+        Game game = new Game(7, 5);
+        game.setRandomSeed(42L);
+
+        gameService.placeInitialUnits(game);
+
+        Map<Position, UnitType> white = game.getUnits().stream().filter(unit -> unit.getPlayerColor() == PlayerColor.WHITE)
+                .collect(Collectors.toMap(Unit::getPosition, Unit::getUnitType));
+        Map<Position, UnitType> mirroredBlack = game.getUnits().stream().filter(unit -> unit.getPlayerColor() == PlayerColor.BLACK)
+                .collect(Collectors.toMap(unit -> new Position(6 - unit.getPosition().getX(), 4 - unit.getPosition().getY()),
+                        Unit::getUnitType));
+        assertThat(white).hasSize(4).isEqualTo(mirroredBlack);
+        assertThat(white.keySet()).allMatch(position -> position.getY() * 7 + position.getX() < 17); // first half
+    }
+
+    @Test
+    void placeInitialUnits_sameSeed_replaysTheSamePlacement() {
+        Game first = new Game(10, 10);
+        first.setRandomSeed(7L);
+        Game second = new Game(10, 10);
+        second.setRandomSeed(7L);
+
+        gameService.placeInitialUnits(first);
+        gameService.placeInitialUnits(second);
+
+        assertThat(second.getUnits()).extracting(Unit::getPlayerColor, Unit::getUnitType, Unit::getPosition)
+                .containsExactlyElementsOf(first.getUnits().stream()
+                        .map(unit -> tuple(unit.getPlayerColor(), unit.getUnitType(), unit.getPosition())).toList());
+    }
 }
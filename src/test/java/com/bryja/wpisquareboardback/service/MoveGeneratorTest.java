@@ -0,0 +1,57 @@
+package com.bryja.wpisquareboardback.service;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.model.*;
+import com.bryja.wpisquareboardback.state.GameState;
+import com.bryja.wpisquareboardback.state.RuleTables;
+import com.bryja.wpisquareboardback.state.UnitState;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MoveGeneratorTest {
+
+    private final MoveGenerator moveGenerator = new MoveGenerator(new RuleTables(new GameConfigProperties()));
+
+    private UnitState unit(long id, PlayerColor color, UnitType type, int x, int y) {
+        return new UnitState(id, 1L, color, type, new Position(x, y), UnitStatus.ACTIVE, 0, Instant.EPOCH, 0L);
+    }
+
+    private GameState state(UnitState... units) {
+        return new GameState(1L, 10, 10, Arrays.asList(units));
+    }
+
+    @Test
+    void legalTargets_vehicle_skipsAllySquaresButMayRunOverEnemies() {
+        UnitState vehicle = unit(1, PlayerColor.WHITE, UnitType.VEHICLE, 5, 5);
+        GameState state = state(vehicle,
+                unit(2, PlayerColor.WHITE, UnitType.ARCHER, 5, 6),
+                unit(3, PlayerColor.BLACK, UnitType.ARCHER, 7, 5));
+
+        int[] targets = moveGenerator.legalTargets(state, vehicle, CommandType.MOVE);
+
+        assertThat(targets).hasSize(11)
+                .doesNotContain(6 * 10 + 5)
+                .contains(5 * 10 + 7, 8 * 10 + 5); // lanes are not blocked by units in between
+    }
+
+    @Test
+    void legalTargets_archerNextToEnemy_cannotMoveOntoIt() {
+        UnitState archer = unit(1, PlayerColor.WHITE, UnitType.ARCHER, 0, 0);
+        GameState state = state(archer, unit(2, PlayerColor.BLACK, UnitType.CANNON, 1, 0));
+
+        assertThat(moveGenerator.legalTargets(state, archer, CommandType.MOVE)).containsExactly(10);
+    }
+
+    @Test
+    void legalTargets_cannonInCorner_coversClippedRectangle() {
+        UnitState cannon = unit(1, PlayerColor.BLACK, UnitType.CANNON, 9, 9);
+        GameState state = state(cannon);
+
+        assertThat(moveGenerator.legalTargets(state, cannon, CommandType.SHOOT)).hasSize(35);
+        assertThat(moveGenerator.legalTargets(state, cannon, CommandType.MOVE)).isEmpty();
+    }
+}
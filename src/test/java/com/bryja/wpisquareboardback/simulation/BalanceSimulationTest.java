@@ -0,0 +1,73 @@
+package com.bryja.wpisquareboardback.simulation;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.model.UnitType;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class BalanceSimulationTest {
+
+    private GameConfigProperties config() {
+        GameConfigProperties config = new GameConfigProperties();
+        config.setSeed(42L);
+        return config;
+    }
+
+    @Test
+    void play_sameSeed_replaysTheSameGame() {
+        BattleSimulator simulator = new BattleSimulator(config());
+
+        BattleSimulator.Result first = simulator.play(7L, BotPolicy.RANDOM, BotPolicy.GREEDY, 3600);
+        BattleSimulator.Result second = simulator.play(7L, BotPolicy.RANDOM, BotPolicy.GREEDY, 3600);
+
+        assertThat(second.winner()).isEqualTo(first.winner());
+        assertThat(second.seconds()).isEqualTo(first.seconds());
+        assertThat(second.survivors()).isEqualTo(first.survivors());
+        assertThat(first.initial()[0]).containsExactly(4, 5, 2); // ARCHER, VEHICLE, CANNON
+    }
+
+    @Test
+    void play_greedyPlayers_finishWithinTheTimeLimit() {
+        BattleSimulator.Result result = new BattleSimulator(config()).play(1L, BotPolicy.GREEDY, BotPolicy.GREEDY, 3600);
+
+        assertThat(result.seconds()).isBetween(0L, 3600L);
+        if (result.winner() != null) {
+            int loser = 1 - result.winner().ordinal();
+            assertThat(result.survivors()[loser]).containsOnly(0);
+        }
+    }
+
+    @Test
+    void play_noTimeForCooldowns_isADraw() {
+        BattleSimulator.Result result = new BattleSimulator(config()).play(1L, BotPolicy.GREEDY, BotPolicy.GREEDY, 0);
+
+        assertThat(result.winner()).isNull();
+        assertThat(result.seconds()).isZero();
+    }
+
+    @Test
+    void run_parallelAndSequential_giveTheSameReport() {
+        BalanceSimulation simulation = new BalanceSimulation(config());
+
+        BalanceSimulation.Report parallel = simulation.run(100, BotPolicy.GREEDY, BotPolicy.RANDOM, 3600, new ForkJoinPool(4));
+        BalanceSimulation.Report sequential = simulation.run(100, BotPolicy.GREEDY, BotPolicy.RANDOM, 3600, new ForkJoinPool(1));
+
+        assertThat(parallel).isEqualTo(sequential);
+        assertThat(parallel.games()).isEqualTo(100);
+        assertThat(parallel.whiteWinRate() + parallel.blackWinRate() + parallel.drawRate()).isCloseTo(1.0, offset(1e-9));
+        assertThat(parallel.p50Seconds()).isLessThanOrEqualTo(parallel.p90Seconds()).isLessThanOrEqualTo(parallel.maxSeconds());
+        assertThat(parallel.survivalRate()).containsOnlyKeys(UnitType.values());
+        assertThat(parallel.whiteWinRate()).isGreaterThan(parallel.blackWinRate()); // greedy beats random
+    }
+
+    @Test
+    void run_noGames_isRejected() {
+        assertThatThrownBy(() -> new BalanceSimulation(config()).run(0, BotPolicy.RANDOM, BotPolicy.RANDOM, 60, ForkJoinPool.commonPool()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,67 @@
+package com.bryja.wpisquareboardback.state;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.event.CommandExecutedEvent;
+import com.bryja.wpisquareboardback.exception.CooldownException;
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import com.bryja.wpisquareboardback.model.UnitType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CooldownLedgerTest {
+
+    private final CooldownLedger ledger = new CooldownLedger(new RuleTables(new GameConfigProperties()));
+
+    private void acted(Long unitId, UnitType type, CommandType command, Instant at) {
+        ledger.onCommandExecuted(new CommandExecutedEvent(1L, unitId, PlayerColor.WHITE, type, command, at, "SUCCESS", null, false, null, null, List.of()));
+    }
+
+    @Test
+    void checkCooldown_afterAction_rejectsWithRemainingTimeUntilReady() {
+        acted(10L, UnitType.ARCHER, CommandType.MOVE, Instant.now().minusSeconds(2));
+
+        assertThatThrownBy(() -> ledger.checkCooldown(1L, 10L, PlayerColor.WHITE, CommandType.MOVE))
+                .isInstanceOf(CooldownException.class)
+                .hasMessageStartingWith("Unit 10 cannot perform MOVE yet. Cooldown remaining: ")
+                .satisfies(e -> assertThat(((CooldownException) e).getRetryAfter())
+                        .isBetween(Duration.ofMillis(2500), Duration.ofSeconds(3)));
+        // archers shoot on a longer cooldown, measured from the same last action
+        assertThat(ledger.remaining(1L, 10L, PlayerColor.WHITE, CommandType.SHOOT)).isGreaterThan(Duration.ofSeconds(7));
+    }
+
+    @Test
+    void checkCooldown_whenLedgerCannotTell_letsTheCommandThrough() {
+        acted(10L, UnitType.VEHICLE, CommandType.MOVE, Instant.now());
+
+        assertThatNoException().isThrownBy(() -> ledger.checkCooldown(2L, 10L, PlayerColor.WHITE, CommandType.MOVE));
+        assertThatNoException().isThrownBy(() -> ledger.checkCooldown(1L, 10L, PlayerColor.BLACK, CommandType.MOVE));
+        assertThatNoException().isThrownBy(() -> ledger.checkCooldown(1L, 10L, PlayerColor.WHITE, CommandType.SHOOT));
+        assertThatNoException().isThrownBy(() -> ledger.checkCooldown(1L, 11L, PlayerColor.WHITE, CommandType.MOVE));
+    }
+
+    @Test
+    void onCommandExecuted_keepsLatestActionWhenEventsArriveOutOfOrder() {
+        Instant now = Instant.now();
+        acted(10L, UnitType.VEHICLE, CommandType.MOVE, now);
+        acted(10L, UnitType.VEHICLE, CommandType.MOVE, now.minusSeconds(6));
+
+        assertThat(ledger.remaining(1L, 10L, PlayerColor.WHITE, CommandType.MOVE)).isGreaterThan(Duration.ofSeconds(6));
+    }
+
+    @Test
+    void checkAnyActionReady_rejectsOnlyWhenEveryActionIsCoolingDown() {
+        acted(10L, UnitType.ARCHER, CommandType.SHOOT, Instant.now().minusSeconds(6)); // move ready, shoot not
+        acted(20L, UnitType.CANNON, CommandType.SHOOT, Instant.now());
+
+        assertThatNoException().isThrownBy(() -> ledger.checkAnyActionReady(1L, 10L, PlayerColor.WHITE));
+        assertThatThrownBy(() -> ledger.checkAnyActionReady(1L, 20L, PlayerColor.WHITE))
+                .isInstanceOf(CooldownException.class)
+                .hasMessageContaining("cannot perform SHOOT yet");
+    }
+}
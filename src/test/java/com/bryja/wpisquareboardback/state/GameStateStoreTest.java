@@ -0,0 +1,105 @@
+package com.bryja.wpisquareboardback.state;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.model.Archer;
+import com.bryja.wpisquareboardback.model.Game;
+import com.bryja.wpisquareboardback.model.GameStatus;
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import com.bryja.wpisquareboardback.model.Position;
+import com.bryja.wpisquareboardback.repository.GameRepository;
+import com.bryja.wpisquareboardback.repository.UnitRepository;
+import com.bryja.wpisquareboardback.util.GameRandom;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class GameStateStoreTest {
+
+    private final GameRepository gameRepository = mock(GameRepository.class);
+    private final UnitRepository unitRepository = mock(UnitRepository.class);
+    private final GameStateStore store = new GameStateStore(gameRepository, unitRepository, new GameRandom(new GameConfigProperties()));
+
+    @BeforeEach
+    void setUp() {
+        TransactionSynchronizationManager.initSynchronization();
+        when(unitRepository.findByGameId(anyLong())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private Game game(long id, GameStatus status) {
+        Game game = new Game(10, 10);
+        game.setId(id);
+        game.setStatus(status);
+        when(gameRepository.findById(id)).thenReturn(Optional.of(game));
+        return game;
+    }
+
+    private void completeTransaction() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @Test
+    void lock_activeGame_keepsItsStateForLaterCommands() {
+        game(1L, GameStatus.ACTIVE);
+
+        GameState first = store.lock(1L);
+        completeTransaction();
+        GameState second = store.lock(1L);
+        completeTransaction();
+
+        assertThat(second).isSameAs(first);
+        assertThat(store.activeGameCount()).isEqualTo(1);
+        verify(gameRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void lock_finishedGame_loadsACopyThatIsNotKept() {
+        game(2L, GameStatus.FINISHED);
+
+        GameState first = store.lock(2L);
+        completeTransaction();
+        GameState second = store.lock(2L);
+        completeTransaction();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(store.activeGameCount()).isZero();
+        assertThat(store.peekUnitType(2L, 10L)).isEmpty();
+    }
+
+    @Test
+    void lock_reloadedGame_carriesOnWithTheRandomDrawsOfItsUnits() {
+        Game game = game(3L, GameStatus.FINISHED); // loaded afresh on every lock
+        game.setRandomSeed(99L);
+        Archer archer = new Archer(game, PlayerColor.WHITE, new Position(4, 4));
+        archer.setId(10L);
+        archer.setVersion(0L);
+        when(unitRepository.findByGameId(3L)).thenReturn(List.of(archer));
+
+        GameState beforeCommands = store.lock(3L);
+        long firstDraw = beforeCommands.randomFor(beforeCommands.findUnit(10L).orElseThrow()).nextLong();
+        completeTransaction();
+        archer.setVersion(3L); // written by three commands since
+        GameState reloaded = store.lock(3L);
+        long drawAfterReload = reloaded.randomFor(reloaded.findUnit(10L).orElseThrow()).nextLong();
+        completeTransaction();
+        GameState reloadedAgain = store.lock(3L);
+
+        assertThat(drawAfterReload).isNotEqualTo(firstDraw);
+        assertThat(reloadedAgain.randomFor(reloadedAgain.findUnit(10L).orElseThrow()).nextLong()).isEqualTo(drawAfterReload);
+    }
+}
@@ -0,0 +1,32 @@
+package com.bryja.wpisquareboardback.state;
+
+import com.bryja.wpisquareboardback.model.PlayerColor;
+import com.bryja.wpisquareboardback.model.Position;
+import com.bryja.wpisquareboardback.model.UnitStatus;
+import com.bryja.wpisquareboardback.model.UnitType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GameStateTest {
+
+    @Test
+    void occupancyBitboards_followMovesAndDestruction() {
+        UnitState white = new UnitState(1L, 1L, PlayerColor.WHITE, UnitType.VEHICLE, new Position(0, 0), UnitStatus.ACTIVE, 0, Instant.EPOCH, 0L);
+        UnitState black = new UnitState(2L, 1L, PlayerColor.BLACK, UnitType.ARCHER, new Position(99, 99), UnitStatus.ACTIVE, 0, Instant.EPOCH, 0L);
+        GameState state = new GameState(1L, 100, 100, List.of(white, black));
+
+        state.moveUnit(white, new Position(0, 3));
+        state.destroyUnit(black);
+
+        assertThat(state.occupantColor(0)).isNull();
+        assertThat(state.occupantColor(300)).isEqualTo(PlayerColor.WHITE);
+        assertThat(state.occupantColor(99 * 100 + 99)).isNull();
+        assertThat(state.findActiveUnitAt(new Position(0, 3))).contains(white);
+        assertThat(state.findActiveUnitAt(new Position(99, 99))).isEmpty();
+        assertThat(state.activeUnitCount()).isEqualTo(1);
+    }
+}
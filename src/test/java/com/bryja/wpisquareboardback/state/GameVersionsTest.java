@@ -0,0 +1,110 @@
+package com.bryja.wpisquareboardback.state;
+
+import com.bryja.wpisquareboardback.event.CommandExecutedEvent;
+import com.bryja.wpisquareboardback.event.GameStartedEvent;
+import com.bryja.wpisquareboardback.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GameVersionsTest {
+
+    private final GameVersions versions = new GameVersions();
+
+    private static UnitState unit(Long id, int x, UnitStatus status) {
+        return new UnitState(id, 1L, PlayerColor.WHITE, UnitType.VEHICLE, new Position(x, 0), status, 0, Instant.now(), 1L);
+    }
+
+    private void committed(UnitState... changedUnits) {
+        versions.onCommandExecuted(new CommandExecutedEvent(1L, changedUnits[0].getId(), PlayerColor.WHITE, UnitType.VEHICLE,
+                CommandType.MOVE, Instant.now(), "SUCCESS", changedUnits[0].getPosition(), true, null, null, List.of(changedUnits)));
+    }
+
+    @Test
+    void onGameStarted_dropsFinishedGamesLogAndSwitchesActiveGame() {
+        versions.activeGameLoaded(1L);
+        committed(unit(10L, 1, UnitStatus.ACTIVE));
+        String before = versions.etag(1L, GameStatus.ACTIVE);
+
+        versions.onGameStarted(new GameStartedEvent(2L, 1L));
+
+        assertThat(versions.etag(1L, GameStatus.FINISHED)).isNotEqualTo(before);
+        assertThat(versions.changesSince(1L, versions.getInstanceId(), 1)).isEmpty();
+        assertThat(versions.currentVersion(1L)).isZero();
+        assertThat(versions.getActiveGameId()).isEqualTo(2L);
+        assertThat(versions.etag(2L, GameStatus.ACTIVE)).contains("-2-");
+    }
+
+    @Test
+    void etag_differsBetweenInstancesAtTheSameVersion() {
+        GameVersions restarted = new GameVersions();
+
+        assertThat(restarted.etag(1L, GameStatus.ACTIVE)).isNotEqualTo(versions.etag(1L, GameStatus.ACTIVE));
+    }
+
+    @Test
+    void onCommandExecuted_forAFinishedGame_doesNotReopenItsLog() {
+        versions.activeGameLoaded(1L);
+        versions.onGameStarted(new GameStartedEvent(2L, 1L));
+
+        committed(unit(10L, 1, UnitStatus.ACTIVE)); // a command sent to game 1 after it finished
+        versions.currentVersion(1L, GameStatus.ACTIVE); // read just before the finish committed
+
+        assertThat(versions.currentVersion(1L)).isZero();
+        assertThat(versions.changesSince(1L, versions.getInstanceId(), 0).orElseThrow().units()).isEmpty();
+    }
+
+    @Test
+    void etag_ofTheActiveGameReadAfterARestart_movesWithItsNextCommand() {
+        String etag = versions.etag(1L, GameStatus.ACTIVE);
+
+        committed(unit(10L, 1, UnitStatus.ACTIVE));
+
+        assertThat(versions.etag(1L, GameStatus.ACTIVE)).isNotEqualTo(etag);
+    }
+
+    @Test
+    void activeGameLoaded_doesNotOverrideAStartedGame() {
+        versions.onGameStarted(new GameStartedEvent(2L, null));
+
+        versions.activeGameLoaded(1L); // read before game 2 committed
+
+        assertThat(versions.getActiveGameId()).isEqualTo(2L);
+    }
+
+    @Test
+    void changesSince_returnsLatestStateOfUnitsChangedAfterTheVersion() {
+        long start = versions.currentVersion(1L, GameStatus.ACTIVE);
+        committed(unit(10L, 1, UnitStatus.ACTIVE));
+        long afterFirst = versions.currentVersion(1L);
+        committed(unit(11L, 2, UnitStatus.ACTIVE), unit(20L, 2, UnitStatus.DESTROYED));
+        committed(unit(10L, 3, UnitStatus.ACTIVE));
+
+        GameVersions.UnitChanges sinceStart = versions.changesSince(1L, versions.getInstanceId(), start).orElseThrow();
+        assertThat(sinceStart.version()).isEqualTo(start + 3);
+        assertThat(sinceStart.units()).extracting(UnitState::getId).containsExactlyInAnyOrder(10L, 11L, 20L);
+        assertThat(sinceStart.units()).filteredOn(u -> u.getId().equals(10L)).singleElement()
+                .satisfies(u -> assertThat(u.getPosition().getX()).isEqualTo(3));
+
+        assertThat(versions.changesSince(1L, versions.getInstanceId(), afterFirst).orElseThrow().units())
+                .extracting(UnitState::getId).containsExactlyInAnyOrder(10L, 11L, 20L);
+        assertThat(versions.changesSince(1L, versions.getInstanceId(), start + 2).orElseThrow().units())
+                .extracting(UnitState::getId).containsExactly(10L);
+        assertThat(versions.changesSince(1L, versions.getInstanceId(), start + 3).orElseThrow().units()).isEmpty();
+    }
+
+    @Test
+    void changesSince_withVersionTheLogDoesNotCover_isEmpty() {
+        long start = versions.currentVersion(1L, GameStatus.ACTIVE);
+
+        assertThat(versions.changesSince(1L, versions.getInstanceId(), start)).isPresent();
+        assertThat(versions.changesSince(1L, versions.getInstanceId(), start + 5)).isEmpty(); // never handed out
+        committed(unit(10L, 1, UnitStatus.ACTIVE));
+        assertThat(versions.changesSince(1L, versions.getInstanceId(), start + 2)).isEmpty();
+        assertThat(versions.changesSince(1L, new GameVersions().getInstanceId(), start)).isEmpty(); // another instance
+        assertThat(versions.changesSince(1L, null, start)).isEmpty();
+    }
+}
@@ -0,0 +1,72 @@
+package com.bryja.wpisquareboardback.state;
+
+import com.bryja.wpisquareboardback.config.GameConfigProperties;
+import com.bryja.wpisquareboardback.model.CommandType;
+import com.bryja.wpisquareboardback.model.UnitType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleTablesTest {
+
+    private final RuleTables rules = new RuleTables(new GameConfigProperties());
+
+    @Test
+    void allowed_matchesUnitCapabilities() {
+        assertThat(rules.allowed(UnitType.ARCHER, CommandType.MOVE)).isTrue();
+        assertThat(rules.allowed(UnitType.ARCHER, CommandType.SHOOT)).isTrue();
+        assertThat(rules.allowed(UnitType.VEHICLE, CommandType.MOVE)).isTrue();
+        assertThat(rules.allowed(UnitType.VEHICLE, CommandType.SHOOT)).isFalse();
+        assertThat(rules.allowed(UnitType.CANNON, CommandType.MOVE)).isFalse();
+        assertThat(rules.allowed(UnitType.CANNON, CommandType.SHOOT)).isTrue();
+        assertThat(rules.allowed(UnitType.ARCHER, CommandType.RANDOM_MOVE)).isFalse();
+        assertThat(rules.runsOver(UnitType.VEHICLE)).isTrue();
+        assertThat(rules.runsOver(UnitType.ARCHER)).isFalse();
+    }
+
+    @Test
+    void cooldown_comesFromConfiguration_andIsZeroForDisallowedCommands() {
+        GameConfigProperties config = new GameConfigProperties();
+        config.getUnits().getCannon().setShootCooldownSeconds(3);
+        RuleTables tuned = new RuleTables(config);
+
+        assertThat(tuned.cooldown(UnitType.CANNON, CommandType.SHOOT)).isEqualTo(Duration.ofSeconds(3));
+        assertThat(tuned.cooldownNanos(UnitType.CANNON, CommandType.SHOOT)).isEqualTo(3_000_000_000L);
+        assertThat(tuned.cooldown(UnitType.ARCHER, CommandType.MOVE)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(tuned.cooldown(UnitType.CANNON, CommandType.MOVE)).isEqualTo(Duration.ZERO);
+        assertThat(tuned.offsets(UnitType.CANNON, CommandType.MOVE)).isEmpty();
+    }
+
+    @Test
+    void reaches_agreesWithOffsetsOverTheWholeNeighbourhood() {
+        for (UnitType type : UnitType.values()) {
+            for (CommandType command : new CommandType[]{CommandType.MOVE, CommandType.SHOOT}) {
+                int[] offsets = rules.offsets(type, command);
+                int reached = 0;
+                for (int dx = -8; dx <= 8; dx++) {
+                    for (int dy = -8; dy <= 8; dy++) {
+                        if (rules.reaches(type, command, dx, dy)) {
+                            reached++;
+                            assertThat(contains(offsets, dx, dy)).as("%s %s (%d, %d)", type, command, dx, dy).isTrue();
+                        }
+                    }
+                }
+                assertThat(reached).isEqualTo(offsets.length / 2);
+            }
+        }
+        assertThat(rules.reachX(UnitType.CANNON, CommandType.SHOOT)).isEqualTo(5);
+        assertThat(rules.orthogonal(UnitType.CANNON, CommandType.SHOOT)).isFalse();
+        assertThat(rules.orthogonal(UnitType.VEHICLE, CommandType.MOVE)).isTrue();
+        assertThat(rules.reaches(UnitType.VEHICLE, CommandType.MOVE, 0, -3)).isTrue();
+        assertThat(rules.reaches(UnitType.VEHICLE, CommandType.MOVE, 1, 1)).isFalse();
+    }
+
+    private static boolean contains(int[] offsets, int dx, int dy) {
+        for (int i = 0; i < offsets.length; i += 2) {
+            if (offsets[i] == dx && offsets[i + 1] == dy) return true;
+        }
+        return false;
+    }
+}